@@ -1,6 +1,7 @@
 import java.io.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 
@@ -10,10 +11,12 @@ import java.util.*;
  */
 public class StockImporter {
     
-    // 資料庫連線設定 Database connection settings
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/stock_db?useSSL=false&allowPublicKeyRetrieval=true";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "";
+    // 資料庫連線設定，可用 -Ddb.url、-Ddb.user、-Ddb.password 覆寫（與 StockDataDAO 相同）
+    // Database connection settings, overridable with -Ddb.url, -Ddb.user and -Ddb.password as in StockDataDAO
+    private static final String DB_URL = System.getProperty("db.url", "jdbc:mysql://localhost:3306/stock_db?useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true");
+    private static final String DB_USER = System.getProperty("db.user", "root");
+    private static final String DB_PASSWORD = System.getProperty("db.password", "");
+    private static final int BATCH_SIZE = 1000;
     
     public static void main(String[] args) {
         StockImporter importer = new StockImporter();
@@ -30,7 +33,7 @@ public class StockImporter {
             // 3. 讀取並匯入CSV
             importer.importCSV("sample_data/stock_data_multiple_days.txt");
             
-            // 4. 計算DSA指標
+            // 4. 回補缺少DSA的舊資料（新資料在匯入時已計算DSA）
             importer.calculateDSA();
             
             // 5. 計算5日移動平均
@@ -88,46 +91,74 @@ public class StockImporter {
     private void importCSV(String filePath) throws Exception {
         System.out.println("讀取檔案: " + filePath);
         
-        BufferedReader br = new BufferedReader(new FileReader(filePath));
+        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8));
         String line = br.readLine(); // 跳過標題行
         
         String sql = """
             INSERT INTO stock_data 
             (id, stock_name, close_price, open_price, high_price, low_price, 
-             volume, market_cap, pe_ratio, dividend_yield, setor, trade_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+             volume, market_cap, pe_ratio, dividend_yield, setor, trade_date, dsa_indicator)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
             """;
         
         PreparedStatement pstmt = conn.prepareStatement(sql);
         int count = 0;
         
+        // 批次寫入，每1000筆送出並提交一次（rewriteBatchedStatements 會合併成多列INSERT）
+        conn.setAutoCommit(false);
+        
         while ((line = br.readLine()) != null) {
             String[] fields = line.split(",");
+            BigDecimal openPrice = new BigDecimal(fields[3]);
+            BigDecimal highPrice = new BigDecimal(fields[4]);
+            BigDecimal lowPrice = new BigDecimal(fields[5]);
             
             pstmt.setInt(1, Integer.parseInt(fields[0]));           // id
             pstmt.setString(2, fields[1]);                          // stock_name
             pstmt.setBigDecimal(3, new BigDecimal(fields[2]));      // close_price
-            pstmt.setBigDecimal(4, new BigDecimal(fields[3]));      // open_price
-            pstmt.setBigDecimal(5, new BigDecimal(fields[4]));      // high_price
-            pstmt.setBigDecimal(6, new BigDecimal(fields[5]));      // low_price
+            pstmt.setBigDecimal(4, openPrice);                      // open_price
+            pstmt.setBigDecimal(5, highPrice);                      // high_price
+            pstmt.setBigDecimal(6, lowPrice);                       // low_price
             pstmt.setLong(7, Long.parseLong(fields[6]));            // volume
             pstmt.setBigDecimal(8, new BigDecimal(fields[7]));      // market_cap
             pstmt.setBigDecimal(9, new BigDecimal(fields[8]));      // pe_ratio
             pstmt.setBigDecimal(10, new BigDecimal(fields[9]));     // dividend_yield
             pstmt.setString(11, fields[10]);                        // setor
             pstmt.setString(12, fields[11]);                        // trade_date
+            pstmt.setBigDecimal(13, dsa(openPrice, highPrice, lowPrice)); // dsa_indicator
             
-            pstmt.executeUpdate();
+            pstmt.addBatch();
             count++;
+            if (count % BATCH_SIZE == 0) {
+                pstmt.executeBatch();
+                conn.commit();
+            }
         }
         
+        pstmt.executeBatch();
+        conn.commit();
+        conn.setAutoCommit(true);
         br.close();
         System.out.println("✓ 匯入完成，共 " + count + " 筆資料");
     }
     
-    // 計算DSA指標
+    // 匯入時計算DSA指標
+    // DSA = [(最高價 - 開盤價) + (開盤價 - 最低價)] / [(最高價 - 開盤價)² + (開盤價 - 最低價)²]
+    private static BigDecimal dsa(BigDecimal openPrice, BigDecimal highPrice, BigDecimal lowPrice) {
+        // 以資料表精度（2位小數）計算，與寫入後再計算的結果相同
+        BigDecimal highMinusOpen = highPrice.setScale(2, RoundingMode.HALF_UP).subtract(openPrice.setScale(2, RoundingMode.HALF_UP));
+        BigDecimal openMinusLow = openPrice.setScale(2, RoundingMode.HALF_UP).subtract(lowPrice.setScale(2, RoundingMode.HALF_UP));
+        BigDecimal denominator = highMinusOpen.multiply(highMinusOpen).add(openMinusLow.multiply(openMinusLow));
+        
+        if (denominator.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO;
+        }
+        return highMinusOpen.add(openMinusLow).divide(denominator, 6, RoundingMode.HALF_UP);
+    }
+    
+    // 回補DSA指標（只處理匯入時沒有DSA的舊資料）
     private void calculateDSA() throws SQLException {
-        System.out.println("計算DSA指標...");
+        System.out.println("回補DSA指標...");
         
         String sql = """
             UPDATE stock_data 
@@ -139,15 +170,20 @@ public class StockImporter {
                          (POWER(high_price - open_price, 2) + POWER(open_price - low_price, 2))
                 END
             )
+            WHERE dsa_indicator IS NULL
             """;
         
         Statement stmt = conn.createStatement();
         int updated = stmt.executeUpdate(sql);
-        System.out.println("✓ DSA計算完成，更新 " + updated + " 筆記錄");
+        System.out.println("✓ DSA回補完成，更新 " + updated + " 筆記錄");
     }
     
-    // 計算5日移動平均
+    // 計算5日移動平均（-Dindicator.mode=sql 時在資料庫內以視窗函數計算，需MySQL 8）
     private void calculateMA5() throws SQLException {
+        if ("sql".equalsIgnoreCase(System.getProperty("indicator.mode"))) {
+            calculateMA5InDatabase();
+            return;
+        }
         System.out.println("計算5日移動平均...");
         
         // 取得所有股票代碼
@@ -176,17 +212,15 @@ public class StockImporter {
                 prices.add(priceRs.getBigDecimal("close_price"));
             }
             
-            // 計算每一天的5日移動平均
+            // 計算每一天的5日移動平均（累加和，加入當天並移除第6天前的價格）
+            BigDecimal sum = BigDecimal.ZERO;
             for (int i = 0; i < prices.size(); i++) {
-                // 取前面最多5天（包含當天）
-                int start = Math.max(0, i - 4);
-                BigDecimal sum = BigDecimal.ZERO;
-                int count = 0;
-                
-                for (int j = start; j <= i; j++) {
-                    sum = sum.add(prices.get(j));
-                    count++;
+                sum = sum.add(prices.get(i));
+                if (i >= 5) {
+                    sum = sum.subtract(prices.get(i - 5));
                 }
+                // 取前面最多5天（包含當天）
+                int count = Math.min(i + 1, 5);
                 
                 BigDecimal ma5 = sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
                 
@@ -204,6 +238,25 @@ public class StockImporter {
         System.out.println("✓ 5日移動平均計算完成");
     }
     
+    // 在資料庫內計算5日移動平均，不需傳送收盤價與結果
+    private void calculateMA5InDatabase() throws SQLException {
+        System.out.println("在資料庫內計算5日移動平均...");
+        
+        String sql = """
+            UPDATE stock_data s
+            JOIN (
+                SELECT id, trade_date,
+                       ROUND(AVG(close_price) OVER (PARTITION BY id ORDER BY trade_date ROWS 4 PRECEDING), 2) AS ma5
+                FROM stock_data
+            ) m ON s.id = m.id AND s.trade_date = m.trade_date
+            SET s.ma_5_days = m.ma5
+            """;
+        
+        Statement stmt = conn.createStatement();
+        int updated = stmt.executeUpdate(sql);
+        System.out.println("✓ 5日移動平均計算完成，更新 " + updated + " 筆記錄");
+    }
+    
     // 顯示結果
     private void showResults() throws SQLException {
         System.out.println("\n=== 結果展示 ===");
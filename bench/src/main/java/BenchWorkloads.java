@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JMH 基準測試的工作負載
+ * Workloads for the JMH Benchmarks
+ *
+ * JMH 不接受預設套件中的基準測試類別，而 src/ 的類別都在預設套件中，具名套件無法直接參考。
+ * 因此實際呼叫寫在此處（型別檢查照常），參數與回傳值只使用 JDK 型別，
+ * 由 benchmarks.Workloads 以 MethodHandle 呼叫。
+ * JMH rejects benchmark classes in the default package, and classes in a named package
+ * cannot refer to the default-package classes of src/. The real calls therefore live here,
+ * fully type-checked, behind static methods that only use JDK types in their signatures;
+ * benchmarks.Workloads invokes them through method handles.
+ */
+public class BenchWorkloads {
+
+    private static final String HEADER = "id,stock_name,close_price,open_price,high_price,low_price,"
+            + "volume,market_cap,pe_ratio,dividend_yield,setor,trade_date\n";
+
+    // ---- 解析 Parsing ----
+
+    public static char[] csvChars(int rows) {
+        return ParseAllocationBenchmark.generate(rows);
+    }
+
+    public static String writeCsv(int rows) throws IOException {
+        Path file = Files.createTempFile("stock-bench-", ".csv");
+        file.toFile().deleteOnExit();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write(csvChars(rows));
+        }
+        return file.toString();
+    }
+
+    public static long parseLegacy(char[] data) {
+        return ParseAllocationBenchmark.runLegacy(data);
+    }
+
+    public static long parseTokenizer(char[] data) {
+        return ParseAllocationBenchmark.runTokenizer(data, false);
+    }
+
+    public static long readStockDataFromCSV(String path) throws IOException {
+        long checksum = 0;
+        for (StockData stockData : CSVReader.readStockDataFromCSV(path)) {
+            checksum += stockData.getVolume();
+        }
+        return checksum;
+    }
+
+    // ---- 指標 Indicators ----
+
+    /**
+     * 單一股票的價格序列，同時保存 BigDecimal 與定點數兩種表示
+     * One stock's prices, held both as BigDecimal and as fixed-point
+     */
+    static class PriceSeries {
+        final BigDecimal[] opens;
+        final BigDecimal[] highs;
+        final BigDecimal[] lows;
+        final BigDecimal[] closes;
+        final long[] openCents;
+        final long[] highCents;
+        final long[] lowCents;
+        final long[] closeCents;
+        final long[] dsa;
+
+        PriceSeries(int rows) {
+            opens = new BigDecimal[rows];
+            highs = new BigDecimal[rows];
+            lows = new BigDecimal[rows];
+            closes = new BigDecimal[rows];
+            openCents = new long[rows];
+            highCents = new long[rows];
+            lowCents = new long[rows];
+            closeCents = new long[rows];
+            dsa = new long[rows];
+            long close = 50000;
+            for (int i = 0; i < rows; i++) {
+                close = Math.max(100, close + (i * 7919L) % 301 - 150);
+                openCents[i] = close - (i % 37) + 18;
+                highCents[i] = Math.max(close, openCents[i]) + (i % 23);
+                lowCents[i] = Math.min(close, openCents[i]) - (i % 19);
+                closeCents[i] = close;
+                opens[i] = BigDecimal.valueOf(openCents[i], 2);
+                highs[i] = BigDecimal.valueOf(highCents[i], 2);
+                lows[i] = BigDecimal.valueOf(lowCents[i], 2);
+                closes[i] = BigDecimal.valueOf(closeCents[i], 2);
+            }
+        }
+    }
+
+    public static Object priceSeries(int rows) {
+        return new PriceSeries(rows);
+    }
+
+    public static long dsaBigDecimal(Object series) {
+        PriceSeries prices = (PriceSeries) series;
+        long checksum = 0;
+        for (int i = 0; i < prices.opens.length; i++) {
+            checksum += StockDataDAO.calculateDSA(prices.opens[i], prices.highs[i], prices.lows[i]).unscaledValue().longValue();
+        }
+        return checksum;
+    }
+
+    public static long dsaFixedPoint(Object series) {
+        PriceSeries prices = (PriceSeries) series;
+        long checksum = 0;
+        for (int i = 0; i < prices.openCents.length; i++) {
+            checksum += FixedPoint.dsa(prices.openCents[i], prices.highCents[i], prices.lowCents[i]);
+        }
+        return checksum;
+    }
+
+    /**
+     * 批次DSA：有 jdk.incubator.vector 時為 Vector API 版本
+     * Bulk DSA, the Vector API kernels when jdk.incubator.vector is present
+     */
+    public static long dsaKernel(Object series) {
+        PriceSeries prices = (PriceSeries) series;
+        OhlcKernels.dsa(prices.openCents, prices.highCents, prices.lowCents, prices.dsa, 0, prices.dsa.length);
+        return prices.dsa[prices.dsa.length - 1];
+    }
+
+    public static long dsaKernelScalar(Object series) {
+        PriceSeries prices = (PriceSeries) series;
+        OhlcKernels.SCALAR.dsa(prices.openCents, prices.highCents, prices.lowCents, prices.dsa, 0, prices.dsa.length);
+        return prices.dsa[prices.dsa.length - 1];
+    }
+
+    /**
+     * 原本 updateMovingAverages 的迴圈：每一天重新加總前5日的 BigDecimal
+     * The original updateMovingAverages loop, re-summing up to five BigDecimals per day
+     */
+    public static long ma5BigDecimal(Object series) {
+        BigDecimal[] closes = ((PriceSeries) series).closes;
+        long checksum = 0;
+        for (int i = 0; i < closes.length; i++) {
+            int startIndex = Math.max(0, i - 4);
+            BigDecimal sum = BigDecimal.ZERO;
+            for (int j = startIndex; j <= i; j++) {
+                sum = sum.add(closes[j]);
+            }
+            BigDecimal ma5 = sum.divide(BigDecimal.valueOf(i - startIndex + 1), 2, RoundingMode.HALF_UP);
+            checksum += ma5.unscaledValue().longValue();
+        }
+        return checksum;
+    }
+
+    public static long ma5Rolling(Object series) {
+        long[] closes = ((PriceSeries) series).closeCents;
+        long checksum = 0;
+        for (long ma5 : RollingWindows.movingAverage(closes, closes.length, 5)) {
+            checksum += ma5;
+        }
+        return checksum;
+    }
+
+    /**
+     * 融合引擎與每個指標各自一個引擎（各掃描一次），用同一支股票的序列
+     * The fused engine and one engine per indicator (one scan each), over the same stock's series
+     */
+    static class IndicatorWorkload {
+        final StockSeries series = new StockSeries(1);
+        final IndicatorEngine fused = IndicatorEngine.withDefaults();
+        final List<IndicatorEngine> separate = new ArrayList<>();
+
+        IndicatorWorkload(int rows) {
+            PriceSeries prices = new PriceSeries(rows);
+            int firstDay = (int) LocalDate.of(2000, 1, 3).toEpochDay();
+            for (int i = 0; i < rows; i++) {
+                series.append(new StockBar(1, "BENCH", prices.closeCents[i], prices.openCents[i], prices.highCents[i],
+                        prices.lowCents[i], 1000, 100000, 1500, 200, "Bench", firstDay + i));
+            }
+            series.seal();
+            for (Indicator indicator : Indicators.defaults()) {
+                separate.add(new IndicatorEngine().register(indicator));
+            }
+        }
+    }
+
+    public static Object indicatorWorkload(int rows) {
+        return new IndicatorWorkload(rows);
+    }
+
+    public static long indicatorsFused(Object workload) {
+        IndicatorWorkload w = (IndicatorWorkload) workload;
+        return checksum(w.fused.compute(w.series));
+    }
+
+    public static long indicatorsSeparate(Object workload) {
+        IndicatorWorkload w = (IndicatorWorkload) workload;
+        long checksum = 0;
+        for (IndicatorEngine engine : w.separate) {
+            checksum += checksum(engine.compute(w.series));
+        }
+        return checksum;
+    }
+
+    private static long checksum(IndicatorEngine.Result result) {
+        long checksum = 0;
+        for (int column = 0; column < result.getColumns().size(); column++) {
+            checksum += result.getValue(column, result.size() - 1);
+        }
+        return checksum;
+    }
+
+    // ---- 查詢 Queries ----
+
+    /**
+     * 查詢引擎與預先取出的股票代碼、交易日，避免量測時配置陣列
+     * The query engine plus its stock ids and trade dates, fetched once so lookups allocate nothing extra
+     */
+    static class QueryWorkload {
+        final StockQueryEngine engine;
+        final int[] ids;
+        final int[] dates;
+
+        QueryWorkload(StockQueryEngine engine) {
+            this.engine = engine;
+            this.ids = engine.getStockIds();
+            this.dates = engine.getTradeDates();
+        }
+    }
+
+    /**
+     * 以模擬資料建立查詢引擎，股票數固定為200
+     * Build a query engine over synthetic data with 200 symbols
+     */
+    public static Object queryWorkload(int rows) throws IOException {
+        int symbols = 200;
+        Path file = Files.createTempFile("stock-query-", ".csv");
+        try {
+            new SyntheticDataGenerator(symbols, Math.max(1, rows / symbols), SyntheticDataGenerator.DEFAULT_SEED).write(file);
+            return new QueryWorkload(new StockQueryEngine(StockSeriesStore.loadFromCSV(file.toString())));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // 以 probe 決定查詢的股票與日期 The probe number picks the stock and date to query
+    public static long queryRange(Object workload, int probe) {
+        QueryWorkload query = (QueryWorkload) workload;
+        int from = query.dates[probe % query.dates.length];
+        long checksum = 0;
+        for (StockBar bar : query.engine.range(query.ids[probe % query.ids.length], from, from + 30)) {
+            checksum += bar.getClosePrice();
+        }
+        return checksum;
+    }
+
+    public static long queryAsOf(Object workload, int probe) {
+        QueryWorkload query = (QueryWorkload) workload;
+        StockBar bar = query.engine.asOf(query.ids[probe % query.ids.length], query.dates[probe % query.dates.length] + 1);
+        return bar == null ? 0 : bar.getClosePrice();
+    }
+
+    public static long queryAllStocksOn(Object workload, int probe) {
+        QueryWorkload query = (QueryWorkload) workload;
+        long checksum = 0;
+        for (StockBar bar : query.engine.allStocksOn(query.dates[probe % query.dates.length])) {
+            checksum += bar.getClosePrice();
+        }
+        return checksum;
+    }
+
+    // ---- 資料庫 Persistence ----
+
+    public static Object stockRows(int rows) {
+        List<StockData> list = new ArrayList<>(rows);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            int id = 1101 + i % 200;
+            long price = 5000 + (i * 131L) % 90000;
+            list.add(new StockData(id, "股票" + id,
+                    BigDecimal.valueOf(price, 2), BigDecimal.valueOf(price - 50, 2),
+                    BigDecimal.valueOf(price + 120, 2), BigDecimal.valueOf(price - 90, 2),
+                    1_000_000L + i, BigDecimal.valueOf(price * 1000, 2),
+                    BigDecimal.valueOf(1530, 2), BigDecimal.valueOf(210, 2),
+                    "半導體", start.plusDays(i / 200)));
+        }
+        return list;
+    }
+
+    public static Object openDao(String backend) throws SQLException {
+        StockRepository repository = StorageBackend.parse(backend).open();
+        repository.createTable();
+        return repository;
+    }
+
+    public static void clearTable(Object dao) throws SQLException {
+        ((StockRepository) dao).clearTable();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void insertStockDataBatch(Object dao, Object rows) throws SQLException {
+        ((StockRepository) dao).writeBatch((List<StockData>) rows);
+    }
+
+    // 多列INSERT只有MySQL後端才有，其他後端以一般的批次寫入代替 Multi-row INSERT is MySQL-only; other backends use the plain batch write
+    @SuppressWarnings("unchecked")
+    public static void bulkInsertStockData(Object dao, Object rows) throws SQLException {
+        if (dao instanceof StockDataDAO) {
+            ((StockDataDAO) dao).bulkInsertStockData(((List<StockData>) rows).iterator());
+        } else {
+            ((StockRepository) dao).writeBatch((List<StockData>) rows);
+        }
+    }
+
+    public static void closeDao(Object dao) throws SQLException {
+        ((StockRepository) dao).close();
+    }
+}
@@ -0,0 +1,74 @@
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 資料庫寫入吞吐量基準測試
+ * Database Load Throughput Benchmark
+ *
+ * 以相同資料比較 JDBC 批次 UPSERT（{@link StockDataDAO#insertStockDataBatch(List)}）
+ * 與多列 INSERT 大量匯入（{@link StockDataDAO#bulkInsertStockData}）的每秒筆數。
+ * 需要本機 MySQL 與 stock_db 資料庫，執行前會清空 stock_data。
+ * Compares rows/s of the JDBC batch upsert and the multi-row INSERT bulk load on the same
+ * rows. Needs a local MySQL with the stock_db database; stock_data is cleared first.
+ *
+ * 編譯與執行 Compile and run:
+ *   mvn -B package
+ *   java -cp bench/target/benchmarks.jar BulkLoadBenchmark [stocks] [days] [rowsPerStatement]
+ */
+public class BulkLoadBenchmark {
+
+    public static void main(String[] args) throws SQLException {
+        int stocks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+        int rowsPerStatement = args.length > 2 ? Integer.parseInt(args[2]) : StockDataDAO.DEFAULT_ROWS_PER_STATEMENT;
+        List<StockData> rows = generate(stocks, days);
+
+        StockDataDAO dao = new StockDataDAO();
+        try {
+            dao.connect();
+            dao.createTable();
+
+            dao.clearTable();
+            long start = System.nanoTime();
+            dao.insertStockDataBatch(rows);
+            long batchNanos = System.nanoTime() - start;
+
+            dao.clearTable();
+            StockDataDAO.BulkLoadResult bulk = dao.bulkInsertStockData(rows.iterator(), rowsPerStatement,
+                    StockDataDAO.DEFAULT_STATEMENTS_PER_COMMIT);
+
+            // 第二次大量匯入全部命中 ON DUPLICATE KEY UPDATE Second bulk load hits ON DUPLICATE KEY UPDATE for every row
+            StockDataDAO.BulkLoadResult upsert = dao.bulkInsertStockData(rows.iterator(), rowsPerStatement,
+                    StockDataDAO.DEFAULT_STATEMENTS_PER_COMMIT);
+
+            System.out.printf("rows: %d%n", rows.size());
+            System.out.printf("batch upsert:          %10.0f rows/s%n", rows.size() * 1e9 / batchNanos);
+            System.out.printf("bulk insert (%4d/stmt): %9.0f rows/s%n", rowsPerStatement, bulk.getRowsPerSecond());
+            System.out.printf("bulk upsert (%4d/stmt): %9.0f rows/s%n", rowsPerStatement, upsert.getRowsPerSecond());
+        } finally {
+            dao.disconnect();
+        }
+    }
+
+    private static List<StockData> generate(int stocks, int days) {
+        List<StockData> list = new ArrayList<>(stocks * days);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int day = 0; day < days; day++) {
+            LocalDate date = start.plusDays(day);
+            for (int s = 0; s < stocks; s++) {
+                int id = 1101 + s;
+                long price = 5000 + (s * 131L + day * 17L) % 90000;
+                list.add(new StockData(id, "股票" + id,
+                        BigDecimal.valueOf(price, 2), BigDecimal.valueOf(price - 50, 2),
+                        BigDecimal.valueOf(price + 120, 2), BigDecimal.valueOf(price - 90, 2),
+                        1_000_000L + day, BigDecimal.valueOf(price * 1000, 2),
+                        BigDecimal.valueOf(1530, 2), BigDecimal.valueOf(210, 2),
+                        "半導體", date));
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * DSA批次核心逐位元驗證
+ * Bit-for-Bit Check of the Bulk DSA Kernel
+ *
+ * 以 {@link OhlcKernels#dsa} 計算下列資料，逐列與 {@link FixedPoint#dsa} 比對：
+ * 固定種子的隨機資料（預設5百萬列，含空值與大價差）、開盤價固定時最高價與最低價各801個值的網格
+ * （含分母為0與負價差），以及 ±2³⁰ 分、long 溢位與空值附近的邊界值。每段資料另以未對齊的起訖位置重算。
+ * 有任何不同時列出前幾筆並以非0狀態結束。
+ * Computes the following with {@link OhlcKernels#dsa} and compares every row with
+ * {@link FixedPoint#dsa}: seeded random rows (5 million by default, with nulls and wide
+ * spreads), an 801×801 grid of high and low around a fixed open (covering zero divisors and
+ * negative differences), and boundary values around ±2³⁰ cents, long overflow and nulls. Each
+ * set is recomputed again over an unaligned range. Prints the first mismatches and exits
+ * non-zero if any row differs.
+ *
+ * 未加入 Vector API 模組時只會驗證純量版本 Without the Vector API module only the scalar loop is checked:
+ *   mvn -B package
+ *   java --add-modules jdk.incubator.vector -cp bench/target/benchmarks.jar DsaKernelCheck [rows]
+ */
+public class DsaKernelCheck {
+
+    private static final long LIMIT = 1L << 30;
+    private static final int GRID_HALF_WIDTH = 400;
+    private static final int MAX_REPORTED = 10;
+
+    private static long mismatches;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String implementation = OhlcKernels.implementation();
+        System.out.println("核心 Kernel: " + implementation);
+        if ("scalar".equals(implementation)) {
+            System.out.println("⚠ 使用純量版本，請加入 --add-modules jdk.incubator.vector 以驗證向量版本"
+                    + " Scalar kernel in use; add --add-modules jdk.incubator.vector to check the vector kernel");
+        }
+
+        check("random", random(rows));
+        check("grid 801x801", grid());
+        check("boundaries", boundaries());
+
+        if (mismatches > 0) {
+            System.out.println("✗ 共 " + mismatches + " 筆不同 " + mismatches + " rows differ");
+            System.exit(1);
+        }
+        System.out.println("✓ 全部相同 All rows match");
+    }
+
+    private static void check(String name, long[][] ohlc) {
+        long[] open = ohlc[0];
+        long[] high = ohlc[1];
+        long[] low = ohlc[2];
+        int n = open.length;
+        long before = mismatches;
+
+        long[] out = new long[n];
+        OhlcKernels.dsa(open, high, low, out, 0, n);
+        compare(name, open, high, low, out, 0, n);
+
+        // 未對齊的起訖位置，涵蓋向量迴圈前後的純量部分 Unaligned range, covering the scalar head and tail
+        int from = Math.min(3, n);
+        int to = Math.max(from, n - 1);
+        long[] shifted = new long[n];
+        Arrays.fill(shifted, 42);
+        OhlcKernels.dsa(open, high, low, shifted, from, to);
+        compare(name + " [" + from + ", " + to + ")", open, high, low, shifted, from, to);
+        for (int i = 0; i < n; i++) {
+            if ((i < from || i >= to) && shifted[i] != 42) {
+                report(name + " outside range", i, open[i], high[i], low[i], 42, shifted[i]);
+            }
+        }
+
+        System.out.printf("%-15s %,12d rows  %s%n", name, n, mismatches == before ? "✓" : "✗");
+    }
+
+    private static void compare(String name, long[] open, long[] high, long[] low, long[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            long expected = FixedPoint.dsa(open[i], high[i], low[i]);
+            if (out[i] != expected) {
+                report(name, i, open[i], high[i], low[i], expected, out[i]);
+            }
+        }
+    }
+
+    private static void report(String name, int row, long open, long high, long low, long expected, long actual) {
+        if (mismatches++ < MAX_REPORTED) {
+            System.out.printf("  %s row %d: open=%d high=%d low=%d expected=%d actual=%d%n",
+                    name, row, open, high, low, expected, actual);
+        }
+    }
+
+    // 大多為一般股價，部分為空值或接近 ±2³⁰ 的價差 Mostly ordinary prices, some nulls and spreads near ±2³⁰
+    private static long[][] random(int rows) {
+        SplittableRandom random = new SplittableRandom(20240101L);
+        long[] open = new long[rows];
+        long[] high = new long[rows];
+        long[] low = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            int kind = random.nextInt(100);
+            long spread = kind < 90 ? 5_000 : kind < 97 ? 2 * LIMIT : Long.MAX_VALUE / 4;
+            open[i] = random.nextLong(1, kind < 97 ? 10_000_000 : 4 * LIMIT);
+            high[i] = open[i] + random.nextLong(-spread / 10, spread);
+            low[i] = open[i] - random.nextLong(-spread / 10, spread);
+            if (kind == 99) {
+                switch (random.nextInt(3)) {
+                    case 0: open[i] = FixedPoint.NULL_LONG; break;
+                    case 1: high[i] = FixedPoint.NULL_LONG; break;
+                    default: low[i] = FixedPoint.NULL_LONG; break;
+                }
+            }
+        }
+        return new long[][] {open, high, low};
+    }
+
+    // 開盤價固定，最高價與最低價各為開盤價 ±400 分 Fixed open; high and low each open ± 400 cents
+    private static long[][] grid() {
+        int width = 2 * GRID_HALF_WIDTH + 1;
+        int rows = width * width;
+        long[] open = new long[rows];
+        long[] high = new long[rows];
+        long[] low = new long[rows];
+        long base = 10_000;
+        for (int h = 0; h < width; h++) {
+            for (int l = 0; l < width; l++) {
+                int i = h * width + l;
+                open[i] = base;
+                high[i] = base + h - GRID_HALF_WIDTH;
+                low[i] = base + l - GRID_HALF_WIDTH;
+            }
+        }
+        return new long[][] {open, high, low};
+    }
+
+    // 開盤價與價差取邊界值的所有組合 Every combination of boundary values for the open and both differences
+    private static long[][] boundaries() {
+        long[] opens = {0, 1, 100, LIMIT - 1, LIMIT, LIMIT + 1, -LIMIT, -LIMIT - 1, Long.MAX_VALUE / 2,
+                FixedPoint.NULL_LONG};
+        long[] differences = {0, 1, -1, 2, LIMIT - 1, LIMIT, LIMIT + 1, -LIMIT + 1, -LIMIT, -LIMIT - 1,
+                3_037_000_499L, 3_037_000_500L, Long.MAX_VALUE / 4, -Long.MAX_VALUE / 4};
+        int rows = opens.length * differences.length * differences.length;
+        long[] open = new long[rows];
+        long[] high = new long[rows];
+        long[] low = new long[rows];
+        int i = 0;
+        for (long o : opens) {
+            for (long highMinusOpen : differences) {
+                for (long openMinusLow : differences) {
+                    open[i] = o;
+                    high[i] = o == FixedPoint.NULL_LONG ? 0 : o + highMinusOpen;
+                    low[i] = o == FixedPoint.NULL_LONG ? 0 : o - openMinusLow;
+                    i++;
+                }
+            }
+        }
+        return new long[][] {open, high, low};
+    }
+}
@@ -0,0 +1,84 @@
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 指標計算模式基準測試
+ * Indicator Mode Benchmark
+ *
+ * 在相同資料上比較 {@link IndicatorMode#JAVA}（價格往返 JVM）與 {@link IndicatorMode#SQL}
+ * （MySQL 8 視窗函數）重新計算DSA與5日移動平均的時間，並比對兩者結果是否相同。
+ * 需要本機 MySQL 8 與 stock_db 資料庫，執行前會清空 stock_data。
+ * Times recomputing DSA and the 5-day moving average with {@link IndicatorMode#JAVA}
+ * (prices round-trip through the JVM) and {@link IndicatorMode#SQL} (MySQL 8 window functions)
+ * on the same rows, and checks that both produce the same values. Needs a local MySQL 8 with
+ * the stock_db database; stock_data is cleared first.
+ *
+ * 編譯與執行 Compile and run:
+ *   mvn -B package
+ *   java -cp bench/target/benchmarks.jar IndicatorModeBenchmark [stocks] [days]
+ */
+public class IndicatorModeBenchmark {
+
+    public static void main(String[] args) throws SQLException {
+        int stocks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 250;
+
+        StockDataDAO dao = new StockDataDAO();
+        try {
+            dao.connect();
+            dao.createTable();
+            dao.clearTable();
+            dao.bulkInsertStockData(generate(stocks, days).iterator());
+
+            long javaNanos = time(dao, IndicatorMode.JAVA);
+            List<StockData> javaSample = dao.getSampleData(stocks * days);
+
+            long sqlNanos = time(dao, IndicatorMode.SQL);
+            List<StockData> sqlSample = dao.getSampleData(stocks * days);
+
+            int mismatches = 0;
+            for (int i = 0; i < javaSample.size(); i++) {
+                StockData a = javaSample.get(i);
+                StockData b = sqlSample.get(i);
+                if (a.getMa5Days().compareTo(b.getMa5Days()) != 0 || a.getDsaIndicator().compareTo(b.getDsaIndicator()) != 0) {
+                    mismatches++;
+                }
+            }
+
+            System.out.printf("rows: %d%n", stocks * days);
+            System.out.printf("JAVA mode: %8.1f ms%n", javaNanos / 1e6);
+            System.out.printf("SQL mode:  %8.1f ms%n", sqlNanos / 1e6);
+            System.out.printf("mismatched rows: %d%n", mismatches);
+        } finally {
+            dao.disconnect();
+        }
+    }
+
+    private static long time(StockDataDAO dao, IndicatorMode mode) throws SQLException {
+        long start = System.nanoTime();
+        dao.updateIndicators(mode);
+        return System.nanoTime() - start;
+    }
+
+    private static List<StockData> generate(int stocks, int days) {
+        List<StockData> list = new ArrayList<>(stocks * days);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int day = 0; day < days; day++) {
+            LocalDate date = start.plusDays(day);
+            for (int s = 0; s < stocks; s++) {
+                int id = 1101 + s;
+                long price = 5000 + (s * 131L + day * 17L) % 90000;
+                list.add(new StockData(id, "股票" + id,
+                        BigDecimal.valueOf(price, 2), BigDecimal.valueOf(price - 50 + day % 7, 2),
+                        BigDecimal.valueOf(price + 120, 2), BigDecimal.valueOf(price - 90, 2),
+                        1_000_000L + day, BigDecimal.valueOf(price * 1000, 2),
+                        BigDecimal.valueOf(1530, 2), BigDecimal.valueOf(210, 2),
+                        "半導體", date));
+            }
+        }
+        return list;
+    }
+}
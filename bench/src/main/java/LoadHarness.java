@@ -0,0 +1,232 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 端對端匯入負載測試
+ * End-to-End Import Load Harness
+ *
+ * 以 {@link SyntheticDataGenerator} 產生 10⁵、10⁶、10⁷ 筆（可指定）資料，依序執行每個匯入階段，
+ * 記錄每階段的時間、堆積峰值與每秒筆數，最後輸出一張表（亦可寫成CSV）。
+ * 加上 --db 時另外以 {@link ImportPipeline} 寫入本機 MySQL（會先清空 stock_data）。
+ * Generates 10⁵, 10⁶ and 10⁷ rows (or the given sizes) with {@link SyntheticDataGenerator},
+ * runs each import stage in turn and records wall time, peak heap and rows/s per stage,
+ * then prints a table (optionally also written as CSV). With --db the rows are also
+ * written to a local MySQL through {@link ImportPipeline}; stock_data is cleared first.
+ * 冷啟動比較：「load columnar store」加「indicators」為由CSV重建的時間，
+ * 「restart from snapshot」為由 {@link StockSnapshot} 重建的時間。
+ * Cold start: "load columnar store" plus "indicators" is the rebuild from CSV, while
+ * "restart from snapshot" is the rebuild from a {@link StockSnapshot}.
+ * 壓縮封存檔 {@link StockArchive}：「archive decode」與「parse (CSVReader)」比較解碼速度，
+ * 最後一行列出各格式的檔案大小與壓縮比。
+ * For the {@link StockArchive} format, compare "archive decode" with "parse (CSVReader)" for
+ * decode throughput; the last line lists each format's file size and compression ratio.
+ *
+ * 「pipeline (memory backend)」以 {@link InMemoryStockRepository} 執行完整匯入流程（寫入、5日均線、融合指標），
+ * 不經過資料庫，與 --db 的結果比較即為資料庫本身的成本。
+ * "pipeline (memory backend)" runs the whole import (upsert, 5-day MA, fused indicators) on an
+ * {@link InMemoryStockRepository} without a database; compare it with --db for the database's own cost.
+ *
+ * 執行 Run:
+ *   mvn -B package
+ *   java -Xmx8g -cp bench/target/benchmarks.jar LoadHarness [--db] [--csv results.csv] [rows...]
+ *
+ * 加上 {@code --add-modules jdk.incubator.vector} 時 DSA 以 Vector API 批次計算（見 {@link OhlcKernels}）。
+ * With {@code --add-modules jdk.incubator.vector} DSA is computed by the Vector API kernels, see {@link OhlcKernels}.
+ */
+public class LoadHarness {
+
+    private static final int SYMBOLS = 1800;
+
+    /**
+     * 單一階段的量測結果
+     * Measurement of one stage
+     */
+    private static class StageResult {
+        final long rows;
+        final String stage;
+        final long elapsedNanos;
+        final long peakHeapBytes;
+
+        StageResult(long rows, String stage, long elapsedNanos, long peakHeapBytes) {
+            this.rows = rows;
+            this.stage = stage;
+            this.elapsedNanos = elapsedNanos;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        double rowsPerSecond() {
+            return rows * 1e9 / elapsedNanos;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean database = false;
+        Path csvOutput = null;
+        List<Long> sizes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--db")) {
+                database = true;
+            } else if (args[i].equals("--csv")) {
+                csvOutput = Path.of(args[++i]);
+            } else {
+                sizes.add(Long.parseLong(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes = List.of(100_000L, 1_000_000L, 10_000_000L);
+        }
+
+        PrintStream console = System.out;
+        List<StageResult> results = new ArrayList<>();
+
+        for (long requestedRows : sizes) {
+            int days = (int) ((requestedRows + SYMBOLS - 1) / SYMBOLS);
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(SYMBOLS, days, SyntheticDataGenerator.DEFAULT_SEED);
+            long rows = generator.getRowCount();
+            Path file = Files.createTempFile("stock-load-", ".csv");
+            file.toFile().deleteOnExit();
+            String path = file.toString();
+
+            console.printf("=== %,d rows (%d symbols × %d days), OHLC kernels %s ===%n", rows, SYMBOLS, days,
+                    OhlcKernels.implementation());
+            int firstResult = results.size();
+            Path snapshot = Files.createTempFile("stock-load-", ".snap");
+            snapshot.toFile().deleteOnExit();
+            Path archive = Files.createTempFile("stock-load-", ".arc");
+            archive.toFile().deleteOnExit();
+            long csvBytes = 0;
+            long snapshotBytes = 0;
+            long archiveBytes = 0;
+
+            // 讀取器會輸出進度與摘要，量測時關閉主控台 The readers print progress and summaries; silence them while measuring
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                results.add(measure(rows, "generate", () -> generator.write(file)));
+                results.add(measure(rows, "parse (CSVReader)", () -> {
+                    try (CSVReader.StockDataIterator iterator = CSVReader.openStockDataIterator(path)) {
+                        while (iterator.hasNext()) {
+                            iterator.next();
+                        }
+                    }
+                }));
+                results.add(measure(rows, "parse (ParallelCSVReader)", () ->
+                        ParallelCSVReader.readStockDataParallel(path, Runtime.getRuntime().availableProcessors(),
+                                ParallelCSVReader.DEFAULT_CHUNK_BYTES, chunk -> { })));
+
+                StockSeriesStore[] store = new StockSeriesStore[1];
+                results.add(measure(rows, "load columnar store", () -> store[0] = StockSeriesStore.loadFromCSV(path)));
+                results.add(measure(rows, "indicators (DSA + MA5)", () -> store[0].computeIndicators()));
+                results.add(measure(rows, "sector aggregation", () -> new SectorAggregator().aggregate(store[0])));
+                long csvEnd = CSVReader.completeLinesEnd(path, 0);
+                results.add(measure(rows, "snapshot write", () ->
+                        StockSnapshot.write(store[0], snapshot, csvEnd, StockSnapshot.fingerprint(path, csvEnd))));
+                results.add(measure(rows, "archive write", () -> StockArchive.write(store[0], archive)));
+                store[0] = null;
+                results.add(measure(rows, "archive decode", () -> {
+                    try (StockArchive reader = StockArchive.open(archive)) {
+                        reader.readAll();
+                    }
+                }));
+                results.add(measure(rows, "restart from snapshot", () -> StockSnapshot.restore(snapshot, path)));
+                results.add(measure(rows, "pipeline (memory backend)", () -> runPipeline(StorageBackend.MEMORY, path)));
+                csvBytes = Files.size(file);
+                snapshotBytes = Files.size(snapshot);
+                archiveBytes = Files.size(archive);
+
+                if (database) {
+                    results.add(measure(rows, "database import (pipeline)", () -> importToDatabase(path)));
+                }
+            } finally {
+                System.setOut(console);
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(snapshot);
+                Files.deleteIfExists(archive);
+            }
+
+            for (StageResult result : results.subList(firstResult, results.size())) {
+                print(console, result);
+            }
+            console.printf("  CSV %,d bytes, snapshot %,d bytes, archive %,d bytes (%.1fx smaller than CSV)%n",
+                    csvBytes, snapshotBytes, archiveBytes, (double) csvBytes / Math.max(1, archiveBytes));
+        }
+
+        if (csvOutput != null) {
+            writeCsv(csvOutput, results);
+            console.println("✓ 結果已寫入 Results written to " + csvOutput);
+        }
+    }
+
+    private static void runPipeline(StorageBackend backend, String path) throws Exception {
+        try (StockRepository repository = backend.open();
+             CSVReader.StockDataIterator iterator = CSVReader.openStockDataIterator(path)) {
+            repository.createTable();
+            repository.insertStockDataBatch(iterator, StockDataDAO.DEFAULT_CHUNK_SIZE);
+            repository.updateIndicatorsIncremental();
+            repository.updateIndicatorColumns(IndicatorEngine.withDefaults(), null);
+        }
+    }
+
+    private static void importToDatabase(String path) throws Exception {
+        StockDataDAO dao = new StockDataDAO();
+        dao.connect();
+        try {
+            dao.createTable();
+            dao.clearTable();
+        } finally {
+            dao.disconnect();
+        }
+        try (ConnectionPool pool = StockDataDAO.newConnectionPool(4)) {
+            new ImportPipeline(pool).run(path);
+        }
+    }
+
+    private static StageResult measure(long rows, String name, Stage stage) throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        long start = System.nanoTime();
+        stage.run();
+        long elapsed = System.nanoTime() - start;
+
+        // 各區峰值之和，為整體堆積峰值的上限 Sum of per-pool peaks, an upper bound on the overall heap peak
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        return new StageResult(rows, name, elapsed, peak);
+    }
+
+    private static void print(PrintStream out, StageResult result) {
+        out.printf("  %-28s %9.2f s  %8.1f MB peak heap  %12.0f rows/s%n",
+                result.stage, result.elapsedNanos / 1e9, result.peakHeapBytes / 1e6, result.rowsPerSecond());
+    }
+
+    private static void writeCsv(Path file, List<StageResult> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("rows,stage,seconds,peak_heap_mb,rows_per_second");
+        for (StageResult result : results) {
+            lines.add(String.format("%d,%s,%.3f,%.1f,%.0f", result.rows, result.stage,
+                    result.elapsedNanos / 1e9, result.peakHeapBytes / 1e6, result.rowsPerSecond()));
+        }
+        Files.write(file, lines);
+    }
+}
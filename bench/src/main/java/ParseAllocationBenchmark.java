@@ -0,0 +1,147 @@
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV解析記憶體配置基準測試
+ * CSV Parse Allocation Benchmark
+ *
+ * 比較原本以 String/StringBuilder 切割欄位的解析方式與 {@link CSVLineTokenizer}，
+ * 輸出每行配置的位元組數與每秒處理行數。
+ * Compares the original String/StringBuilder based field parsing with
+ * {@link CSVLineTokenizer} and reports bytes allocated per row and rows per second.
+ *
+ * 編譯與執行 Compile and run:
+ *   mvn -B package
+ *   java -cp bench/target/benchmarks.jar ParseAllocationBenchmark [rows]
+ */
+public class ParseAllocationBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String[] SECTORS = {"半導體", "電子製造", "石化", "金融", "航運"};
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        char[] data = generate(rows);
+
+        // 暖機 Warm-up
+        for (int i = 0; i < 3; i++) {
+            runLegacy(data);
+            runTokenizer(data, false);
+            runTokenizer(data, true);
+        }
+
+        report("legacy parseCSVLine + BigDecimal(String)", rows, () -> runLegacy(data));
+        report("CSVLineTokenizer -> StockData", rows, () -> runTokenizer(data, false));
+        report("CSVLineTokenizer primitives only", rows, () -> runTokenizer(data, true));
+    }
+
+    private static void report(String name, int rows, Runnable task) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        task.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-45s %8.1f bytes/row %12.0f rows/s%n",
+                name, (double) allocated / rows, rows / (elapsed / 1e9));
+    }
+
+    static char[] generate(int rows) {
+        StringBuilder sb = new StringBuilder(rows * 90);
+        LocalDate date = LocalDate.of(2025, 1, 2);
+        for (int i = 0; i < rows; i++) {
+            int id = 1101 + i % 1800;
+            if (i > 0 && id == 1101) {
+                date = date.plusDays(1);
+            }
+            int price = 5000 + (i * 37) % 90000;
+            sb.append(id).append(",股票").append(id).append(',')
+              .append(price / 100).append('.').append(String.format("%02d", price % 100)).append(',')
+              .append(price / 100).append(".00,")
+              .append(price / 100 + 2).append(".50,")
+              .append(price / 100 - 1).append(".25,")
+              .append(1_000_000L + i).append(',')
+              .append(123456).append(".00,")
+              .append("15.3,2.1,")
+              .append(SECTORS[id % SECTORS.length]).append(',')
+              .append(date).append('\n');
+        }
+        return sb.toString().toCharArray();
+    }
+
+    static long runLegacy(char[] data) {
+        String text = new String(data);
+        long checksum = 0;
+        int lineStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                String[] fields = legacyParseCSVLine(text.substring(lineStart, i));
+                StockData stockData = new StockData();
+                stockData.setId(Integer.parseInt(fields[0].trim()));
+                stockData.setStockName(fields[1].trim());
+                stockData.setClosePrice(new BigDecimal(fields[2].trim()));
+                stockData.setOpenPrice(new BigDecimal(fields[3].trim()));
+                stockData.setHighPrice(new BigDecimal(fields[4].trim()));
+                stockData.setLowPrice(new BigDecimal(fields[5].trim()));
+                stockData.setVolume(Long.parseLong(fields[6].trim()));
+                stockData.setMarketCap(new BigDecimal(fields[7].trim()));
+                stockData.setPeRatio(new BigDecimal(fields[8].trim()));
+                stockData.setDividendYield(new BigDecimal(fields[9].trim()));
+                stockData.setSector(fields[10].trim());
+                stockData.setTradeDate(LocalDate.parse(fields[11].trim(), DATE_FORMATTER));
+                checksum += stockData.getVolume();
+                lineStart = i + 1;
+            }
+        }
+        return checksum;
+    }
+
+    static long runTokenizer(char[] data, boolean primitivesOnly) {
+        CSVLineTokenizer tokenizer = new CSVLineTokenizer();
+        long checksum = 0;
+        int lineStart = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == '\n') {
+                if (primitivesOnly) {
+                    tokenizer.tokenize(data, lineStart, i);
+                    checksum += tokenizer.parseInt(0) + tokenizer.parseLong(6) + tokenizer.epochDay(11);
+                } else {
+                    checksum += CSVReader.parseStockDataFields(tokenizer, data, lineStart, i).getVolume();
+                }
+                lineStart = i + 1;
+            }
+        }
+        return checksum;
+    }
+
+    // 原本的欄位切割實作 The original field splitting implementation
+    private static String[] legacyParseCSVLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder currentField = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == ',' && !inQuotes) {
+                fields.add(currentField.toString());
+                currentField = new StringBuilder();
+            } else {
+                currentField.append(c);
+            }
+        }
+
+        fields.add(currentField.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,82 @@
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 欄式儲存記憶體用量基準測試
+ * Columnar Store Memory Benchmark
+ *
+ * 比較相同資料以 List&lt;StockData&gt; 與 {@link StockSeriesStore} 保存時的堆積用量。
+ * Compares the heap held by the same rows as a List&lt;StockData&gt; and as a {@link StockSeriesStore}.
+ *
+ * 編譯與執行 Compile and run:
+ *   mvn -B package
+ *   java -cp bench/target/benchmarks.jar SeriesStoreMemoryBenchmark [stocks] [days]
+ */
+public class SeriesStoreMemoryBenchmark {
+
+    private static final String[] SECTORS = {"半導體", "電子製造", "石化", "金融", "航運"};
+
+    public static void main(String[] args) {
+        int stocks = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        long rows = (long) stocks * days;
+
+        long baseline = usedHeap();
+        StockSeriesStore store = buildStore(stocks, days);
+        long storeBytes = usedHeap() - baseline;
+        long estimatedBytes = store.estimatedMemoryBytes();
+        store = null;
+
+        baseline = usedHeap();
+        List<StockData> list = generate(stocks, days);
+        long listBytes = usedHeap() - baseline;
+        System.out.println("holding " + list.size() + " rows");
+
+        System.out.printf("rows: %d%n", rows);
+        System.out.printf("List<StockData>:  %10.1f MB  %6.1f bytes/row%n", listBytes / 1e6, (double) listBytes / rows);
+        System.out.printf("StockSeriesStore: %10.1f MB  %6.1f bytes/row (estimated arrays %.1f MB)%n",
+                storeBytes / 1e6, (double) storeBytes / rows, estimatedBytes / 1e6);
+    }
+
+    // 清單只存在於此方法內，回傳後即可回收 The list only lives inside this method
+    private static StockSeriesStore buildStore(int stocks, int days) {
+        StockSeriesStore store = new StockSeriesStore();
+        for (StockData stockData : generate(stocks, days)) {
+            store.add(stockData);
+        }
+        store.seal();
+        return store;
+    }
+
+    private static List<StockData> generate(int stocks, int days) {
+        List<StockData> list = new ArrayList<>(stocks * days);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int day = 0; day < days; day++) {
+            LocalDate date = start.plusDays(day);
+            for (int s = 0; s < stocks; s++) {
+                int id = 1101 + s;
+                long price = 5000 + (s * 131L + day * 17L) % 90000;
+                StockData stockData = new StockData(id, "股票" + id,
+                        BigDecimal.valueOf(price, 2), BigDecimal.valueOf(price - 50, 2),
+                        BigDecimal.valueOf(price + 120, 2), BigDecimal.valueOf(price - 90, 2),
+                        1_000_000L + day, BigDecimal.valueOf(price * 1000, 2),
+                        BigDecimal.valueOf(1530, 2), BigDecimal.valueOf(210, 2),
+                        SECTORS[s % SECTORS.length], date);
+                stockData.setDsaIndicator(stockData.calculateDSA());
+                stockData.setMa5Days(BigDecimal.valueOf(price, 2));
+                list.add(stockData);
+            }
+        }
+        return list;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
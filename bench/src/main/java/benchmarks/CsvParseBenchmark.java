@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CSV解析基準測試：原本的 parseCSVLine、CSVLineTokenizer 與 readStockDataFromCSV 整檔讀取
+ * CSV parsing: the original parseCSVLine, CSVLineTokenizer and whole-file readStockDataFromCSV
+ *
+ * 執行 Run:
+ *   java -jar bench/target/benchmarks.jar CsvParseBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParseBenchmark {
+    private static final MethodHandle CSV_CHARS = Workloads.find("csvChars", char[].class, int.class);
+    private static final MethodHandle WRITE_CSV = Workloads.find("writeCsv", String.class, int.class);
+    private static final MethodHandle PARSE_LEGACY = Workloads.find("parseLegacy", long.class, char[].class);
+    private static final MethodHandle PARSE_TOKENIZER = Workloads.find("parseTokenizer", long.class, char[].class);
+    private static final MethodHandle READ_CSV = Workloads.find("readStockDataFromCSV", long.class, String.class);
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private char[] data;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        // 讀取器會輸出標題與摘要，量測時關閉主控台輸出 The reader prints its header and summary; silence it
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        data = (char[]) CSV_CHARS.invokeExact(rows);
+        path = (String) WRITE_CSV.invokeExact(rows);
+    }
+
+    @Benchmark
+    public long legacyParseCSVLine() throws Throwable {
+        return (long) PARSE_LEGACY.invokeExact(data);
+    }
+
+    @Benchmark
+    public long tokenizer() throws Throwable {
+        return (long) PARSE_TOKENIZER.invokeExact(data);
+    }
+
+    @Benchmark
+    public long readStockDataFromCSV() throws Throwable {
+        return (long) READ_CSV.invokeExact(path);
+    }
+}
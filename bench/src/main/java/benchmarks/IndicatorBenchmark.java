@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 指標計算基準測試：DSA（BigDecimal 與定點數）與5日移動平均（原本迴圈與滾動視窗）
+ * Indicators: DSA with BigDecimal and fixed-point, and the 5-day MA with the original loop and the rolling window
+ *
+ * DSA另比較批次計算：dsaKernel 於加入 jdk.incubator.vector 時為 Vector API 版本（fork 已加入該模組），
+ * dsaKernelScalar 為同一介面的純量版本
+ * DSA is also computed in bulk: dsaKernel uses the Vector API kernels (the fork adds
+ * jdk.incubator.vector), dsaKernelScalar is the scalar loop behind the same interface
+ *
+ * 另比較融合引擎單次掃描計算 EMA/MACD/RSI/布林通道/ATR 與每個指標各掃描一次
+ * Also compares the fused engine computing EMA/MACD/RSI/Bollinger/ATR in one scan against one scan per indicator
+ *
+ * 執行 Run:
+ *   java -jar bench/target/benchmarks.jar IndicatorBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class IndicatorBenchmark {
+    private static final MethodHandle PRICE_SERIES = Workloads.find("priceSeries", Object.class, int.class);
+    private static final MethodHandle DSA_BIG_DECIMAL = Workloads.find("dsaBigDecimal", long.class, Object.class);
+    private static final MethodHandle DSA_FIXED_POINT = Workloads.find("dsaFixedPoint", long.class, Object.class);
+    private static final MethodHandle DSA_KERNEL = Workloads.find("dsaKernel", long.class, Object.class);
+    private static final MethodHandle DSA_KERNEL_SCALAR = Workloads.find("dsaKernelScalar", long.class, Object.class);
+    private static final MethodHandle MA5_BIG_DECIMAL = Workloads.find("ma5BigDecimal", long.class, Object.class);
+    private static final MethodHandle MA5_ROLLING = Workloads.find("ma5Rolling", long.class, Object.class);
+    private static final MethodHandle INDICATOR_WORKLOAD = Workloads.find("indicatorWorkload", Object.class, int.class);
+    private static final MethodHandle INDICATORS_FUSED = Workloads.find("indicatorsFused", long.class, Object.class);
+    private static final MethodHandle INDICATORS_SEPARATE = Workloads.find("indicatorsSeparate", long.class, Object.class);
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private Object prices;
+    private Object indicators;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        prices = (Object) PRICE_SERIES.invokeExact(rows);
+        indicators = (Object) INDICATOR_WORKLOAD.invokeExact(rows);
+    }
+
+    @Benchmark
+    public long dsaBigDecimal() throws Throwable {
+        return (long) DSA_BIG_DECIMAL.invokeExact(prices);
+    }
+
+    @Benchmark
+    public long dsaFixedPoint() throws Throwable {
+        return (long) DSA_FIXED_POINT.invokeExact(prices);
+    }
+
+    @Benchmark
+    public long dsaKernel() throws Throwable {
+        return (long) DSA_KERNEL.invokeExact(prices);
+    }
+
+    @Benchmark
+    public long dsaKernelScalar() throws Throwable {
+        return (long) DSA_KERNEL_SCALAR.invokeExact(prices);
+    }
+
+    @Benchmark
+    public long movingAverageLoop() throws Throwable {
+        return (long) MA5_BIG_DECIMAL.invokeExact(prices);
+    }
+
+    @Benchmark
+    public long movingAverageRolling() throws Throwable {
+        return (long) MA5_ROLLING.invokeExact(prices);
+    }
+
+    @Benchmark
+    public long indicatorsFused() throws Throwable {
+        return (long) INDICATORS_FUSED.invokeExact(indicators);
+    }
+
+    @Benchmark
+    public long indicatorsSeparate() throws Throwable {
+        return (long) INDICATORS_SEPARATE.invokeExact(indicators);
+    }
+}
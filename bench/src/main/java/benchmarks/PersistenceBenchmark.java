@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 資料庫寫入基準測試：insertStockDataBatch 與 bulkInsertStockData
+ * Persistence: insertStockDataBatch and bulkInsertStockData
+ *
+ * 需要本機 MySQL 與 stock_db 資料庫（連線設定同 StockDataDAO），每次呼叫前會清空 stock_data。
+ * 以 -p backend=memory 改用 {@code InMemoryStockRepository}，不需資料庫（bulkInsertStockData 此時同一般批次寫入）。
+ * Needs a local MySQL with the stock_db database (same settings as StockDataDAO);
+ * stock_data is cleared before every invocation. With -p backend=memory the
+ * {@code InMemoryStockRepository} is used instead and no database is needed
+ * (bulkInsertStockData is then the plain batch write).
+ *
+ * 執行 Run:
+ *   java -jar bench/target/benchmarks.jar PersistenceBenchmark -prof gc
+ *   java -jar bench/target/benchmarks.jar PersistenceBenchmark -p backend=memory,mysql
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersistenceBenchmark {
+    private static final MethodHandle STOCK_ROWS = Workloads.find("stockRows", Object.class, int.class);
+    private static final MethodHandle OPEN_DAO = Workloads.find("openDao", Object.class, String.class);
+    private static final MethodHandle CLEAR_TABLE = Workloads.find("clearTable", void.class, Object.class);
+    private static final MethodHandle INSERT_BATCH = Workloads.find("insertStockDataBatch", void.class, Object.class, Object.class);
+    private static final MethodHandle BULK_INSERT = Workloads.find("bulkInsertStockData", void.class, Object.class, Object.class);
+    private static final MethodHandle CLOSE_DAO = Workloads.find("closeDao", void.class, Object.class);
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    /** 儲存後端，見 StorageBackend Storage backend, see StorageBackend */
+    @Param({"mysql"})
+    public String backend;
+
+    private Object dao;
+    private Object stockRows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        stockRows = (Object) STOCK_ROWS.invokeExact(rows);
+        dao = (Object) OPEN_DAO.invokeExact(backend);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() throws Throwable {
+        CLEAR_TABLE.invokeExact(dao);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        CLOSE_DAO.invokeExact(dao);
+    }
+
+    @Benchmark
+    public void insertStockDataBatch() throws Throwable {
+        INSERT_BATCH.invokeExact(dao, stockRows);
+    }
+
+    @Benchmark
+    public void bulkInsertStockData() throws Throwable {
+        BULK_INSERT.invokeExact(dao, stockRows);
+    }
+}
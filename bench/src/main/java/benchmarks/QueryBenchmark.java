@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 記憶體內查詢基準測試：單一股票一個月區間、某日之前最後一筆、某日所有股票（200支）
+ * In-memory queries: one stock over a month, the last bar on or before a date, and all 200 stocks on a date
+ *
+ * 執行 Run:
+ *   java -jar bench/target/benchmarks.jar QueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final MethodHandle QUERY_WORKLOAD = Workloads.find("queryWorkload", Object.class, int.class);
+    private static final MethodHandle RANGE = Workloads.find("queryRange", long.class, Object.class, int.class);
+    private static final MethodHandle AS_OF = Workloads.find("queryAsOf", long.class, Object.class, int.class);
+    private static final MethodHandle ALL_STOCKS_ON = Workloads.find("queryAllStocksOn", long.class, Object.class, int.class);
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private Object workload;
+    private int probe;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        workload = (Object) QUERY_WORKLOAD.invokeExact(rows);
+    }
+
+    @Benchmark
+    public long range() throws Throwable {
+        return (long) RANGE.invokeExact(workload, probe++ & Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public long asOf() throws Throwable {
+        return (long) AS_OF.invokeExact(workload, probe++ & Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public long allStocksOn() throws Throwable {
+        return (long) ALL_STOCKS_ON.invokeExact(workload, probe++ & Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 以 MethodHandle 呼叫預設套件中的 BenchWorkloads
+ * Method handles onto the default-package BenchWorkloads
+ *
+ * 基準測試將回傳的 MethodHandle 存在 static final 欄位，JIT 會將呼叫內聯，不影響量測結果。
+ * Benchmarks keep the handles in static final fields, which the JIT inlines, so the
+ * indirection does not show up in the measurements.
+ */
+final class Workloads {
+    private static final Class<?> WORKLOADS = load();
+
+    private Workloads() {}
+
+    static MethodHandle find(String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            return MethodHandles.publicLookup().findStatic(WORKLOADS, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("找不到工作負載 Workload not found: " + name, e);
+        }
+    }
+
+    private static Class<?> load() {
+        try {
+            return Class.forName("BenchWorkloads");
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- 為舊版建立的 stock_data 資料表補上技術指標欄位（StockDataDAO.createTable 也會自動補上）
+-- Add the technical indicator columns to a stock_data table created by an older version
+-- (StockDataDAO.createTable also adds them automatically)
+
+USE stock_db;
+
+ALTER TABLE stock_data
+    ADD COLUMN ema_12 DECIMAL(14, 4) COMMENT '12日指數移動平均',
+    ADD COLUMN ema_26 DECIMAL(14, 4) COMMENT '26日指數移動平均',
+    ADD COLUMN macd DECIMAL(14, 4) COMMENT 'MACD',
+    ADD COLUMN macd_signal DECIMAL(14, 4) COMMENT 'MACD訊號線',
+    ADD COLUMN macd_histogram DECIMAL(14, 4) COMMENT 'MACD柱狀體',
+    ADD COLUMN rsi_14 DECIMAL(14, 4) COMMENT '14日相對強弱指標',
+    ADD COLUMN bollinger_upper DECIMAL(14, 4) COMMENT '布林通道上軌',
+    ADD COLUMN bollinger_middle DECIMAL(14, 4) COMMENT '布林通道中軌',
+    ADD COLUMN bollinger_lower DECIMAL(14, 4) COMMENT '布林通道下軌',
+    ADD COLUMN atr_14 DECIMAL(14, 4) COMMENT '14日平均真實區間';
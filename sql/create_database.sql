@@ -26,6 +26,16 @@ CREATE TABLE IF NOT EXISTS stock_data (
     trade_date DATE NOT NULL COMMENT '交易日期 Trade Date',
     dsa_indicator DECIMAL(10, 6) COMMENT 'DSA指標 DSA Indicator',
     ma_5_days DECIMAL(10, 2) COMMENT '5日移動平均 5-Day Moving Average',
+    ema_12 DECIMAL(14, 4) COMMENT '12日指數移動平均 12-Day EMA',
+    ema_26 DECIMAL(14, 4) COMMENT '26日指數移動平均 26-Day EMA',
+    macd DECIMAL(14, 4) COMMENT 'MACD',
+    macd_signal DECIMAL(14, 4) COMMENT 'MACD訊號線 MACD Signal',
+    macd_histogram DECIMAL(14, 4) COMMENT 'MACD柱狀體 MACD Histogram',
+    rsi_14 DECIMAL(14, 4) COMMENT '14日相對強弱指標 14-Day RSI',
+    bollinger_upper DECIMAL(14, 4) COMMENT '布林通道上軌 Bollinger Upper Band',
+    bollinger_middle DECIMAL(14, 4) COMMENT '布林通道中軌 Bollinger Middle Band',
+    bollinger_lower DECIMAL(14, 4) COMMENT '布林通道下軌 Bollinger Lower Band',
+    atr_14 DECIMAL(14, 4) COMMENT '14日平均真實區間 14-Day ATR',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '建立時間 Created Time',
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新時間 Updated Time',
     PRIMARY KEY (id, trade_date),
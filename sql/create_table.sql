@@ -18,6 +18,16 @@ CREATE TABLE stock_data (
     trade_date DATE NOT NULL COMMENT '交易日期',
     dsa_indicator DECIMAL(10, 6) COMMENT 'DSA指標',
     ma_5_days DECIMAL(10, 2) COMMENT '5日移動平均',
+    ema_12 DECIMAL(14, 4) COMMENT '12日指數移動平均',
+    ema_26 DECIMAL(14, 4) COMMENT '26日指數移動平均',
+    macd DECIMAL(14, 4) COMMENT 'MACD',
+    macd_signal DECIMAL(14, 4) COMMENT 'MACD訊號線',
+    macd_histogram DECIMAL(14, 4) COMMENT 'MACD柱狀體',
+    rsi_14 DECIMAL(14, 4) COMMENT '14日相對強弱指標',
+    bollinger_upper DECIMAL(14, 4) COMMENT '布林通道上軌',
+    bollinger_middle DECIMAL(14, 4) COMMENT '布林通道中軌',
+    bollinger_lower DECIMAL(14, 4) COMMENT '布林通道下軌',
+    atr_14 DECIMAL(14, 4) COMMENT '14日平均真實區間',
     PRIMARY KEY (id, trade_date),
     INDEX idx_stock_date (id, trade_date),
     INDEX idx_trade_date (trade_date)
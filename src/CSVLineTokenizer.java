@@ -0,0 +1,404 @@
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * CSV欄位切割器
+ * CSV Field Tokenizer
+ *
+ * 直接在字元陣列的範圍上切割欄位並就地解析整數、小數與 yyyy-MM-dd 日期，
+ * 不建立暫存字串；一個實例可重複使用於多行，但不可跨執行緒共用。
+ * Splits fields directly on a char array range and parses integers, decimals and
+ * yyyy-MM-dd dates in place without temporary Strings. One instance is reused for
+ * every line of a reader and must not be shared between threads.
+ *
+ * 引號處理與原本的 parseCSVLine 相同：引號切換引用狀態並自欄位內容移除，
+ * 引號內的逗號不分割欄位，欄位前後空白會被去除。
+ * Quotes behave like the original parseCSVLine: a quote toggles quoting and is
+ * removed from the content, commas inside quotes do not split, and each field is trimmed.
+ */
+public class CSVLineTokenizer {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final int STRING_CACHE_SIZE = 1024;    // 必須為2的次方 Must be a power of two
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private char[] buffer;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private boolean[] fieldHasQuote = new boolean[16];
+    private int fieldCount;
+
+    // 最近一次小數解析結果 Result of the last decimal parse
+    private long lastUnscaled;
+    private int lastScale;
+
+    // 重複出現的字串與日期共用同一個物件 Repeated strings and dates share one instance
+    private final String[] stringCache = new String[STRING_CACHE_SIZE];
+    private int lastDateKey = -1;
+    private LocalDate lastDate;
+
+    /**
+     * 切割 buffer[from, to) 這一行，回傳欄位數
+     * Tokenize the line held in buffer[from, to) and return the number of fields
+     */
+    public int tokenize(char[] buffer, int from, int to) {
+        this.buffer = buffer;
+        fieldCount = 0;
+
+        boolean inQuotes = false;
+        boolean hasQuote = false;
+        int start = from;
+
+        for (int i = from; i < to; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                inQuotes = !inQuotes;
+                hasQuote = true;
+            } else if (c == ',' && !inQuotes) {
+                addField(start, i, hasQuote);
+                start = i + 1;
+                hasQuote = false;
+            }
+        }
+
+        // 添加最後一個欄位 Add the last field
+        addField(start, to, hasQuote);
+        return fieldCount;
+    }
+
+    private void addField(int start, int end, boolean hasQuote) {
+        if (fieldCount == fieldStart.length) {
+            int newLength = fieldCount * 2;
+            fieldStart = Arrays.copyOf(fieldStart, newLength);
+            fieldEnd = Arrays.copyOf(fieldEnd, newLength);
+            fieldHasQuote = Arrays.copyOf(fieldHasQuote, newLength);
+        }
+
+        // 去除前後空白與引號 Trim surrounding whitespace and quotes
+        while (start < end && isTrimmable(buffer[start])) {
+            start++;
+        }
+        while (end > start && isTrimmable(buffer[end - 1])) {
+            end--;
+        }
+
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldHasQuote[fieldCount] = hasQuote;
+        fieldCount++;
+    }
+
+    private static boolean isTrimmable(char c) {
+        return c <= ' ' || c == '"';
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 欄位是否為空
+     * Whether the field is empty after trimming
+     */
+    public boolean isEmpty(int field) {
+        return fieldStart[field] == fieldEnd[field];
+    }
+
+    /**
+     * 取得欄位字串，重複的內容會回傳同一個快取字串
+     * Field as a String; repeated content returns the same cached instance
+     */
+    public String string(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+
+        if (fieldHasQuote[field]) {
+            return unquotedString(start, end);
+        }
+
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+
+        String cached = stringCache[slot];
+        if (cached != null && contentEquals(cached, start, end)) {
+            return cached;
+        }
+
+        String value = new String(buffer, start, end - start);
+        stringCache[slot] = value;
+        return value;
+    }
+
+    private boolean contentEquals(String value, int start, int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 欄位中間含有引號時的慢速路徑 Slow path for quotes inside a field
+    private String unquotedString(int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            if (buffer[i] != '"') {
+                sb.append(buffer[i]);
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * 解析整數欄位，語意同 Integer.parseInt
+     * Parse an int field with Integer.parseInt semantics
+     */
+    public int parseInt(int field) {
+        long value = parseLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(string(field));
+        }
+        return (int) value;
+    }
+
+    /**
+     * 解析長整數欄位，語意同 Long.parseLong
+     * Parse a long field with Long.parseLong semantics
+     */
+    public long parseLong(int field) {
+        int i = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = false;
+
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        int digits = 0;
+        long value = 0;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                continue;
+            }
+            if (c < '0' || c > '9' || digits == MAX_FAST_DIGITS) {
+                // 交給JDK產生相同的錯誤訊息或處理長數字 Let the JDK produce the same error or handle long input
+                return Long.parseLong(string(field));
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+        }
+
+        if (digits == 0) {
+            return Long.parseLong(string(field));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 解析小數欄位；一般格式於原地解析，指數或超長數字交給 BigDecimal
+     * Parse a decimal field; plain notation is parsed in place, exponents or
+     * very long numbers fall back to the BigDecimal string constructor
+     */
+    public BigDecimal decimal(int field) {
+        if (parseUnscaled(field)) {
+            return BigDecimal.valueOf(lastUnscaled, lastScale);
+        }
+        return new BigDecimal(string(field));
+    }
+
+    /**
+     * 解析可能為空的小數欄位，空值或格式錯誤回傳null
+     * Parse a nullable decimal; empty or malformed values yield null
+     */
+    public BigDecimal nullableDecimal(int field) {
+        if (isEmpty(field)) {
+            return null;
+        }
+        if (parseUnscaled(field)) {
+            return BigDecimal.valueOf(lastUnscaled, lastScale);
+        }
+        try {
+            return new BigDecimal(string(field));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析小數欄位為指定小數位數的定點數，空值回傳 {@link FixedPoint#NULL_LONG}
+     * Parse a decimal field as a fixed-point long at the given scale;
+     * an empty field yields {@link FixedPoint#NULL_LONG}
+     */
+    public long fixedPoint(int field, int scale) {
+        if (isEmpty(field)) {
+            return FixedPoint.NULL_LONG;
+        }
+        if (parseUnscaled(field)) {
+            return FixedPoint.rescale(lastUnscaled, lastScale, scale);
+        }
+        return FixedPoint.toLong(new BigDecimal(string(field)), scale);
+    }
+
+    /**
+     * 將一般格式的小數解析為未縮放值與小數位數，無法快速解析時回傳false
+     * Parse a plain-notation decimal into an unscaled value and scale;
+     * returns false when the fast path does not apply
+     */
+    boolean parseUnscaled(int field) {
+        int i = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = false;
+
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                if (digits == MAX_FAST_DIGITS) {
+                    return false;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c != '"') {
+                return false;
+            }
+        }
+
+        if (digits == 0) {
+            return false;
+        }
+
+        lastUnscaled = negative ? -unscaled : unscaled;
+        lastScale = scale;
+        return true;
+    }
+
+    long getLastUnscaled() { return lastUnscaled; }
+    int getLastScale() { return lastScale; }
+
+    /**
+     * 解析 yyyy-MM-dd 日期，連續相同的日期回傳同一個物件
+     * Parse a yyyy-MM-dd date; consecutive equal dates return the same instance
+     */
+    public LocalDate date(int field) {
+        int key = parseDateKey(field);
+        if (key < 0) {
+            // 非標準格式交給格式器處理 Non-canonical input goes through the formatter
+            return LocalDate.parse(string(field), DATE_FORMATTER);
+        }
+        if (key != lastDateKey) {
+            lastDate = resolveDate(key / 10000, key / 100 % 100, key % 100);
+            lastDateKey = key;
+        }
+        return lastDate;
+    }
+
+    /**
+     * 解析 yyyy-MM-dd 日期為 epoch day，不建立任何物件
+     * Parse a yyyy-MM-dd date into an epoch day without allocating
+     */
+    public long epochDay(int field) {
+        int key = parseDateKey(field);
+        if (key < 0) {
+            return date(field).toEpochDay();
+        }
+        int year = key / 10000;
+        int month = key / 100 % 100;
+        int day = Math.min(key % 100, lengthOfMonth(year, month));
+        return toEpochDay(year, month, day);
+    }
+
+    // 將 yyyy-MM-dd 編碼為 yyyyMMdd，格式不符回傳 -1 Encode as yyyyMMdd, or -1 when not canonical
+    private int parseDateKey(int field) {
+        int start = fieldStart[field];
+        if (fieldEnd[field] - start != 10 || fieldHasQuote[field]
+                || buffer[start + 4] != '-' || buffer[start + 7] != '-') {
+            return -1;
+        }
+
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = buffer[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // 與 DateTimeFormatter 的 SMART 模式相同：超出月份天數時調整為月底
+    // Same as the formatter's SMART resolver: an out-of-range day is clamped to the month end
+    private static LocalDate resolveDate(int year, int month, int day) {
+        return LocalDate.of(year, month, Math.min(day, lengthOfMonth(year, month)));
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // 與 LocalDate.toEpochDay 相同的演算法 Same algorithm as LocalDate.toEpochDay
+    static long toEpochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+            if (!leap) {
+                total--;
+            }
+        }
+        return total - 719528;
+    }
+}
@@ -1,140 +1,491 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * CSV檔案讀取器
  * CSV File Reader
  */
 public class CSVReader {
-    
+
+    /** 每個檔案最多輸出的錯誤行數，其餘只計數 Bad lines logged per file; the rest are only counted */
+    static final int MAX_LOGGED_ERRORS = 20;
+
     /**
      * 讀取股票資料CSV檔案
      * Read stock data CSV file
      */
     public static List<StockData> readStockDataFromCSV(String filePath) throws IOException {
         List<StockData> stockDataList = new ArrayList<>();
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
+
+        try (StockDataIterator iterator = openStockDataIterator(filePath)) {
+            while (iterator.hasNext()) {
+                stockDataList.add(iterator.next());
+            }
+        } catch (UncheckedIOException e) {
+            System.err.println("讀取檔案失敗 File reading failed: " + e.getCause().getMessage());
+            throw e.getCause();
+        }
+
+        return stockDataList;
+    }
+
+    /**
+     * 以串流方式讀取股票資料，每次只保留一筆資料於記憶體
+     * Stream stock data rows as they are parsed, holding only one row in memory at a time.
+     * The returned stream must be closed to release the underlying file.
+     */
+    public static Stream<StockData> streamStockDataFromCSV(String filePath) throws IOException {
+        StockDataIterator iterator = openStockDataIterator(filePath);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 開啟逐筆讀取的迭代器
+     * Open a pull-based iterator over the CSV rows
+     */
+    public static StockDataIterator openStockDataIterator(String filePath) throws IOException {
+        System.out.println("讀取CSV檔案: " + filePath);
+        System.out.println("Reading CSV file: " + filePath);
+
+        try {
+            return new StockDataIterator(openFile(filePath));
+        } catch (IOException e) {
+            System.err.println("讀取檔案失敗 File reading failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 開啟逐筆讀取定點數 StockBar 的迭代器
+     * Open a pull-based iterator that parses rows straight into fixed-point StockBars
+     */
+    public static RowIterator<StockBar> openStockBarIterator(String filePath) throws IOException {
         System.out.println("讀取CSV檔案: " + filePath);
         System.out.println("Reading CSV file: " + filePath);
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean isFirstLine = true;
-            int lineNumber = 0;
-            int successCount = 0;
-            int errorCount = 0;
-            
-            while ((line = br.readLine()) != null) {
-                lineNumber++;
-                
-                // 跳過標題行 Skip header row
-                if (isFirstLine) {
-                    System.out.println("CSV標題行 Header: " + line);
-                    isFirstLine = false;
-                    continue;
+
+        try {
+            return new RowIterator<>(openFile(filePath), CSVReader::parseStockBarFields);
+        } catch (IOException e) {
+            System.err.println("讀取檔案失敗 File reading failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 開啟只讀取檔案 [startOffset, endOffset) 位元組範圍的迭代器，用於只讀取附加在檔案後面的資料；
+     * 兩端須位於行首（見 {@link #completeLinesEnd}），只有從檔案開頭讀取時才略過標題行
+     * Open an iterator over the bytes [startOffset, endOffset) of the file, for reading only
+     * rows appended since an earlier read. Both offsets must be at line starts (see
+     * {@link #completeLinesEnd}); the header is only skipped when reading from offset 0.
+     */
+    public static StockDataIterator openStockDataIterator(String filePath, long startOffset, long endOffset) throws IOException {
+        System.out.println("讀取CSV檔案: " + filePath + " [" + startOffset + ", " + endOffset + ")");
+        System.out.println("Reading CSV file: " + filePath + " bytes [" + startOffset + ", " + endOffset + ")");
+        return new StockDataIterator(openRange(filePath, startOffset, endOffset), startOffset == 0);
+    }
+
+    public static RowIterator<StockBar> openStockBarIterator(String filePath, long startOffset, long endOffset) throws IOException {
+        System.out.println("讀取CSV檔案: " + filePath + " [" + startOffset + ", " + endOffset + ")");
+        System.out.println("Reading CSV file: " + filePath + " bytes [" + startOffset + ", " + endOffset + ")");
+        return new RowIterator<>(openRange(filePath, startOffset, endOffset), CSVReader::parseStockBarFields, startOffset == 0);
+    }
+
+    private static Reader openRange(String filePath, long startOffset, long endOffset) throws IOException {
+        if (startOffset < 0 || endOffset < startOffset) {
+            throw new IllegalArgumentException("無效的位元組範圍 Invalid byte range: [" + startOffset + ", " + endOffset + ")");
+        }
+        FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ);
+        return Channels.newReader(new RangeChannel(channel, startOffset, endOffset), utf8Decoder(), -1);
+    }
+
+    // 整個檔案，與位元組範圍及 ParallelCSVReader 相同以UTF-8解碼，不依平台預設編碼
+    // The whole file, decoded as UTF-8 like the byte-range and parallel readers rather than with the platform charset
+    private static Reader openFile(String filePath) throws IOException {
+        return Channels.newReader(FileChannel.open(Path.of(filePath), StandardOpenOption.READ), utf8Decoder(), -1);
+    }
+
+    // 無效的位元組以替代字元取代，與 StandardCharsets.UTF_8.decode 相同 Malformed bytes become U+FFFD, as with StandardCharsets.UTF_8.decode
+    private static CharsetDecoder utf8Decoder() {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * 檔案中最後一個完整行的結尾（最後一個換行字元之後的位置）；fromOffset 之後沒有換行時回傳 fromOffset。
+     * 仍在寫入中的最後一行不會被計入
+     * The end of the last complete line, i.e. the position after the last newline; returns
+     * fromOffset when there is no newline after it. A final line still being written is excluded.
+     */
+    public static long completeLinesEnd(String filePath, long fromOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            long position = channel.size();
+            while (position > fromOffset) {
+                int length = (int) Math.min(probe.capacity(), position - fromOffset);
+                long start = position - length;
+                probe.clear().limit(length);
+                while (probe.hasRemaining() && channel.read(probe, start + probe.position()) > 0) {
+                    // 讀滿整個區塊 Fill the whole probe
+                }
+                for (int i = probe.position() - 1; i >= 0; i--) {
+                    if (probe.get(i) == '\n') {
+                        return start + i + 1;
+                    }
+                }
+                position = start;
+            }
+            return fromOffset;
+        }
+    }
+
+    // 只讀到 endOffset 為止的檔案通道 A file channel view that ends at endOffset
+    private static final class RangeChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeChannel(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = destination.limit();
+            destination.limit(destination.position() + (int) Math.min(destination.remaining(), end - position));
+            try {
+                int read = channel.read(destination, position);
+                if (read > 0) {
+                    position += read;
                 }
-                
-                try {
-                    String[] fields = parseCSVLine(line);
-                    
-                    if (fields.length < 12) {
-                        System.err.println("第 " + lineNumber + " 行資料不完整，跳過 Line " + lineNumber + " incomplete, skipping");
+                return read;
+            } finally {
+                destination.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 將一行字元範圍解析為資料列，欄位不足時回傳null，格式錯誤時拋出例外
+     * Parses one line held in a char range; returns null when fields are missing and throws when malformed
+     */
+    interface LineParser<T> {
+        T parse(CSVLineTokenizer tokenizer, char[] buffer, int from, int to);
+    }
+
+    /**
+     * 逐筆讀取 StockData 的迭代器
+     * Iterator over StockData rows
+     */
+    public static class StockDataIterator extends RowIterator<StockData> {
+        StockDataIterator(Reader reader) {
+            this(reader, true);
+        }
+
+        StockDataIterator(Reader reader, boolean hasHeader) {
+            super(reader, CSVReader::parseStockDataFields, hasHeader);
+        }
+    }
+
+    /**
+     * 逐筆解析CSV的迭代器，無法解析的行會被略過並計入失敗數量
+     * Iterator that parses one CSV line per row; unparseable lines are skipped and counted as failed.
+     * I/O errors while reading surface as {@link UncheckedIOException}.
+     */
+    public static class RowIterator<T> implements Iterator<T>, Closeable {
+        private final Reader reader;
+        private final LineParser<T> parser;
+        private final boolean hasHeader;
+        private final CSVLineTokenizer tokenizer = new CSVLineTokenizer();
+        private char[] buffer = new char[64 * 1024];
+        private int position = 0;
+        private int limit = 0;
+        private boolean endOfInput;
+        private T nextRow;
+        private boolean finished;
+        private int lineNumber = 0;
+        private int successCount = 0;
+        private int errorCount = 0;
+        private final ProgressReporter progress = new ProgressReporter("已讀取 %d 筆資料... Read %d records...");
+
+        RowIterator(Reader reader, LineParser<T> parser) {
+            this(reader, parser, true);
+        }
+
+        RowIterator(Reader reader, LineParser<T> parser, boolean hasHeader) {
+            this.reader = reader;
+            this.parser = parser;
+            this.hasHeader = hasHeader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRow == null && !finished) {
+                nextRow = readNextRow();
+            }
+            return nextRow != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T row = nextRow;
+            nextRow = null;
+            return row;
+        }
+
+        private T readNextRow() {
+            try {
+                int lineEnd;
+                while ((lineEnd = nextLineEnd()) >= 0) {
+                    int lineStart = position;
+                    position = lineEnd < limit ? lineEnd + 1 : lineEnd;
+                    if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+                        lineEnd--;
+                    }
+                    lineNumber++;
+
+                    // 跳過標題行 Skip header row
+                    if (hasHeader && lineNumber == 1) {
+                        System.out.println("CSV標題行 Header: " + new String(buffer, lineStart, lineEnd - lineStart));
+                        continue;
+                    }
+
+                    T row = parseLine(parser, tokenizer, buffer, lineStart, lineEnd, lineNumber,
+                            errorCount < MAX_LOGGED_ERRORS);
+                    if (row == null) {
                         errorCount++;
+                        ImportMetrics.ROWS_FAILED.increment();
                         continue;
                     }
-                    
-                    StockData stockData = new StockData();
-                    
-                    // 解析各欄位 Parse fields
-                    stockData.setId(Integer.parseInt(fields[0].trim()));
-                    stockData.setStockName(fields[1].trim());
-                    stockData.setClosePrice(new BigDecimal(fields[2].trim()));
-                    stockData.setOpenPrice(new BigDecimal(fields[3].trim()));
-                    stockData.setHighPrice(new BigDecimal(fields[4].trim()));
-                    stockData.setLowPrice(new BigDecimal(fields[5].trim()));
-                    stockData.setVolume(Long.parseLong(fields[6].trim()));
-                    stockData.setMarketCap(new BigDecimal(fields[7].trim()));
-                    
-                    // 處理可能為空的欄位 Handle potentially null fields
-                    stockData.setPeRatio(parseNullableBigDecimal(fields[8].trim()));
-                    stockData.setDividendYield(parseNullableBigDecimal(fields[9].trim()));
-                    stockData.setSector(fields[10].trim());
-                    stockData.setTradeDate(LocalDate.parse(fields[11].trim(), dateFormatter));
-                    
-                    stockDataList.add(stockData);
+
                     successCount++;
-                    
-                    if (successCount % 10 == 0) {
-                        System.out.println("已讀取 " + successCount + " 筆資料... Read " + successCount + " records...");
+                    ImportMetrics.ROWS_PARSED.increment();
+                    // 每1024筆才檢查一次時間，避免每列呼叫 System.nanoTime() Check the clock once per 1024 rows, not on every row
+                    if ((successCount & 1023) == 0) {
+                        progress.update(successCount);
                     }
-                    
-                } catch (Exception e) {
-                    System.err.println("第 " + lineNumber + " 行解析失敗 Line " + lineNumber + " parsing failed: " + e.getMessage());
-                    System.err.println("資料內容 Data: " + line);
-                    errorCount++;
+                    return row;
                 }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            finished = true;
+            printSummary();
+            return null;
+        }
+
+        /**
+         * 找到目前這一行的結尾（換行字元位置，或最後一行的緩衝區結尾），沒有資料時回傳 -1
+         * Find the end of the current line (the newline index, or the buffer end for a
+         * final unterminated line); returns -1 when the input is exhausted
+         */
+        private int nextLineEnd() throws IOException {
+            int scanFrom = position;
+            while (true) {
+                for (int i = scanFrom; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        return i;
+                    }
+                }
+                if (endOfInput) {
+                    return position < limit ? limit : -1;
+                }
+                scanFrom = limit - position;
+                fill();
+            }
+        }
+
+        // 將未處理的內容移到緩衝區開頭並讀入更多資料 Compact the unread tail and read more input
+        private void fill() throws IOException {
+            int remaining = limit - position;
+            if (remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+            }
+            position = 0;
+            limit = remaining;
+
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                limit += read;
             }
-            
+        }
+
+        private void printSummary() {
             System.out.println("\n=== CSV讀取結果 CSV Reading Results ===");
-            System.out.println("總處理行數 Total lines processed: " + (lineNumber - 1));
+            System.out.println("總處理行數 Total lines processed: " + (hasHeader ? Math.max(0, lineNumber - 1) : lineNumber));
             System.out.println("成功讀取 Successfully read: " + successCount);
             System.out.println("失敗數量 Failed: " + errorCount);
-            
-        } catch (IOException e) {
-            System.err.println("讀取檔案失敗 File reading failed: " + e.getMessage());
-            throw e;
+            printSuppressedErrors(errorCount);
+        }
+
+        public int getLineNumber() { return lineNumber; }
+        public int getSuccessCount() { return successCount; }
+        public int getErrorCount() { return errorCount; }
+
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
-        
-        return stockDataList;
     }
-    
+
     /**
-     * 解析CSV行，處理逗號分隔
-     * Parse CSV line, handle comma separation
+     * 解析單行資料，失敗時輸出錯誤（logErrors 為 false 時只計數）並回傳null
+     * Parse a single data line held in buffer[from, to); on failure logs the problem unless
+     * logErrors is false, and returns null
      */
-    private static String[] parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
-        
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
+    static <T> T parseLine(LineParser<T> parser, CSVLineTokenizer tokenizer, char[] buffer, int from, int to, int lineNumber,
+                           boolean logErrors) {
+        try {
+            T row = parser.parse(tokenizer, buffer, from, to);
+            if (row == null && logErrors) {
+                System.err.println("第 " + lineNumber + " 行資料不完整，跳過 Line " + lineNumber + " incomplete, skipping");
             }
+            return row;
+        } catch (Exception e) {
+            if (logErrors) {
+                System.err.println("第 " + lineNumber + " 行解析失敗 Line " + lineNumber + " parsing failed: " + e.getMessage());
+                System.err.println("資料內容 Data: " + new String(buffer, from, to - from));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 超過顯示上限的錯誤只計數，於摘要中說明
+     * Errors beyond the display limit are only counted; mention them in the summary
+     */
+    static void printSuppressedErrors(int errorCount) {
+        if (errorCount > MAX_LOGGED_ERRORS) {
+            System.out.println("（只顯示前 " + MAX_LOGGED_ERRORS + " 筆錯誤，其餘 " + (errorCount - MAX_LOGGED_ERRORS)
+                    + " 筆未顯示 Only the first " + MAX_LOGGED_ERRORS + " errors were shown, "
+                    + (errorCount - MAX_LOGGED_ERRORS) + " more suppressed）");
         }
-        
-        // 添加最後一個欄位 Add the last field
-        fields.add(currentField.toString());
-        
-        return fields.toArray(new String[0]);
     }
-    
+
     /**
-     * 解析可能為空的BigDecimal
-     * Parse potentially null BigDecimal
+     * 解析單行資料的各欄位，欄位不足時回傳null，格式錯誤時拋出例外
+     * Parse the fields of one data line; returns null when fields are missing
+     * and throws when a value is malformed
      */
-    private static BigDecimal parseNullableBigDecimal(String value) {
-        if (value == null || value.trim().isEmpty()) {
+    static StockData parseStockDataFields(CSVLineTokenizer tokenizer, char[] buffer, int from, int to) {
+        if (tokenizer.tokenize(buffer, from, to) < 12) {
             return null;
         }
+
+        StockData stockData = new StockData();
+
+        // 解析各欄位 Parse fields
+        stockData.setId(tokenizer.parseInt(0));
+        stockData.setStockName(tokenizer.string(1));
+        stockData.setClosePrice(tokenizer.decimal(2));
+        stockData.setOpenPrice(tokenizer.decimal(3));
+        stockData.setHighPrice(tokenizer.decimal(4));
+        stockData.setLowPrice(tokenizer.decimal(5));
+        stockData.setVolume(tokenizer.parseLong(6));
+        stockData.setMarketCap(tokenizer.decimal(7));
+
+        // 處理可能為空的欄位 Handle potentially null fields
+        stockData.setPeRatio(tokenizer.nullableDecimal(8));
+        stockData.setDividendYield(tokenizer.nullableDecimal(9));
+        stockData.setSector(tokenizer.string(10));
+        stockData.setTradeDate(tokenizer.date(11));
+
+        // 匯入時以資料表精度的價格計算DSA Compute DSA at ingest from prices at the column scale
+        long dsa = FixedPoint.dsa(tokenizer.fixedPoint(3, FixedPoint.PRICE_SCALE),
+                                  tokenizer.fixedPoint(4, FixedPoint.PRICE_SCALE),
+                                  tokenizer.fixedPoint(5, FixedPoint.PRICE_SCALE));
+        stockData.setDsaIndicator(FixedPoint.toBigDecimal(dsa, FixedPoint.DSA_SCALE));
+
+        return stockData;
+    }
+
+    /**
+     * 將單行資料解析為定點數的 StockBar，欄位不足時回傳null，格式錯誤時拋出例外
+     * Parse one data line into a fixed-point StockBar; returns null when fields are
+     * missing and throws when a value is malformed
+     */
+    static StockBar parseStockBarFields(CSVLineTokenizer tokenizer, char[] buffer, int from, int to) {
+        if (tokenizer.tokenize(buffer, from, to) < 12) {
+            return null;
+        }
+
+        long peRatio = tokenizer.isEmpty(8) ? FixedPoint.NULL_LONG : nullableFixedPoint(tokenizer, 8);
+        long dividendYield = tokenizer.isEmpty(9) ? FixedPoint.NULL_LONG : nullableFixedPoint(tokenizer, 9);
+
+        StockBar bar = new StockBar(
+            tokenizer.parseInt(0),
+            tokenizer.string(1),
+            tokenizer.fixedPoint(2, FixedPoint.PRICE_SCALE),
+            tokenizer.fixedPoint(3, FixedPoint.PRICE_SCALE),
+            tokenizer.fixedPoint(4, FixedPoint.PRICE_SCALE),
+            tokenizer.fixedPoint(5, FixedPoint.PRICE_SCALE),
+            tokenizer.parseLong(6),
+            tokenizer.fixedPoint(7, FixedPoint.PRICE_SCALE),
+            peRatio == FixedPoint.NULL_LONG ? FixedPoint.NULL_INT : Math.toIntExact(peRatio),
+            dividendYield == FixedPoint.NULL_LONG ? FixedPoint.NULL_INT : Math.toIntExact(dividendYield),
+            tokenizer.string(10),
+            (int) tokenizer.epochDay(11));
+
+        // 匯入時計算DSA Compute DSA at ingest
+        bar.setDsaIndicator(bar.calculateDSA());
+        return bar;
+    }
+
+    // 與 nullableDecimal 相同，格式錯誤視為空值 Like nullableDecimal: malformed values are treated as null
+    private static long nullableFixedPoint(CSVLineTokenizer tokenizer, int field) {
         try {
-            return new BigDecimal(value.trim());
+            return tokenizer.fixedPoint(field, FixedPoint.PRICE_SCALE);
         } catch (NumberFormatException e) {
-            return null;
+            return FixedPoint.NULL_LONG;
         }
     }
 }
@@ -0,0 +1,117 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 固定大小的JDBC連線池
+ * Fixed-Size JDBC Connection Pool
+ *
+ * 建立時即開啟全部連線，借用時若無可用連線則等待，用於平行寫入與平行指標計算。
+ * 一般由 {@link StockDataDAO#newConnectionPool(int)} 建立，以使用相同的連線設定。
+ * Opens every connection up front; borrowers wait when all connections are in use.
+ * Used by the parallel writers and parallel indicator updates, and normally created
+ * through {@link StockDataDAO#newConnectionPool(int)} so it shares the DAO's settings.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final long BORROW_TIMEOUT_SECONDS = 60;
+
+    private final List<Connection> connections;
+    private final BlockingQueue<Connection> idle;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int size) throws SQLException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("連線數必須為正數 Pool size must be positive: " + size);
+        }
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("MySQL JDBC驅動程式未找到 MySQL JDBC driver not found", e);
+        }
+
+        this.connections = new ArrayList<>(size);
+        this.idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = DriverManager.getConnection(url, user, password);
+                connections.add(connection);
+                idle.add(connection);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+        System.out.println("✓ 連線池建立完成，共 " + size + " 條連線 Connection pool ready with " + size + " connections");
+    }
+
+    /**
+     * 借用連線，用完須呼叫 {@link #release(Connection)} 歸還
+     * Borrow a connection; hand it back with {@link #release(Connection)}
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("連線池已關閉 Connection pool is closed");
+        }
+        try {
+            Connection connection = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (connection == null) {
+                throw new SQLException("等待連線逾時 Timed out waiting for a pooled connection");
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待連線時被中斷 Interrupted while waiting for a pooled connection", e);
+        }
+    }
+
+    /**
+     * 歸還連線，並還原自動提交設定
+     * Return a connection to the pool, restoring autocommit
+     */
+    public void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.isClosed() && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("還原連線狀態失敗 Failed to reset pooled connection: " + e.getMessage());
+        }
+        idle.offer(connection);
+    }
+
+    public int size() {
+        return connections.size();
+    }
+
+    /**
+     * 關閉所有連線
+     * Close every connection
+     */
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        SQLException failure = null;
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        idle.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 定點數工具
+ * Fixed-Point Utilities
+ *
+ * 以 long/int 儲存依資料表小數位數縮放後的數值，例如 DECIMAL(10,2) 的 568.00 存為 56800。
+ * 捨入方式與 MySQL 寫入 DECIMAL 欄位相同 (HALF_UP)，與 BigDecimal 互轉不會遺失精度。
+ * Values are stored as long/int scaled by the column's schema scale, e.g. 568.00 in a
+ * DECIMAL(10,2) column is held as 56800. Rounding matches MySQL's DECIMAL storage (HALF_UP),
+ * so conversion to and from BigDecimal is lossless for every value the schema can hold.
+ */
+public final class FixedPoint {
+
+    /** 價格、市值、本益比、殖利率與均線的小數位數 Scale of prices, market cap, P/E, yield and MA */
+    public static final int PRICE_SCALE = 2;
+    /** DSA指標的小數位數 Scale of the DSA indicator, DECIMAL(10,6) */
+    public static final int DSA_SCALE = 6;
+    /** 技術指標欄位（EMA、MACD、RSI等）的小數位數 Scale of the technical indicator columns (EMA, MACD, RSI, ...), DECIMAL(14,4) */
+    public static final int INDICATOR_SCALE = 4;
+
+    /** long 欄位的空值標記 Null marker for long columns */
+    public static final long NULL_LONG = Long.MIN_VALUE;
+    /** int 欄位的空值標記 Null marker for int columns */
+    public static final int NULL_INT = Integer.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private FixedPoint() {}
+
+    /**
+     * BigDecimal 轉為指定小數位數的 long，null 轉為 {@link #NULL_LONG}
+     * Convert a BigDecimal to a long at the given scale; null becomes {@link #NULL_LONG}
+     */
+    public static long toLong(BigDecimal value, int scale) {
+        if (value == null) {
+            return NULL_LONG;
+        }
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * BigDecimal 轉為指定小數位數的 int，null 轉為 {@link #NULL_INT}
+     * Convert a BigDecimal to an int at the given scale; null becomes {@link #NULL_INT}
+     */
+    public static int toInt(BigDecimal value, int scale) {
+        if (value == null) {
+            return NULL_INT;
+        }
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+    }
+
+    /**
+     * double 轉為指定小數位數的 long，以 HALF_UP 捨入（正負對稱）；NaN 與無限大轉為 {@link #NULL_LONG}
+     * Convert a double to a long at the given scale, rounding HALF_UP symmetrically around zero;
+     * NaN and infinities become {@link #NULL_LONG}
+     */
+    public static long fromDouble(double value, int scale) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return NULL_LONG;
+        }
+        long rounded = (long) Math.floor(Math.abs(value) * pow10(scale) + 0.5);
+        return value < 0 ? -rounded : rounded;
+    }
+
+    /**
+     * long 定點數轉回 BigDecimal，空值標記轉為 null
+     * Convert a fixed-point long back to BigDecimal; the null marker becomes null
+     */
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return unscaled == NULL_LONG ? null : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * int 定點數轉回 BigDecimal，空值標記轉為 null
+     * Convert a fixed-point int back to BigDecimal; the null marker becomes null
+     */
+    public static BigDecimal toBigDecimal(int unscaled, int scale) {
+        return unscaled == NULL_INT ? null : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * 將未縮放值由一個小數位數調整到另一個，減少位數時以 HALF_UP 捨入
+     * Rescale an unscaled value between scales, rounding HALF_UP when digits are dropped
+     */
+    public static long rescale(long unscaled, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return unscaled;
+        }
+        if (toScale > fromScale) {
+            return Math.multiplyExact(unscaled, pow10(toScale - fromScale));
+        }
+        return divideHalfUp(unscaled, pow10(fromScale - toScale));
+    }
+
+    static long pow10(int exponent) {
+        if (exponent < POWERS_OF_TEN.length) {
+            return POWERS_OF_TEN[exponent];
+        }
+        long value = POWERS_OF_TEN[POWERS_OF_TEN.length - 1];
+        for (int i = POWERS_OF_TEN.length - 1; i < exponent; i++) {
+            value = Math.multiplyExact(value, 10L);
+        }
+        return value;
+    }
+
+    /**
+     * 整數除法，以 HALF_UP 捨入（與 BigDecimal.divide(..., RoundingMode.HALF_UP) 相同）
+     * Integer division rounded HALF_UP, the same as BigDecimal.divide(..., RoundingMode.HALF_UP)
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder != 0) {
+            long absRemainder = Math.abs(remainder);
+            long absDivisor = Math.abs(divisor);
+            if (absRemainder >= absDivisor - absRemainder) {
+                quotient += (dividend ^ divisor) < 0 ? -1 : 1;
+            }
+        }
+        return quotient;
+    }
+
+    /**
+     * 以分為單位的價格計算DSA，結果為6位小數的定點數，與 StockData.calculateDSA 結果一致
+     * Calculate DSA from prices in cents; the result is fixed-point at scale 6 and equals
+     * StockData.calculateDSA for the same inputs
+     * DSA = [(High - Open) + (Open - Low)] / [(High - Open)² + (Open - Low)²]
+     */
+    public static long dsa(long openPrice, long highPrice, long lowPrice) {
+        if (openPrice == NULL_LONG || highPrice == NULL_LONG || lowPrice == NULL_LONG) {
+            return NULL_LONG;
+        }
+
+        long highMinusOpen = highPrice - openPrice;
+        long openMinusLow = openPrice - lowPrice;
+        try {
+            // 分子為2位小數、分母為4位小數，結果放大10^6：numerator * 10^8 / denominator
+            // Numerator has scale 2 and denominator scale 4, so the scale-6 result is numerator * 10^8 / denominator
+            long numerator = Math.addExact(highMinusOpen, openMinusLow);
+            long denominator = Math.addExact(Math.multiplyExact(highMinusOpen, highMinusOpen),
+                                             Math.multiplyExact(openMinusLow, openMinusLow));
+            if (denominator == 0) {
+                return 0;
+            }
+            return divideHalfUp(Math.multiplyExact(numerator, 100_000_000L), denominator);
+        } catch (ArithmeticException e) {
+            // 極端價格超出 long 範圍時改用 BigDecimal Fall back to BigDecimal for extreme prices
+            BigDecimal hmo = BigDecimal.valueOf(highMinusOpen, PRICE_SCALE);
+            BigDecimal oml = BigDecimal.valueOf(openMinusLow, PRICE_SCALE);
+            BigDecimal denominator = hmo.multiply(hmo).add(oml.multiply(oml));
+            return toLong(hmo.add(oml).divide(denominator, DSA_SCALE, RoundingMode.HALF_UP), DSA_SCALE);
+        }
+    }
+
+    /**
+     * 平均值：總和除以筆數並以 HALF_UP 捨入，小數位數與總和相同
+     * Average of a fixed-point sum over count values, rounded HALF_UP at the sum's scale
+     */
+    public static long average(long sum, int count) {
+        return divideHalfUp(sum, count);
+    }
+}
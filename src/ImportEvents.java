@@ -0,0 +1,83 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 匯入流程的 JFR 自訂事件
+ * Custom JFR Events for the Import Path
+ *
+ * 以 -XX:StartFlightRecording 或 jcmd JFR.start 錄製後，可在 JDK Mission Control 的
+ * 「Stock Import」分類中依階段檢視時間軸與延遲分布。未錄製時事件不會被建立或提交。
+ * Record with -XX:StartFlightRecording or jcmd JFR.start and inspect the stages, batch
+ * writes and indicator passes under the "Stock Import" category in JDK Mission Control.
+ * When no recording is running the events are never committed.
+ */
+public final class ImportEvents {
+
+    private ImportEvents() {}
+
+    /**
+     * 匯入階段（解析、轉換、寫入、指標計算等）
+     * An import stage such as parse, transform, write or an indicator pass over the table
+     */
+    @Name("stock.ImportStage")
+    @Label("Import Stage")
+    @Category("Stock Import")
+    @Description("One stage of a stock data import")
+    @StackTrace(false)
+    public static class Stage extends Event {
+        @Label("Stage")
+        public String stage;
+
+        @Label("Rows")
+        public long rows;
+    }
+
+    /**
+     * 一次批次寫入
+     * One batch write
+     */
+    @Name("stock.BatchWrite")
+    @Label("Batch Write")
+    @Category("Stock Import")
+    @Description("executeBatch and commit of one batch")
+    @StackTrace(false)
+    public static class BatchWrite extends Event {
+        @Label("Rows")
+        public int rows;
+
+        @Label("executeBatch Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long executeNanos;
+
+        @Label("Commit Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long commitNanos;
+    }
+
+    /**
+     * 一支股票的指標計算
+     * Indicator pass of one stock
+     */
+    @Name("stock.IndicatorPass")
+    @Label("Indicator Pass")
+    @Category("Stock Import")
+    @Description("Read, compute and update of one stock's indicators")
+    @StackTrace(false)
+    public static class IndicatorPass extends Event {
+        @Label("Stock ID")
+        public int stockId;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        public long durationNanos;
+    }
+}
@@ -0,0 +1,220 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 匯入量測指標
+ * Import Metrics
+ *
+ * 全域計數器與直方圖，記錄解析筆數、批次大小、executeBatch 與 commit 延遲，以及每支股票的指標計算時間；
+ * 同時發出對應的 JFR 事件（見 {@link ImportEvents}）。所有方法皆為執行緒安全，記錄成本只有數個原子加法。
+ * Process-wide counters and histograms for rows parsed, batch sizes, executeBatch and commit
+ * latency and the per-stock indicator pass time, plus the matching JFR events (see
+ * {@link ImportEvents}). Everything is thread-safe and recording costs a few atomic adds.
+ */
+public final class ImportMetrics {
+
+    /** 成功解析的筆數 Rows parsed successfully */
+    public static final LongAdder ROWS_PARSED = new LongAdder();
+
+    /** 解析失敗的筆數 Rows that failed to parse */
+    public static final LongAdder ROWS_FAILED = new LongAdder();
+
+    /** 寫入的筆數 Rows written */
+    public static final LongAdder ROWS_WRITTEN = new LongAdder();
+
+    /** 每批筆數 Rows per batch */
+    public static final Histogram BATCH_SIZE = new Histogram("batch size", "rows");
+
+    /** executeBatch 延遲 executeBatch latency */
+    public static final Histogram EXECUTE_BATCH_NANOS = new Histogram("executeBatch latency", "ns");
+
+    /** commit 延遲 commit latency */
+    public static final Histogram COMMIT_NANOS = new Histogram("commit latency", "ns");
+
+    /** 每支股票的指標計算時間 Indicator pass time per stock */
+    public static final Histogram INDICATOR_NANOS_PER_STOCK = new Histogram("indicator pass per stock", "ns");
+
+    private ImportMetrics() {}
+
+    /**
+     * 記錄一次批次寫入；commitNanos 為負數表示此批之後沒有立即提交
+     * Record one batch write; a negative commitNanos means the batch was not committed on its own
+     */
+    public static void recordBatch(int rows, long executeNanos, long commitNanos) {
+        ROWS_WRITTEN.add(rows);
+        BATCH_SIZE.record(rows);
+        EXECUTE_BATCH_NANOS.record(executeNanos);
+        if (commitNanos >= 0) {
+            COMMIT_NANOS.record(commitNanos);
+        }
+
+        ImportEvents.BatchWrite event = new ImportEvents.BatchWrite();
+        if (event.isEnabled()) {
+            event.rows = rows;
+            event.executeNanos = executeNanos;
+            event.commitNanos = commitNanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * 記錄一次單獨的提交（涵蓋多個批次時）
+     * Record a commit that covers several batches
+     */
+    public static void recordCommit(long commitNanos) {
+        COMMIT_NANOS.record(commitNanos);
+    }
+
+    /**
+     * 記錄一支股票的指標計算
+     * Record the indicator pass of one stock
+     */
+    public static void recordIndicatorPass(int stockId, int rows, long nanos) {
+        INDICATOR_NANOS_PER_STOCK.record(nanos);
+
+        ImportEvents.IndicatorPass event = new ImportEvents.IndicatorPass();
+        if (event.isEnabled()) {
+            event.stockId = stockId;
+            event.rows = rows;
+            event.durationNanos = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * 開始一個匯入階段，結束時呼叫 {@link #endStage}
+     * Begin an import stage; finish it with {@link #endStage}
+     */
+    public static ImportEvents.Stage beginStage(String name) {
+        ImportEvents.Stage event = new ImportEvents.Stage();
+        event.stage = name;
+        event.begin();
+        return event;
+    }
+
+    public static void endStage(ImportEvents.Stage event, long rows) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.commit();
+        }
+    }
+
+    /**
+     * 清除所有計數
+     * Reset every counter and histogram
+     */
+    public static void reset() {
+        ROWS_PARSED.reset();
+        ROWS_FAILED.reset();
+        ROWS_WRITTEN.reset();
+        BATCH_SIZE.reset();
+        EXECUTE_BATCH_NANOS.reset();
+        COMMIT_NANOS.reset();
+        INDICATOR_NANOS_PER_STOCK.reset();
+    }
+
+    /**
+     * 輸出目前的量測摘要
+     * Print a summary of the current measurements
+     */
+    public static void printReport() {
+        System.out.println("\n=== 匯入量測 Import Metrics ===");
+        System.out.println("解析成功 Rows parsed: " + ROWS_PARSED.sum());
+        System.out.println("解析失敗 Rows failed: " + ROWS_FAILED.sum());
+        System.out.println("寫入筆數 Rows written: " + ROWS_WRITTEN.sum());
+        for (Histogram histogram : new Histogram[] {BATCH_SIZE, EXECUTE_BATCH_NANOS, COMMIT_NANOS, INDICATOR_NANOS_PER_STOCK}) {
+            if (histogram.getCount() > 0) {
+                System.out.println(histogram);
+            }
+        }
+    }
+
+    /**
+     * 以2的次方分桶的直方圖，百分位數為所在分桶的上限（誤差不超過2倍）
+     * Histogram with power-of-two buckets; percentiles report the bucket's upper bound,
+     * so they are accurate to within a factor of two
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final String name;
+        private final String unit;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        public Histogram(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        public void record(long value) {
+            long v = Math.max(0, value);
+            // 分桶 i 保存 [2^(i-1), 2^i - 1]，0 單獨一桶 Bucket i holds [2^(i-1), 2^i - 1]; zero has bucket 0
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sum.add(v);
+            max.accumulateAndGet(v, Math::max);
+        }
+
+        public long getCount() { return count.sum(); }
+        public long getSum() { return sum.sum(); }
+        public long getMax() { return getCount() == 0 ? 0 : max.get(); }
+
+        public double getMean() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getSum() / n;
+        }
+
+        /**
+         * 近似百分位數（分桶上限）
+         * Approximate percentile: the upper bound of the bucket holding it
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    long upperBound = i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                    return Math.min(upperBound, getMax());
+                }
+            }
+            return getMax();
+        }
+
+        public void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.set(Long.MIN_VALUE);
+        }
+
+        @Override
+        public String toString() {
+            if ("ns".equals(unit)) {
+                return String.format("%-26s n=%d mean=%.3f ms p50≤%.3f ms p99≤%.3f ms max=%.3f ms",
+                        name, getCount(), getMean() / 1e6, millis(getPercentile(50)), millis(getPercentile(99)), millis(getMax()));
+            }
+            return String.format("%-26s n=%d mean=%.1f p50≤%d p99≤%d max=%d %s",
+                    name, getCount(), getMean(), getPercentile(50), getPercentile(99), getMax(), unit);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 管線式匯入：解析 → 轉換 → 平行寫入
+ * Pipelined Import: Parse → Transform → Parallel Write
+ *
+ * 解析執行緒將資料分批放入有界佇列；轉換執行緒補上DSA，並依股票代碼雜湊分派至各寫入者的有界佇列；
+ * 每個寫入者使用 {@link ConnectionPool} 中自己的連線，以單一交易提交每一批。
+ * 佇列滿時上游會等待（背壓），記憶體用量與檔案大小無關。
+ * 同一股票代碼永遠由同一寫入者依原始順序寫入，因此相同 (id, trade_date) 的資料以檔案中最後一筆為準。
+ * A parser thread feeds batches into a bounded queue; a transform thread fills in DSA and
+ * routes each row by stock id hash to a writer's bounded queue; each writer commits its
+ * batches on its own pooled connection. Full queues block the upstream stage (backpressure),
+ * so memory is bounded regardless of file size. A stock id is always written by the same
+ * writer in file order, so the last row for an (id, trade_date) key wins, as in a sequential import.
+ */
+public class ImportPipeline {
+
+    /** 預設每批筆數 Default rows per batch */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** 預設每個佇列可容納的批數 Default number of batches each queue can hold */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+    // 佇列結束標記 End-of-stream marker
+    private static final List<StockData> END = new ArrayList<>(0);
+
+    private final ConnectionPool pool;
+    private final int writers;
+    private final int batchSize;
+    private final int queueCapacity;
+    private StockDataCache cache;
+    private StockContentIndex contentIndex;
+
+    public ImportPipeline(ConnectionPool pool) {
+        this(pool, pool.size(), DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ImportPipeline(ConnectionPool pool, int writers, int batchSize, int queueCapacity) {
+        if (writers <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("writers, batchSize and queueCapacity must be positive");
+        }
+        if (writers > pool.size()) {
+            throw new IllegalArgumentException("寫入者數量超過連線數 More writers than pooled connections: "
+                    + writers + " > " + pool.size());
+        }
+        this.pool = pool;
+        this.writers = writers;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 設定寫入時要失效的查詢快取
+     * Set the query cache that the writers invalidate
+     */
+    public void setCache(StockDataCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 設定內容雜湊索引，寫入者只送出新增或變動的資料列
+     * Set the content-hash index so the writers only send new or changed rows
+     */
+    public void setContentIndex(StockContentIndex contentIndex) {
+        this.contentIndex = contentIndex;
+    }
+
+    /**
+     * 匯入結果
+     * Import result
+     */
+    public static class Result {
+        private final long rowsRead;
+        private final long rowsWritten;
+        private final long[] rowsPerWriter;
+        private final long elapsedNanos;
+
+        Result(long rowsRead, long rowsWritten, long[] rowsPerWriter, long elapsedNanos) {
+            this.rowsRead = rowsRead;
+            this.rowsWritten = rowsWritten;
+            this.rowsPerWriter = rowsPerWriter;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRowsRead() { return rowsRead; }
+        public long getRowsWritten() { return rowsWritten; }
+        public long[] getRowsPerWriter() { return rowsPerWriter.clone(); }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rowsWritten * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows written in %.2f s (%.0f rows/s)", rowsWritten, elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+
+    /**
+     * 匯入CSV檔案
+     * Import a CSV file
+     */
+    public Result run(String filePath) throws IOException, SQLException {
+        try (CSVReader.StockDataIterator iterator = CSVReader.openStockDataIterator(filePath)) {
+            return run(iterator);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 匯入任意來源的資料；迭代器在解析執行緒中讀取
+     * Import rows from any source; the iterator is consumed on the parser thread
+     */
+    public Result run(Iterator<StockData> source) throws SQLException {
+        long start = System.nanoTime();
+        BlockingQueue<List<StockData>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        List<BlockingQueue<List<StockData>>> writeQueues = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            writeQueues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+
+        AtomicLong rowsRead = new AtomicLong();
+        long[] rowsPerWriter = new long[writers];
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        ExecutorCompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        try {
+            stages.submit(() -> {
+                parse(source, parsed, rowsRead);
+                return null;
+            });
+            stages.submit(() -> {
+                transform(parsed, writeQueues);
+                return null;
+            });
+            for (int i = 0; i < writers; i++) {
+                int writer = i;
+                stages.submit(() -> {
+                    rowsPerWriter[writer] = write(writeQueues.get(writer));
+                    return null;
+                });
+            }
+
+            // 任一階段失敗即中斷其他階段 Abort every stage as soon as one fails
+            for (int i = 0; i < writers + 2; i++) {
+                stages.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("匯入被中斷 Import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("匯入失敗 Import failed", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long rowsWritten = 0;
+        for (long rows : rowsPerWriter) {
+            rowsWritten += rows;
+        }
+        Result result = new Result(rowsRead.get(), rowsWritten, rowsPerWriter, System.nanoTime() - start);
+        System.out.println("✓ 管線匯入完成 Pipelined import completed: " + result);
+        ImportMetrics.printReport();
+        return result;
+    }
+
+    // 解析階段 Parse stage
+    private void parse(Iterator<StockData> source, BlockingQueue<List<StockData>> parsed, AtomicLong rowsRead)
+            throws InterruptedException {
+        ImportEvents.Stage stage = ImportMetrics.beginStage("parse");
+        List<StockData> batch = new ArrayList<>(batchSize);
+        while (source.hasNext()) {
+            batch.add(source.next());
+            if (batch.size() == batchSize) {
+                rowsRead.addAndGet(batch.size());
+                parsed.put(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            rowsRead.addAndGet(batch.size());
+            parsed.put(batch);
+        }
+        parsed.put(END);
+        ImportMetrics.endStage(stage, rowsRead.get());
+    }
+
+    // 轉換階段：補上DSA並依股票代碼分派 Transform stage: fill in DSA and route by stock id
+    private void transform(BlockingQueue<List<StockData>> parsed, List<BlockingQueue<List<StockData>>> writeQueues)
+            throws InterruptedException {
+        List<List<StockData>> pending = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            pending.add(new ArrayList<>(batchSize));
+        }
+
+        ImportEvents.Stage stage = ImportMetrics.beginStage("transform");
+        long rows = 0;
+        List<StockData> batch;
+        while ((batch = parsed.take()) != END) {
+            rows += batch.size();
+            for (StockData stockData : batch) {
+                if (stockData.getDsaIndicator() == null) {
+                    stockData.setDsaIndicator(StockDataDAO.ingestDSA(stockData));
+                }
+                int writer = Math.floorMod(Integer.hashCode(stockData.getId()), writers);
+                List<StockData> target = pending.get(writer);
+                target.add(stockData);
+                if (target.size() == batchSize) {
+                    writeQueues.get(writer).put(target);
+                    pending.set(writer, new ArrayList<>(batchSize));
+                }
+            }
+        }
+
+        for (int i = 0; i < writers; i++) {
+            if (!pending.get(i).isEmpty()) {
+                writeQueues.get(i).put(pending.get(i));
+            }
+            writeQueues.get(i).put(END);
+        }
+        ImportMetrics.endStage(stage, rows);
+    }
+
+    // 寫入階段 Write stage
+    private long write(BlockingQueue<List<StockData>> queue) throws SQLException, InterruptedException {
+        Connection connection = pool.borrow();
+        try {
+            StockDataDAO dao = new StockDataDAO(connection);
+            dao.setCache(cache);
+            dao.setContentIndex(contentIndex);
+            ImportEvents.Stage stage = ImportMetrics.beginStage("write");
+            long written = 0;
+            List<StockData> batch;
+            while ((batch = queue.take()) != END) {
+                written += dao.writeBatch(batch);
+            }
+            ImportMetrics.endStage(stage, written);
+            return written;
+        } finally {
+            pool.release(connection);
+        }
+    }
+}
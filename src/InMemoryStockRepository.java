@@ -0,0 +1,394 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 記憶體內的股票資料儲存區
+ * In-Memory Stock Repository
+ *
+ * 與 {@link StockDataDAO} 相同的操作與語意，但資料保存在 {@link StockSeriesStore} 的欄式序列中，
+ * 不需資料庫伺服器：寫入為 UPSERT（最後寫入者為準，收盤價變動時清除該列的5日均線），
+ * DSA 於寫入時計算，融合指標引擎的結果依股票與日期保存。資料只存在於程序內。
+ * The same operations and semantics as {@link StockDataDAO}, but the rows live in the columnar
+ * series of a {@link StockSeriesStore} and no database server is needed. Writes are upserts
+ * (the last write wins, and a changed close clears that row's 5-day MA), DSA is computed on
+ * write, and fused-engine results are kept per stock and date. Rows live only as long as the process.
+ *
+ * 所有方法皆為同步方法，可由多個執行緒共用。
+ * Every method is synchronized, so one instance may be shared by several threads.
+ */
+public class InMemoryStockRepository implements StockRepository {
+
+    /** 查詢結果一律帶出的預設指標欄位，如同由 StockDataDAO.createTable 建立的資料表 Default indicator columns every read carries, like a table made by StockDataDAO.createTable */
+    private static final List<String> INDICATOR_COLUMNS = IndicatorEngine.withDefaults().getColumns();
+
+    private StockSeriesStore store = new StockSeriesStore();
+    private final Map<Integer, IndicatorColumns> indicatorsById = new HashMap<>();
+    // 有亂序附加、尚待排序的股票 Stocks with out-of-order appends that still need sealing
+    private final Set<Integer> unsealed = new HashSet<>();
+
+    /**
+     * 一支股票由融合指標引擎計算的欄位，依交易日排序
+     * One stock's fused-engine columns, ordered by trade date
+     */
+    private static final class IndicatorColumns {
+        int[] tradeDates = new int[0];
+        final Map<String, long[]> values = new LinkedHashMap<>();
+
+        /**
+         * 合併一次計算的結果：結果第一個交易日之前的資料保留，之後以結果取代；結果沒有的欄位保留原值
+         * Merge one computation: rows before the result's first date are kept and the rest replaced;
+         * columns the result does not have keep their values
+         */
+        void merge(IndicatorEngine.Result result) {
+            if (result.size() == 0) {
+                return;
+            }
+            int kept = lowerBound(tradeDates, result.getTradeDate(0));
+            int[] dates = Arrays.copyOf(tradeDates, kept + result.size());
+            for (int row = 0; row < result.size(); row++) {
+                dates[kept + row] = result.getTradeDate(row);
+            }
+
+            List<String> columns = new ArrayList<>(values.keySet());
+            for (String column : result.getColumns()) {
+                if (!values.containsKey(column)) {
+                    columns.add(column);
+                }
+            }
+
+            for (String column : columns) {
+                long[] previous = values.get(column);
+                long[] merged = new long[dates.length];
+                if (previous != null) {
+                    System.arraycopy(previous, 0, merged, 0, kept);
+                } else {
+                    Arrays.fill(merged, 0, kept, FixedPoint.NULL_LONG);
+                }
+
+                int index = result.getColumns().indexOf(column);
+                for (int row = 0; row < result.size(); row++) {
+                    if (index >= 0) {
+                        merged[kept + row] = result.getValue(index, row);
+                    } else {
+                        int old = Arrays.binarySearch(tradeDates, dates[kept + row]);
+                        merged[kept + row] = old >= 0 ? previous[old] : FixedPoint.NULL_LONG;
+                    }
+                }
+                values.put(column, merged);
+            }
+            tradeDates = dates;
+        }
+
+        void fill(StockData stockData, int tradeDate) {
+            int row = Arrays.binarySearch(tradeDates, tradeDate);
+            if (row < 0) {
+                return;
+            }
+            for (Map.Entry<String, long[]> entry : values.entrySet()) {
+                stockData.setIndicator(entry.getKey(),
+                        FixedPoint.toBigDecimal(entry.getValue()[row], FixedPoint.INDICATOR_SCALE));
+            }
+        }
+
+        private static int lowerBound(int[] dates, int date) {
+            int index = Arrays.binarySearch(dates, date);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    @Override
+    public void createTable() {
+        // 記憶體內不需建立資料表 Nothing to create in memory
+    }
+
+    @Override
+    public synchronized void clearTable() {
+        int deletedRows = (int) countRows();
+        store = new StockSeriesStore();
+        indicatorsById.clear();
+        unsealed.clear();
+        System.out.println("✓ 清空了 " + deletedRows + " 筆舊資料 Cleared " + deletedRows + " old records");
+    }
+
+    @Override
+    public synchronized int writeBatch(List<StockData> stockDataList) {
+        for (StockData stockData : stockDataList) {
+            upsert(stockData);
+        }
+        return stockDataList.size();
+    }
+
+    @Override
+    public synchronized int insertStockDataBatch(Iterator<StockData> stockDataIterator, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+
+        int totalCount = 0;
+        ImportEvents.Stage stage = ImportMetrics.beginStage("insert");
+        ProgressReporter progress = new ProgressReporter("已插入 %d 筆資料... Inserted %d records...");
+        while (stockDataIterator.hasNext()) {
+            upsert(stockDataIterator.next());
+            if (++totalCount % chunkSize == 0) {
+                progress.update(totalCount);
+            }
+        }
+        ImportMetrics.endStage(stage, totalCount);
+
+        System.out.println("✓ 串流插入完成，共處理 " + totalCount + " 筆資料 Streaming insert completed, processed " + totalCount + " records");
+        return totalCount;
+    }
+
+    // 與 StockDataDAO 的 UPSERT 相同：DSA由新價格計算；既有交易日收盤價不變時保留5日均線，否則清為NULL
+    // Same as StockDataDAO's upsert: DSA comes from the new prices, and an existing day keeps its
+    // 5-day MA only when the close is unchanged, otherwise it becomes NULL
+    private void upsert(StockData stockData) {
+        StockBar bar = StockBar.fromStockData(stockData);
+        if (bar.getDsaIndicator() == FixedPoint.NULL_LONG) {
+            bar.setDsaIndicator(bar.calculateDSA());
+        }
+        bar.setMa5Days(FixedPoint.NULL_LONG);
+
+        StockSeries series = store.getSeries(bar.getId());
+        if (series == null) {
+            series = new StockSeries(bar.getId());
+            store.addSeries(series);
+        }
+
+        int size = series.size();
+        if (series.isSorted() && size > 0 && bar.getTradeDate() <= series.getTradeDate(size - 1)) {
+            int row = series.indexOf(bar.getTradeDate());
+            if (row >= 0) {
+                if (series.getClosePrice(row) == bar.getClosePrice()) {
+                    bar.setMa5Days(series.getMa5Days(row));
+                }
+                series.set(row, bar);
+                return;
+            }
+        }
+
+        // 亂序的新交易日先附加，讀取前再排序；重複日期於排序時保留最後一筆
+        // A new out-of-order day is appended and sorted before the next read; sealing keeps the last duplicate
+        series.append(bar);
+        if (!series.isSorted()) {
+            unsealed.add(bar.getId());
+        }
+    }
+
+    private void sealPending() {
+        for (int id : unsealed) {
+            store.getSeries(id).seal();
+        }
+        unsealed.clear();
+    }
+
+    /**
+     * 重新計算全部的DSA與5日移動平均；兩種模式在記憶體內的計算相同
+     * Recompute DSA and the 5-day moving average; both modes compute the same way in memory
+     */
+    @Override
+    public synchronized void updateIndicators(IndicatorMode mode) {
+        sealPending();
+        ImportEvents.Stage stage = ImportMetrics.beginStage("indicators");
+        store.computeIndicators();
+        long rows = countRows();
+        ImportMetrics.endStage(stage, rows);
+        System.out.println("✓ DSA與5日移動平均計算完成，共 " + rows + " 筆資料 DSA and 5-day MA completed for " + rows + " records");
+    }
+
+    /**
+     * DSA 已於寫入時計算，只為有空白5日均線的股票重算
+     * DSA is computed on write, so only stocks with a NULL 5-day MA are recomputed
+     */
+    @Override
+    public synchronized void updateIndicatorsIncremental() {
+        sealPending();
+        List<Integer> pending = new ArrayList<>();
+        for (StockSeries series : store.getAllSeries()) {
+            for (int row = 0; row < series.size(); row++) {
+                if (series.getMa5Days(row) == FixedPoint.NULL_LONG) {
+                    pending.add(series.getId());
+                    break;
+                }
+            }
+        }
+        updateMovingAveragesIncremental(pending);
+    }
+
+    @Override
+    public synchronized int updateMovingAveragesIncremental(Collection<Integer> stockIds) {
+        sealPending();
+        int updateCount = 0;
+        int stocks = 0;
+        for (int stockId : new HashSet<>(stockIds)) {
+            StockSeries series = store.getSeries(stockId);
+            if (series == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            long[] averages = RollingWindows.movingAverage(series.closePrices, series.size(), 5);
+            for (int row = 0; row < series.size(); row++) {
+                if (series.ma5Days[row] != averages[row]) {
+                    series.ma5Days[row] = averages[row];
+                    updateCount++;
+                }
+            }
+            ImportMetrics.recordIndicatorPass(stockId, series.size(), System.nanoTime() - start);
+            stocks++;
+        }
+
+        System.out.println("✓ 5日移動平均增量計算完成，處理 " + stocks + " 支股票，更新 " + updateCount
+                + " 筆資料 Incremental MA completed for " + stocks + " stocks, updated " + updateCount + " records");
+        return updateCount;
+    }
+
+    /**
+     * 以融合指標引擎計算並保存所有已註冊指標，語意與 {@link StockDataDAO#updateIndicatorColumns} 相同
+     * Compute and keep every registered indicator with the fused engine, with the same semantics as
+     * {@link StockDataDAO#updateIndicatorColumns}
+     */
+    @Override
+    public synchronized long updateIndicatorColumns(IndicatorEngine engine, IndicatorEngine.Checkpoint checkpoint) {
+        sealPending();
+        System.out.println("計算技術指標中... Calculating indicators " + engine.getColumns() + "...");
+
+        ImportEvents.Stage stage = ImportMetrics.beginStage("indicatorEngine");
+        IndicatorEngine.Checkpoint working = checkpoint == null ? null : checkpoint.copy();
+        Map<Integer, IndicatorEngine.Result> results = engine.computeAll(store, working);
+
+        long updateCount = 0;
+        int updatedStocks = 0;
+        for (IndicatorEngine.Result result : results.values()) {
+            if (result.size() == 0) {
+                continue;
+            }
+            indicatorsById.computeIfAbsent(result.getStockId(), id -> new IndicatorColumns()).merge(result);
+            updateCount += result.size();
+            updatedStocks++;
+        }
+        if (checkpoint != null) {
+            checkpoint.advanceTo(working);
+        }
+        ImportMetrics.endStage(stage, updateCount);
+
+        System.out.println("✓ 技術指標計算完成，處理 " + updatedStocks + " 支股票，更新 " + updateCount
+                + " 筆資料 Indicators completed for " + updatedStocks + " stocks, updated " + updateCount + " records");
+        return updateCount;
+    }
+
+    @Override
+    public synchronized int getTotalRecords() {
+        sealPending();
+        return (int) countRows();
+    }
+
+    private long countRows() {
+        long rows = 0;
+        for (StockSeries series : store.getAllSeries()) {
+            rows += series.size();
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized long forEachStockBar(Consumer<StockBar> consumer) {
+        sealPending();
+        long count = 0;
+        for (int id : store.getStockIds()) {
+            StockSeries series = store.getSeries(id);
+            for (int row = 0; row < series.size(); row++) {
+                consumer.accept(series.getBar(row));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized List<StockData> getSampleData(int limit) {
+        sealPending();
+        // 每支股票最多只需最新的 limit 筆 At most each stock's latest limit rows can qualify
+        List<long[]> candidates = new ArrayList<>();
+        for (StockSeries series : store.getAllSeries()) {
+            for (int row = Math.max(0, series.size() - limit); row < series.size(); row++) {
+                candidates.add(new long[] {series.getTradeDate(row), series.getId(), row});
+            }
+        }
+        candidates.sort(Comparator.<long[]>comparingLong(candidate -> -candidate[0]).thenComparingLong(candidate -> candidate[1]));
+
+        List<StockData> sampleData = new ArrayList<>();
+        for (long[] candidate : candidates.subList(0, Math.min(limit, candidates.size()))) {
+            sampleData.add(toStockData(store.getSeries((int) candidate[1]), (int) candidate[2]));
+        }
+        return sampleData;
+    }
+
+    @Override
+    public synchronized List<StockData> getLatestStockData(int stockId, int n) {
+        sealPending();
+        List<StockData> rows = new ArrayList<>();
+        StockSeries series = store.getSeries(stockId);
+        if (series != null) {
+            for (int row = series.size() - 1; row >= Math.max(0, series.size() - n); row--) {
+                rows.add(toStockData(series, row));
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized List<StockData> getStockDataRange(int stockId, LocalDate from, LocalDate to) {
+        sealPending();
+        List<StockData> rows = new ArrayList<>();
+        StockSeries series = store.getSeries(stockId);
+        if (series != null) {
+            int first = series.indexOf((int) from.toEpochDay());
+            for (int row = first >= 0 ? first : -first - 1; row < series.size(); row++) {
+                if (series.getTradeDate(row) > to.toEpochDay()) {
+                    break;
+                }
+                rows.add(toStockData(series, row));
+            }
+        }
+        return rows;
+    }
+
+    private StockData toStockData(StockSeries series, int row) {
+        StockData stockData = series.getBar(row).toStockData();
+        for (String column : INDICATOR_COLUMNS) {
+            stockData.setIndicator(column, null);
+        }
+        IndicatorColumns indicators = indicatorsById.get(series.getId());
+        if (indicators != null) {
+            indicators.fill(stockData, series.getTradeDate(row));
+        }
+        return stockData;
+    }
+
+    /**
+     * 目前資料的欄式儲存區（已排序），供回測或 {@link StockQueryEngine} 直接掃描；請勿同時寫入
+     * The sealed columnar store holding the rows, for backtests or a {@link StockQueryEngine} to scan
+     * directly; do not write to the repository meanwhile
+     */
+    public synchronized StockSeriesStore getStore() {
+        sealPending();
+        store.seal();
+        return store;
+    }
+
+    @Override
+    public void close() {
+        // 沒有需要釋放的資源 Nothing to release
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.List;
+
+/**
+ * 技術指標外掛介面
+ * Technical Indicator Plugin
+ *
+ * 每個指標宣告自己的結果欄位（即 stock_data 的欄位名稱），並為每支股票建立一個狀態物件。
+ * {@link IndicatorEngine} 依日期順序逐列呼叫 {@link State#update}，一次掃描即計算所有已註冊的指標；
+ * 遞迴型指標（EMA、RSI、ATR）只需保存前一日的狀態，視窗型指標（布林通道）保存視窗內的資料。
+ * Each indicator declares its result columns (the stock_data column names) and creates one state
+ * object per stock. {@link IndicatorEngine} calls {@link State#update} row by row in date order,
+ * so a single scan computes every registered indicator. Recursive indicators (EMA, RSI, ATR) only
+ * keep the previous day's state; window indicators (Bollinger bands) keep the window's values.
+ *
+ * 輸入價格為2位小數的定點數，輸出為 {@link FixedPoint#INDICATOR_SCALE} 位小數的定點數，
+ * 尚無數值（暖機期間或價格為空值）時輸出 {@link FixedPoint#NULL_LONG}。
+ * Input prices are fixed-point at scale 2; outputs are fixed-point at
+ * {@link FixedPoint#INDICATOR_SCALE}, or {@link FixedPoint#NULL_LONG} while warming up or when
+ * the prices are null.
+ *
+ * 內建指標見 {@link Indicators}。 See {@link Indicators} for the built-in indicators.
+ */
+public interface Indicator {
+
+    /**
+     * 結果欄位名稱，依 {@link State#update} 寫入的順序
+     * Result column names, in the order {@link State#update} writes them
+     */
+    List<String> getColumns();
+
+    /**
+     * 為一支股票建立初始狀態
+     * Create the initial state for one stock
+     */
+    State newState();
+
+    /**
+     * 一支股票的指標狀態
+     * One stock's indicator state
+     */
+    interface State {
+
+        /**
+         * 處理下一個交易日，將各欄位結果寫入 out[offset] 起的位置
+         * Process the next trading day and write one value per column starting at out[offset]
+         */
+        void update(long open, long high, long low, long close, long[] out, int offset);
+
+        /**
+         * 目前狀態的快照，可用 {@link #restore} 還原後接續計算，結果與不中斷完全相同
+         * Snapshot of the current state; after {@link #restore} the next updates give exactly
+         * the same results as an uninterrupted run
+         */
+        long[] checkpoint();
+
+        void restore(long[] checkpoint);
+    }
+}
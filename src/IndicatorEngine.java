@@ -0,0 +1,382 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 融合多指標計算引擎
+ * Fused Multi-Indicator Engine
+ *
+ * 對每支股票的欄式序列只做一次依日期順序的掃描，每列依序更新所有已註冊 {@link Indicator} 的狀態，
+ * 不再需要每個指標各自掃描一次資料表。
+ * 搭配 {@link Checkpoint} 時，只計算每支股票在檢查點日期之後的交易日並更新檢查點，
+ * 新的一天只需由前一日的狀態接續，不必重算歷史。
+ * Makes a single date-ordered scan over each stock's columnar series, updating the state of every
+ * registered {@link Indicator} per row, instead of one pass over the table per indicator.
+ * With a {@link Checkpoint}, only each stock's trading days after its checkpointed date are
+ * computed and the checkpoint is advanced, so a new day continues from the previous day's state
+ * without recomputing history.
+ *
+ * 檢查點假設之前的資料未被修改；若修正了歷史資料，請以新的檢查點完整重算。
+ * A checkpoint assumes earlier rows are unchanged; after correcting history, recompute in full
+ * with a fresh checkpoint.
+ *
+ * 執行 Run:
+ *   java -cp "core/target/classes:mysql-connector-j-9.1.0.jar" IndicatorEngine [checkpoint-file]
+ */
+public class IndicatorEngine {
+
+    // 欄位名稱會直接放入SQL Column names go straight into SQL
+    private static final Pattern COLUMN_NAME = Pattern.compile("[a-z][a-z0-9_]{0,63}");
+
+    private final List<Indicator> indicators = new ArrayList<>();
+    private final List<String> columns = new ArrayList<>();
+    private int[] offsets = new int[0];
+
+    public IndicatorEngine() {}
+
+    public IndicatorEngine(List<Indicator> indicators) {
+        for (Indicator indicator : indicators) {
+            register(indicator);
+        }
+    }
+
+    /**
+     * 預設指標組合（見 {@link Indicators#defaults()}）
+     * The default indicator set, see {@link Indicators#defaults()}
+     */
+    public static IndicatorEngine withDefaults() {
+        return new IndicatorEngine(Indicators.defaults());
+    }
+
+    /**
+     * 註冊一個指標；欄位名稱須為小寫英數字與底線，且不可重複
+     * Register an indicator. Column names must be lowercase letters, digits and underscores, and unique
+     */
+    public IndicatorEngine register(Indicator indicator) {
+        for (String column : indicator.getColumns()) {
+            if (!COLUMN_NAME.matcher(column).matches()) {
+                throw new IllegalArgumentException("欄位名稱無效 Invalid column name: " + column);
+            }
+            if (columns.contains(column)) {
+                throw new IllegalArgumentException("欄位名稱重複 Duplicate column: " + column);
+            }
+        }
+        offsets = Arrays.copyOf(offsets, offsets.length + 1);
+        offsets[offsets.length - 1] = columns.size();
+        indicators.add(indicator);
+        columns.addAll(indicator.getColumns());
+        return this;
+    }
+
+    /**
+     * 所有結果欄位，依註冊順序
+     * Every result column, in registration order
+     */
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public Checkpoint newCheckpoint() {
+        return new Checkpoint(columns);
+    }
+
+    /**
+     * 由頭計算一支股票的所有指標
+     * Compute every indicator of one stock from its first row
+     */
+    public Result compute(StockSeries series) {
+        return compute(series, null);
+    }
+
+    /**
+     * 計算一支股票的所有指標；有檢查點時只計算檢查點日期之後的交易日，並更新檢查點
+     * Compute every indicator of one stock. With a checkpoint only the trading days after the
+     * stock's checkpointed date are computed, and the checkpoint is advanced
+     */
+    public Result compute(StockSeries series, Checkpoint checkpoint) {
+        if (!series.isSorted()) {
+            throw new IllegalStateException("序列尚未排序，請先呼叫 seal() Series not sealed: " + series.getId());
+        }
+
+        Indicator.State[] states = new Indicator.State[indicators.size()];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = indicators.get(i).newState();
+        }
+
+        int start = 0;
+        if (checkpoint != null) {
+            checkpoint.requireColumns(columns);
+            Checkpoint.StockState saved = checkpoint.stocks.get(series.getId());
+            if (saved != null) {
+                for (int i = 0; i < states.length; i++) {
+                    states[i].restore(saved.states[i]);
+                }
+                int index = series.indexOf(saved.lastTradeDate);
+                start = index >= 0 ? index + 1 : -index - 1;
+            }
+        }
+
+        // 單次掃描：每列依序更新所有指標 One scan: every indicator is updated on each row
+        int rows = series.size() - start;
+        long[][] values = new long[columns.size()][rows];
+        long[] out = new long[columns.size()];
+        for (int row = start; row < series.size(); row++) {
+            long open = series.openPrices[row];
+            long high = series.highPrices[row];
+            long low = series.lowPrices[row];
+            long close = series.closePrices[row];
+            for (int i = 0; i < states.length; i++) {
+                states[i].update(open, high, low, close, out, offsets[i]);
+            }
+            for (int column = 0; column < out.length; column++) {
+                values[column][row - start] = out[column];
+            }
+        }
+
+        if (checkpoint != null && rows > 0) {
+            long[][] saved = new long[states.length][];
+            for (int i = 0; i < states.length; i++) {
+                saved[i] = states[i].checkpoint();
+            }
+            checkpoint.stocks.put(series.getId(), new Checkpoint.StockState(series.getTradeDate(series.size() - 1), saved));
+        }
+        return new Result(series.getId(), Arrays.copyOfRange(series.tradeDates, start, series.size()), columns, values);
+    }
+
+    /**
+     * 平行計算所有股票，結果依股票代碼排序
+     * Compute every stock in parallel; results are ordered by stock id
+     */
+    public Map<Integer, Result> computeAll(StockSeriesStore store, Checkpoint checkpoint) {
+        int[] ids = store.getStockIds();
+        Result[] results = Arrays.stream(ids).parallel()
+                .mapToObj(id -> compute(store.getSeries(id), checkpoint))
+                .toArray(Result[]::new);
+        Map<Integer, Result> byId = new LinkedHashMap<>();
+        for (Result result : results) {
+            byId.put(result.getStockId(), result);
+        }
+        return byId;
+    }
+
+    /**
+     * 一支股票的計算結果（以欄為主的定點數陣列）
+     * One stock's results as column-major fixed-point arrays
+     */
+    public static class Result {
+        private final int stockId;
+        private final int[] tradeDates;
+        private final List<String> columns;
+        private final long[][] values;
+
+        Result(int stockId, int[] tradeDates, List<String> columns, long[][] values) {
+            this.stockId = stockId;
+            this.tradeDates = tradeDates;
+            this.columns = columns;
+            this.values = values;
+        }
+
+        public int getStockId() { return stockId; }
+
+        /** 計算的交易日數 Number of trading days computed */
+        public int size() { return tradeDates.length; }
+
+        /** 交易日（epoch day） Trade date as an epoch day */
+        public int getTradeDate(int row) { return tradeDates[row]; }
+
+        public List<String> getColumns() { return Collections.unmodifiableList(columns); }
+
+        /** 定點數（{@link FixedPoint#INDICATOR_SCALE} 位小數），空值為 NULL_LONG Fixed-point value, NULL_LONG when null */
+        public long getValue(int column, int row) { return values[column][row]; }
+
+        public long getValue(String column, int row) {
+            int index = columns.indexOf(column);
+            if (index < 0) {
+                throw new IllegalArgumentException("沒有此欄位 No such column: " + column);
+            }
+            return values[index][row];
+        }
+
+        public BigDecimal getDecimal(String column, int row) {
+            return FixedPoint.toBigDecimal(getValue(column, row), FixedPoint.INDICATOR_SCALE);
+        }
+    }
+
+    /**
+     * 各股票最後計算日的指標狀態，可存檔後於下次接續
+     * Each stock's indicator state as of its last computed day; save it and resume next time
+     */
+    public static class Checkpoint {
+        private static final int MAGIC = 0x494E4443; // "INDC"
+        private static final int FORMAT_VERSION = 1;
+
+        private final List<String> columns;
+        private final Map<Integer, StockState> stocks = new ConcurrentHashMap<>();
+
+        Checkpoint(List<String> columns) {
+            this.columns = new ArrayList<>(columns);
+        }
+
+        private static final class StockState {
+            final int lastTradeDate;
+            final long[][] states;
+
+            StockState(int lastTradeDate, long[][] states) {
+                this.lastTradeDate = lastTradeDate;
+                this.states = states;
+            }
+        }
+
+        /**
+         * 一支股票最後計算的交易日（epoch day），沒有記錄時為 Integer.MIN_VALUE
+         * The stock's last computed trade date as an epoch day, Integer.MIN_VALUE when absent
+         */
+        public int getLastTradeDate(int stockId) {
+            StockState state = stocks.get(stockId);
+            return state == null ? Integer.MIN_VALUE : state.lastTradeDate;
+        }
+
+        public int size() {
+            return stocks.size();
+        }
+
+        /**
+         * 有記錄的股票代碼，依序排列
+         * Ids of the stocks with a saved state, in ascending order
+         */
+        public int[] getStockIds() {
+            return stocks.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+
+        /**
+         * 複本；寫入資料庫前在複本上計算，提交成功後再以 {@link #advanceTo} 套用
+         * A copy. Compute on a copy before writing, then apply it with {@link #advanceTo} once committed
+         */
+        public Checkpoint copy() {
+            Checkpoint copy = new Checkpoint(columns);
+            copy.stocks.putAll(stocks);
+            return copy;
+        }
+
+        /**
+         * 以另一個檢查點（通常為 {@link #copy} 計算後的結果）的狀態取代本檢查點的對應股票
+         * Take over every stock's state from another checkpoint, usually a {@link #copy} that was computed on
+         */
+        public void advanceTo(Checkpoint other) {
+            other.requireColumns(columns);
+            stocks.putAll(other.stocks);
+        }
+
+        /**
+         * 寫入檔案；先寫暫存檔再以原子方式取代
+         * Save to a file, writing a temporary file and then atomically replacing the target
+         */
+        public void save(Path file) throws IOException {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(columns.size());
+                for (String column : columns) {
+                    out.writeUTF(column);
+                }
+                out.writeInt(stocks.size());
+                for (Map.Entry<Integer, StockState> entry : stocks.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue().lastTradeDate);
+                    long[][] states = entry.getValue().states;
+                    out.writeInt(states.length);
+                    for (long[] state : states) {
+                        out.writeInt(state.length);
+                        for (long value : state) {
+                            out.writeLong(value);
+                        }
+                    }
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * 由檔案載入
+         * Load from a file
+         */
+        public static Checkpoint load(Path file) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("不是指標檢查點檔案 Not an indicator checkpoint file: " + file);
+                }
+                int version = in.readInt();
+                if (version > FORMAT_VERSION) {
+                    throw new IOException("不支援的版本 Unsupported checkpoint version " + version);
+                }
+                List<String> columns = new ArrayList<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    columns.add(in.readUTF());
+                }
+                Checkpoint checkpoint = new Checkpoint(columns);
+                for (int n = in.readInt(); n > 0; n--) {
+                    int stockId = in.readInt();
+                    int lastTradeDate = in.readInt();
+                    long[][] states = new long[in.readInt()][];
+                    for (int i = 0; i < states.length; i++) {
+                        states[i] = new long[in.readInt()];
+                        for (int j = 0; j < states[i].length; j++) {
+                            states[i][j] = in.readLong();
+                        }
+                    }
+                    checkpoint.stocks.put(stockId, new StockState(lastTradeDate, states));
+                }
+                return checkpoint;
+            }
+        }
+
+        void requireColumns(List<String> engineColumns) {
+            if (!columns.equals(engineColumns)) {
+                throw new IllegalArgumentException("檢查點的指標與引擎不符 Checkpoint was made for different indicators: "
+                        + columns + " != " + engineColumns);
+            }
+        }
+    }
+
+    /**
+     * 以預設指標更新資料庫；指定檢查點檔時只計算檔案記錄之後的交易日，完成後寫回檔案
+     * Update the database with the default indicators. With a checkpoint file only the trading
+     * days after it are computed, and the file is rewritten afterwards
+     */
+    public static void main(String[] args) throws Exception {
+        IndicatorEngine engine = withDefaults();
+        Path checkpointFile = args.length > 0 ? Paths.get(args[0]) : null;
+        Checkpoint checkpoint = null;
+        if (checkpointFile != null) {
+            checkpoint = Files.exists(checkpointFile) ? Checkpoint.load(checkpointFile) : engine.newCheckpoint();
+        }
+
+        StockRepository repository = StorageBackend.fromSystemProperty().open();
+        try {
+            repository.updateIndicatorColumns(engine, checkpoint);
+        } finally {
+            repository.close();
+        }
+
+        if (checkpoint != null) {
+            checkpoint.save(checkpointFile);
+            System.out.println("✓ 檢查點已儲存 Checkpoint saved: " + checkpointFile + " (" + checkpoint.size() + " stocks)");
+        }
+    }
+}
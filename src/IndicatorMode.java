@@ -0,0 +1,38 @@
+/**
+ * 指標計算模式
+ * Indicator Computation Mode
+ *
+ * JAVA：讀取價格至 JVM 計算後寫回；SQL：以 MySQL 8 視窗函數在資料庫內以單一 UPDATE 計算，
+ * 不需在網路上傳送價格與結果。可用系統屬性 {@code indicator.mode} 於執行時選擇。
+ * JAVA reads prices into the JVM and writes the results back; SQL computes them inside
+ * MySQL 8 with window functions in one set-based UPDATE, so no prices or results cross the
+ * network. Select at runtime with the {@code indicator.mode} system property.
+ */
+public enum IndicatorMode {
+    JAVA,
+    SQL;
+
+    /** 系統屬性名稱 System property name */
+    public static final String PROPERTY = "indicator.mode";
+
+    /**
+     * 由系統屬性取得模式，未設定時為 JAVA
+     * Read the mode from the system property, defaulting to JAVA
+     */
+    public static IndicatorMode fromSystemProperty() {
+        return parse(System.getProperty(PROPERTY, JAVA.name()));
+    }
+
+    /**
+     * 解析模式名稱（不分大小寫）
+     * Parse a mode name, ignoring case
+     */
+    public static IndicatorMode parse(String value) {
+        for (IndicatorMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("未知的指標計算模式 Unknown indicator mode: " + value);
+    }
+}
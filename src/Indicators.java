@@ -0,0 +1,415 @@
+import java.util.List;
+
+/**
+ * 內建技術指標
+ * Built-in Technical Indicators
+ *
+ * 遞迴型：EMA、MACD、RSI（Wilder 平滑）、ATR（Wilder 平滑）；視窗型：布林通道。
+ * 遞迴計算以 double 進行，輸出時以 HALF_UP 捨入到 {@link FixedPoint#INDICATOR_SCALE} 位小數；
+ * 中間值不捨入，因此由檢查點接續計算與不中斷計算的結果完全相同。
+ * Recursive: EMA, MACD, RSI and ATR (both with Wilder smoothing). Window: Bollinger bands.
+ * The recursions run in double and only the outputs are rounded HALF_UP to
+ * {@link FixedPoint#INDICATOR_SCALE} decimals; intermediate values are never rounded, so resuming
+ * from a checkpoint gives exactly the same results as an uninterrupted run.
+ *
+ * 各指標定義 Definitions:
+ * <ul>
+ *   <li>EMA(n)：α = 2/(n+1)，以第一個收盤價為初始值，自第一列起有值
+ *       α = 2/(n+1), seeded with the first close, so it has a value from the first row</li>
+ *   <li>MACD(12,26,9)：EMA12 − EMA26，訊號線為其 EMA9，柱狀圖為兩者之差
+ *       EMA12 − EMA26, the signal line is its EMA9 and the histogram their difference</li>
+ *   <li>RSI(n)：前 n 個漲跌的平均為初值，之後以 Wilder 平滑；第 n+1 列起有值。
+ *       無跌幅時為100，無漲跌時為50
+ *       Seeded with the mean of the first n changes, then Wilder-smoothed; has a value from
+ *       row n+1. It is 100 with no losses and 50 with no change at all</li>
+ *   <li>ATR(n)：真實區間 max(高−低, |高−前收|, |低−前收|)，前 n 日平均為初值，之後以 Wilder 平滑；第 n 列起有值
+ *       True range max(high − low, |high − previous close|, |low − previous close|), seeded
+ *       with the mean of the first n, then Wilder-smoothed; has a value from row n</li>
+ *   <li>布林通道(20,2)：中線為20日簡單平均（精確 HALF_UP），上下軌為中線 ± 2倍母體標準差；滿20日起有值
+ *       Bollinger(20,2): the middle band is the exact HALF_UP 20-day SMA and the outer bands are
+ *       ± 2 population standard deviations; has values once the window is full</li>
+ * </ul>
+ * 收盤價（ATR另含高低價）為空值的交易日不更新狀態，輸出空值。
+ * A day with a null close (or, for ATR, a null high or low) leaves the state untouched and outputs null.
+ */
+public final class Indicators {
+
+    private static final double PRICE_UNIT = 100.0;
+
+    private Indicators() {}
+
+    /**
+     * 預設指標組合，對應 stock_data 的指標欄位
+     * The default set, matching the indicator columns of stock_data
+     */
+    public static List<Indicator> defaults() {
+        return List.of(ema(12), ema(26), macd(12, 26, 9), rsi(14), bollinger(20, 2), atr(14));
+    }
+
+    public static Indicator ema(int period) {
+        requirePositive(period);
+        return new Indicator() {
+            @Override
+            public List<String> getColumns() {
+                return List.of("ema_" + period);
+            }
+
+            @Override
+            public State newState() {
+                return new EmaState(period);
+            }
+        };
+    }
+
+    /**
+     * 欄位固定為 macd、macd_signal、macd_histogram
+     * Columns are always macd, macd_signal and macd_histogram
+     */
+    public static Indicator macd(int fast, int slow, int signal) {
+        requirePositive(fast);
+        requirePositive(slow);
+        requirePositive(signal);
+        return new Indicator() {
+            @Override
+            public List<String> getColumns() {
+                return List.of("macd", "macd_signal", "macd_histogram");
+            }
+
+            @Override
+            public State newState() {
+                return new MacdState(fast, slow, signal);
+            }
+        };
+    }
+
+    public static Indicator rsi(int period) {
+        requirePositive(period);
+        return new Indicator() {
+            @Override
+            public List<String> getColumns() {
+                return List.of("rsi_" + period);
+            }
+
+            @Override
+            public State newState() {
+                return new RsiState(period);
+            }
+        };
+    }
+
+    /**
+     * 欄位固定為 bollinger_upper、bollinger_middle、bollinger_lower
+     * Columns are always bollinger_upper, bollinger_middle and bollinger_lower
+     */
+    public static Indicator bollinger(int period, double width) {
+        requirePositive(period);
+        return new Indicator() {
+            @Override
+            public List<String> getColumns() {
+                return List.of("bollinger_upper", "bollinger_middle", "bollinger_lower");
+            }
+
+            @Override
+            public State newState() {
+                return new BollingerState(period, width);
+            }
+        };
+    }
+
+    public static Indicator atr(int period) {
+        requirePositive(period);
+        return new Indicator() {
+            @Override
+            public List<String> getColumns() {
+                return List.of("atr_" + period);
+            }
+
+            @Override
+            public State newState() {
+                return new AtrState(period);
+            }
+        };
+    }
+
+    private static void requirePositive(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("週期必須為正數 Period must be positive: " + period);
+        }
+    }
+
+    private static long output(double value) {
+        return FixedPoint.fromDouble(value, FixedPoint.INDICATOR_SCALE);
+    }
+
+    /**
+     * 指數移動平均的遞迴 The exponential moving average recursion
+     */
+    private static final class Ema {
+        private final double alpha;
+        private long count;
+        private double value;
+
+        Ema(int period) {
+            this.alpha = 2.0 / (period + 1);
+        }
+
+        double add(double x) {
+            value = count++ == 0 ? x : value + alpha * (x - value);
+            return value;
+        }
+
+        void save(long[] checkpoint, int offset) {
+            checkpoint[offset] = count;
+            checkpoint[offset + 1] = Double.doubleToRawLongBits(value);
+        }
+
+        void load(long[] checkpoint, int offset) {
+            count = checkpoint[offset];
+            value = Double.longBitsToDouble(checkpoint[offset + 1]);
+        }
+    }
+
+    private static final class EmaState implements Indicator.State {
+        private final Ema ema;
+
+        EmaState(int period) {
+            this.ema = new Ema(period);
+        }
+
+        @Override
+        public void update(long open, long high, long low, long close, long[] out, int offset) {
+            out[offset] = close == FixedPoint.NULL_LONG ? FixedPoint.NULL_LONG : output(ema.add(close / PRICE_UNIT));
+        }
+
+        @Override
+        public long[] checkpoint() {
+            long[] checkpoint = new long[2];
+            ema.save(checkpoint, 0);
+            return checkpoint;
+        }
+
+        @Override
+        public void restore(long[] checkpoint) {
+            ema.load(checkpoint, 0);
+        }
+    }
+
+    private static final class MacdState implements Indicator.State {
+        private final Ema fast;
+        private final Ema slow;
+        private final Ema signal;
+
+        MacdState(int fast, int slow, int signal) {
+            this.fast = new Ema(fast);
+            this.slow = new Ema(slow);
+            this.signal = new Ema(signal);
+        }
+
+        @Override
+        public void update(long open, long high, long low, long close, long[] out, int offset) {
+            if (close == FixedPoint.NULL_LONG) {
+                out[offset] = out[offset + 1] = out[offset + 2] = FixedPoint.NULL_LONG;
+                return;
+            }
+            double price = close / PRICE_UNIT;
+            double macd = fast.add(price) - slow.add(price);
+            double signalLine = signal.add(macd);
+            out[offset] = output(macd);
+            out[offset + 1] = output(signalLine);
+            out[offset + 2] = output(macd - signalLine);
+        }
+
+        @Override
+        public long[] checkpoint() {
+            long[] checkpoint = new long[6];
+            fast.save(checkpoint, 0);
+            slow.save(checkpoint, 2);
+            signal.save(checkpoint, 4);
+            return checkpoint;
+        }
+
+        @Override
+        public void restore(long[] checkpoint) {
+            fast.load(checkpoint, 0);
+            slow.load(checkpoint, 2);
+            signal.load(checkpoint, 4);
+        }
+    }
+
+    private static final class RsiState implements Indicator.State {
+        private final int period;
+        private long previousClose = FixedPoint.NULL_LONG;
+        private long changes;
+        // 暖機期間為總和，之後為平均 Sums while warming up, averages afterwards
+        private double averageGain;
+        private double averageLoss;
+
+        RsiState(int period) {
+            this.period = period;
+        }
+
+        @Override
+        public void update(long open, long high, long low, long close, long[] out, int offset) {
+            out[offset] = FixedPoint.NULL_LONG;
+            if (close == FixedPoint.NULL_LONG) {
+                return;
+            }
+            if (previousClose == FixedPoint.NULL_LONG) {
+                previousClose = close;
+                return;
+            }
+
+            double change = (close - previousClose) / PRICE_UNIT;
+            previousClose = close;
+            double gain = Math.max(change, 0);
+            double loss = Math.max(-change, 0);
+            changes++;
+            if (changes < period) {
+                averageGain += gain;
+                averageLoss += loss;
+                return;
+            }
+            if (changes == period) {
+                averageGain = (averageGain + gain) / period;
+                averageLoss = (averageLoss + loss) / period;
+            } else {
+                averageGain = (averageGain * (period - 1) + gain) / period;
+                averageLoss = (averageLoss * (period - 1) + loss) / period;
+            }
+
+            if (averageLoss == 0) {
+                out[offset] = output(averageGain == 0 ? 50 : 100);
+            } else {
+                out[offset] = output(100 - 100 / (1 + averageGain / averageLoss));
+            }
+        }
+
+        @Override
+        public long[] checkpoint() {
+            return new long[] {previousClose, changes,
+                    Double.doubleToRawLongBits(averageGain), Double.doubleToRawLongBits(averageLoss)};
+        }
+
+        @Override
+        public void restore(long[] checkpoint) {
+            previousClose = checkpoint[0];
+            changes = checkpoint[1];
+            averageGain = Double.longBitsToDouble(checkpoint[2]);
+            averageLoss = Double.longBitsToDouble(checkpoint[3]);
+        }
+    }
+
+    private static final class AtrState implements Indicator.State {
+        private final int period;
+        private long previousClose = FixedPoint.NULL_LONG;
+        private long days;
+        // 暖機期間為總和，之後為平均 A sum while warming up, the average afterwards
+        private double atr;
+
+        AtrState(int period) {
+            this.period = period;
+        }
+
+        @Override
+        public void update(long open, long high, long low, long close, long[] out, int offset) {
+            out[offset] = FixedPoint.NULL_LONG;
+            if (high == FixedPoint.NULL_LONG || low == FixedPoint.NULL_LONG || close == FixedPoint.NULL_LONG) {
+                return;
+            }
+
+            long trueRange = high - low;
+            if (previousClose != FixedPoint.NULL_LONG) {
+                trueRange = Math.max(trueRange, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+            }
+            previousClose = close;
+            days++;
+
+            double range = trueRange / PRICE_UNIT;
+            if (days < period) {
+                atr += range;
+                return;
+            }
+            atr = days == period ? (atr + range) / period : (atr * (period - 1) + range) / period;
+            out[offset] = output(atr);
+        }
+
+        @Override
+        public long[] checkpoint() {
+            return new long[] {previousClose, days, Double.doubleToRawLongBits(atr)};
+        }
+
+        @Override
+        public void restore(long[] checkpoint) {
+            previousClose = checkpoint[0];
+            days = checkpoint[1];
+            atr = Double.longBitsToDouble(checkpoint[2]);
+        }
+    }
+
+    private static final class BollingerState implements Indicator.State {
+        private final int period;
+        private final double width;
+        private final long[] window;
+        private int count;
+        private int position;
+        private long sum;
+
+        BollingerState(int period, double width) {
+            this.period = period;
+            this.width = width;
+            this.window = new long[period];
+        }
+
+        @Override
+        public void update(long open, long high, long low, long close, long[] out, int offset) {
+            out[offset] = out[offset + 1] = out[offset + 2] = FixedPoint.NULL_LONG;
+            if (close == FixedPoint.NULL_LONG) {
+                return;
+            }
+
+            if (count == period) {
+                sum -= window[position];
+            } else {
+                count++;
+            }
+            window[position] = close;
+            sum += close;
+            position = (position + 1) % period;
+            if (count < period) {
+                return;
+            }
+
+            // 中線以整數運算精確捨入：2位小數的總和 × 100 / n 得到4位小數
+            // The middle band is exact: a scale-2 sum × 100 / n gives scale 4
+            long middle = FixedPoint.divideHalfUp(sum * 100, period);
+            double mean = (double) sum / period;
+            double squares = 0;
+            for (long value : window) {
+                double deviation = value - mean;
+                squares += deviation * deviation;
+            }
+            long band = output(width * Math.sqrt(squares / period) / PRICE_UNIT);
+            out[offset] = middle + band;
+            out[offset + 1] = middle;
+            out[offset + 2] = middle - band;
+        }
+
+        @Override
+        public long[] checkpoint() {
+            long[] checkpoint = new long[3 + period];
+            checkpoint[0] = count;
+            checkpoint[1] = position;
+            checkpoint[2] = sum;
+            System.arraycopy(window, 0, checkpoint, 3, period);
+            return checkpoint;
+        }
+
+        @Override
+        public void restore(long[] checkpoint) {
+            count = (int) checkpoint[0];
+            position = (int) checkpoint[1];
+            sum = checkpoint[2];
+            System.arraycopy(checkpoint, 3, window, 0, period);
+        }
+    }
+}
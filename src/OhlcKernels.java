@@ -0,0 +1,95 @@
+/**
+ * 以原生陣列批次計算的K線公式
+ * Bulk OHLC Formulas over Primitive Arrays
+ *
+ * 一次處理整段定點數陣列，不為每列建立 BigDecimal。若執行時載入了 jdk.incubator.vector 模組
+ * （{@code --add-modules jdk.incubator.vector}），使用以 Vector API 撰寫的 VectorOhlcKernels
+ * （src/vector/，由 Maven 以該模組編譯，執行時以反射載入）；否則使用逐列的純量版本。
+ * 兩者的結果與 {@link FixedPoint#dsa} 逐位元相同。可用系統屬性 {@code ohlc.kernels=scalar} 強制使用純量版本。
+ * Processes whole fixed-point arrays at once with no BigDecimal per row. When the
+ * jdk.incubator.vector module is present at runtime ({@code --add-modules jdk.incubator.vector}),
+ * the Vector API implementation VectorOhlcKernels (in src/vector/, compiled by Maven with that
+ * module and loaded reflectively) is used; otherwise a row-by-row scalar loop. Both give results
+ * bit-identical to {@link FixedPoint#dsa}. Force the scalar loop with {@code ohlc.kernels=scalar}.
+ *
+ * Vector API 只有在 C2 編譯後才快（穩定狀態約為純量版本的5倍）；編譯前的程式碼為每個向量建立物件，
+ * 比純量版本慢得多。短暫執行、只重算一次的程序（特別是CPU少的機器）請不要加入此模組。
+ * The Vector API is only fast once C2 has compiled the kernel (about 5x the scalar loop in steady
+ * state); before that every vector is an object and it is much slower than the scalar loop. Leave
+ * the module out for short-lived processes that recompute once, especially on machines with few CPUs.
+ */
+public final class OhlcKernels {
+
+    /** 系統屬性名稱（auto 或 scalar） System property name, auto or scalar */
+    public static final String PROPERTY = "ohlc.kernels";
+
+    /**
+     * 批次公式的實作
+     * An implementation of the bulk formulas
+     */
+    interface Kernels {
+
+        /** out[i] = DSA(open[i], high[i], low[i])，from ≤ i < to */
+        void dsa(long[] open, long[] high, long[] low, long[] out, int from, int to);
+
+        String describe();
+    }
+
+    static final Kernels SCALAR = new Kernels() {
+        @Override
+        public void dsa(long[] open, long[] high, long[] low, long[] out, int from, int to) {
+            for (int i = from; i < to; i++) {
+                out[i] = FixedPoint.dsa(open[i], high[i], low[i]);
+            }
+        }
+
+        @Override
+        public String describe() {
+            return "scalar";
+        }
+    };
+
+    private static final Kernels KERNELS = load();
+
+    private OhlcKernels() {}
+
+    /**
+     * 計算 from（含）至 to（不含）各列的DSA，結果為6位小數的定點數，任一價格為空值時為 NULL_LONG
+     * Compute DSA for rows from (inclusive) to to (exclusive) as fixed-point at scale 6;
+     * NULL_LONG when any price is null
+     */
+    public static void dsa(long[] open, long[] high, long[] low, long[] out, int from, int to) {
+        checkRange(from, to, open.length, high.length, low.length, out.length);
+        KERNELS.dsa(open, high, low, out, from, to);
+    }
+
+    /**
+     * 目前使用的實作，例如 "vector(4 lanes)" 或 "scalar"
+     * The implementation in use, e.g. "vector(4 lanes)" or "scalar"
+     */
+    public static String implementation() {
+        return KERNELS.describe();
+    }
+
+    private static void checkRange(int from, int to, int... lengths) {
+        for (int length : lengths) {
+            if (from < 0 || from > to || to > length) {
+                throw new IndexOutOfBoundsException("範圍 Range [" + from + ", " + to + ") 超出陣列長度 exceeds array length " + length);
+            }
+        }
+    }
+
+    private static Kernels load() {
+        if ("scalar".equalsIgnoreCase(System.getProperty(PROPERTY, "auto").trim())) {
+            return SCALAR;
+        }
+        try {
+            Kernels vector = (Kernels) Class.forName("VectorOhlcKernels").getDeclaredMethod("create").invoke(null);
+            // 沒有可用的向量形狀時為 null null when the machine has no usable vector shape
+            return vector != null ? vector : SCALAR;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // 未以 Maven 編譯或執行時未加入 jdk.incubator.vector Not built by Maven, or the module is not present
+            return SCALAR;
+        }
+    }
+}
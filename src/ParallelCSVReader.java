@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * 平行CSV檔案讀取器
+ * Parallel CSV File Reader
+ *
+ * 以記憶體映射讀取檔案，依換行切成區塊後於ForkJoin執行緒池平行解析，
+ * 結果依檔案順序輸出，錯誤統計與 {@link CSVReader#readStockDataFromCSV} 相同。
+ * Memory-maps the file, splits it into chunks at newline boundaries and parses the
+ * chunks on a fork-join pool. Results are delivered in file order with the same
+ * per-line error accounting as {@link CSVReader#readStockDataFromCSV}.
+ */
+public class ParallelCSVReader {
+
+    /** 預設區塊大小 Default chunk size in bytes */
+    public static final int DEFAULT_CHUNK_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * 讀取結果
+     * Reading result with per-line accounting
+     */
+    public static class Result {
+        private final List<StockData> stockDataList;
+        private final int totalLines;
+        private final int successCount;
+        private final int errorCount;
+
+        Result(List<StockData> stockDataList, int totalLines, int successCount, int errorCount) {
+            this.stockDataList = stockDataList;
+            this.totalLines = totalLines;
+            this.successCount = successCount;
+            this.errorCount = errorCount;
+        }
+
+        public List<StockData> getStockDataList() { return stockDataList; }
+        public int getTotalLines() { return totalLines; }
+        public int getSuccessCount() { return successCount; }
+        public int getErrorCount() { return errorCount; }
+    }
+
+    /**
+     * 平行讀取股票資料CSV檔案，使用所有可用處理器
+     * Read a stock data CSV file in parallel using all available processors
+     */
+    public static Result readStockDataParallel(String filePath) throws IOException {
+        return readStockDataParallel(filePath, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 平行讀取並合併為單一清單
+     * Read in parallel and merge all rows into a single list
+     */
+    public static Result readStockDataParallel(String filePath, int parallelism) throws IOException {
+        List<StockData> stockDataList = new ArrayList<>();
+        Result counts = readStockDataParallel(filePath, parallelism, DEFAULT_CHUNK_BYTES, stockDataList::addAll);
+        return new Result(stockDataList, counts.getTotalLines(), counts.getSuccessCount(), counts.getErrorCount());
+    }
+
+    /**
+     * 平行讀取，並依檔案順序將每個區塊的資料交給consumer；
+     * 同時處理中的區塊數受限，記憶體用量不隨檔案大小成長
+     * Read in parallel and hand each chunk's rows to the consumer in file order.
+     * Only a bounded window of chunks is in flight, so memory does not grow with file size.
+     * The returned result carries the counts only.
+     */
+    public static Result readStockDataParallel(String filePath, int parallelism, int chunkBytes,
+                                               Consumer<List<StockData>> consumer) throws IOException {
+        if (parallelism <= 0 || chunkBytes <= 0) {
+            throw new IllegalArgumentException("parallelism and chunkBytes must be positive");
+        }
+
+        System.out.println("平行讀取CSV檔案: " + filePath + " (" + parallelism + " 執行緒)");
+        System.out.println("Reading CSV file in parallel: " + filePath + " (" + parallelism + " threads)");
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            long[] boundaries = splitAtNewlines(channel, chunkBytes);
+
+            int lineNumber = 0;
+            int successCount = 0;
+            int errorCount = 0;
+            int loggedErrors = 0;
+            ProgressReporter progress = new ProgressReporter("已讀取 %d 筆資料... Read %d records...");
+            int window = parallelism * 2;
+            int nextChunk = 0;
+            Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+
+            while (nextChunk < boundaries.length - 1 || !inFlight.isEmpty()) {
+                while (nextChunk < boundaries.length - 1 && inFlight.size() < window) {
+                    long start = boundaries[nextChunk];
+                    long end = boundaries[nextChunk + 1];
+                    boolean firstChunk = nextChunk == 0;
+                    inFlight.addLast(pool.submit(() -> parseChunk(channel, start, end, firstChunk)));
+                    nextChunk++;
+                }
+
+                ChunkResult chunk = inFlight.removeFirst().join();
+                if (chunk.ioException != null) {
+                    throw chunk.ioException;
+                }
+
+                if (chunk.header != null) {
+                    System.out.println("CSV標題行 Header: " + chunk.header);
+                }
+
+                // 以全域行號輸出錯誤 Report errors with global line numbers
+                for (LineError error : chunk.errors) {
+                    if (loggedErrors++ >= CSVReader.MAX_LOGGED_ERRORS) {
+                        break;
+                    }
+                    int globalLine = lineNumber + error.localLine;
+                    if (error.message == null) {
+                        System.err.println("第 " + globalLine + " 行資料不完整，跳過 Line " + globalLine + " incomplete, skipping");
+                    } else {
+                        System.err.println("第 " + globalLine + " 行解析失敗 Line " + globalLine + " parsing failed: " + error.message);
+                        System.err.println("資料內容 Data: " + error.line);
+                    }
+                }
+
+                lineNumber += chunk.lineCount;
+                successCount += chunk.rows.size();
+                errorCount += chunk.errors.size();
+                ImportMetrics.ROWS_PARSED.add(chunk.rows.size());
+                ImportMetrics.ROWS_FAILED.add(chunk.errors.size());
+                consumer.accept(chunk.rows);
+
+                progress.update(successCount);
+            }
+
+            int totalLines = Math.max(0, lineNumber - 1);
+            System.out.println("\n=== CSV讀取結果 CSV Reading Results ===");
+            System.out.println("總處理行數 Total lines processed: " + totalLines);
+            System.out.println("成功讀取 Successfully read: " + successCount);
+            System.out.println("失敗數量 Failed: " + errorCount);
+            CSVReader.printSuppressedErrors(errorCount);
+
+            return new Result(null, totalLines, successCount, errorCount);
+        } catch (IOException e) {
+            System.err.println("讀取檔案失敗 File reading failed: " + e.getMessage());
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 依目標大小切割檔案，並將每個切點移到下一行的開頭
+     * Split the file into roughly chunkBytes-sized ranges, moving every cut to the start of the next line
+     */
+    static long[] splitAtNewlines(FileChannel channel, int chunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> cuts = new ArrayList<>();
+        cuts.add(0L);
+
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkBytes);
+            if (end < size) {
+                end = nextLineStart(channel, end - 1, size, probe);
+            }
+            cuts.add(end);
+            start = end;
+        }
+
+        long[] boundaries = new long[cuts.size()];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = cuts.get(i);
+        }
+        return boundaries;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * 解析單一區塊，行號為區塊內的相對行號
+     * Parse one chunk; line numbers are relative to the chunk
+     */
+    private static ChunkResult parseChunk(FileChannel channel, long start, long end, boolean firstChunk) {
+        ChunkResult result = new ChunkResult();
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+            // 整個區塊一次解碼後直接在字元範圍上切割 Decode the chunk once and tokenize char ranges in place
+            CharBuffer decoded = StandardCharsets.UTF_8.decode(mapped);
+            char[] chars = decoded.array();
+            int length = decoded.limit();
+            CSVLineTokenizer tokenizer = new CSVLineTokenizer();
+
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (chars[i] == '\n') {
+                    handleLine(result, tokenizer, chars, lineStart, i, firstChunk);
+                    lineStart = i + 1;
+                }
+            }
+
+            // 檔案最後一行沒有換行 Last line of the file without a trailing newline
+            if (lineStart < length) {
+                handleLine(result, tokenizer, chars, lineStart, length, firstChunk);
+            }
+        } catch (IOException e) {
+            result.ioException = e;
+        }
+        return result;
+    }
+
+    private static void handleLine(ChunkResult result, CSVLineTokenizer tokenizer, char[] chars,
+                                   int from, int to, boolean firstChunk) {
+        if (to > from && chars[to - 1] == '\r') {
+            to--;
+        }
+        result.lineCount++;
+
+        // 跳過標題行 Skip header row
+        if (firstChunk && result.lineCount == 1) {
+            result.header = new String(chars, from, to - from);
+            return;
+        }
+
+        try {
+            StockData stockData = CSVReader.parseStockDataFields(tokenizer, chars, from, to);
+            if (stockData == null) {
+                result.errors.add(new LineError(result.lineCount, null, null));
+            } else {
+                result.rows.add(stockData);
+            }
+        } catch (Exception e) {
+            result.errors.add(new LineError(result.lineCount, new String(chars, from, to - from), String.valueOf(e.getMessage())));
+        }
+    }
+
+    private static class ChunkResult {
+        final List<StockData> rows = new ArrayList<>();
+        final List<LineError> errors = new ArrayList<>();
+        int lineCount;
+        String header;
+        IOException ioException;
+    }
+
+    private static class LineError {
+        final int localLine;
+        final String line;
+        final String message;   // null表示欄位不足 null means incomplete line
+
+        LineError(int localLine, String line, String message) {
+            this.localLine = localLine;
+            this.line = line;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * 滾動視窗計算引擎
+ * Rolling-Window Engine
+ *
+ * 以累加和與單調佇列在一次 O(n) 掃描中同時計算多個視窗的移動平均、
+ * 滾動最高價/最低價與滾動標準差。輸入為 {@link FixedPoint} 的定點價格（2位小數）。
+ * 序列開頭不足一個視窗時使用可用天數計算，與原本 ma_5_days 的行為相同。
+ * Computes moving averages, rolling highs/lows and rolling standard deviations for
+ * several windows in a single O(n) pass, using running sums and monotonic deques.
+ * Inputs are {@link FixedPoint} prices at scale 2. Windows that are not yet full at
+ * the start of a series use the days available, matching the original ma_5_days behavior.
+ */
+public class RollingWindows {
+
+    /** 預設視窗天數 Default window lengths in days */
+    public static final int[] DEFAULT_WINDOWS = {5, 10, 20, 60, 120};
+
+    /**
+     * 計算結果，陣列第一維對應 {@link #getWindows()} 的順序
+     * Computation result; the first array dimension follows {@link #getWindows()}
+     */
+    public static class Result {
+        private final int[] windows;
+        private final long[][] movingAverages;
+        private final long[][] rollingHighs;
+        private final long[][] rollingLows;
+        private final double[][] rollingStdDevs;
+
+        Result(int[] windows, int size) {
+            this.windows = windows.clone();
+            this.movingAverages = new long[windows.length][size];
+            this.rollingHighs = new long[windows.length][size];
+            this.rollingLows = new long[windows.length][size];
+            this.rollingStdDevs = new double[windows.length][size];
+        }
+
+        public int[] getWindows() { return windows.clone(); }
+
+        /** 移動平均（2位小數定點數） Moving average, fixed-point at scale 2 */
+        public long[] getMovingAverage(int window) { return movingAverages[indexOf(window)]; }
+
+        /** 滾動最高價（2位小數定點數） Rolling high, fixed-point at scale 2 */
+        public long[] getRollingHigh(int window) { return rollingHighs[indexOf(window)]; }
+
+        /** 滾動最低價（2位小數定點數） Rolling low, fixed-point at scale 2 */
+        public long[] getRollingLow(int window) { return rollingLows[indexOf(window)]; }
+
+        /** 滾動母體標準差（價格單位） Rolling population standard deviation, in price units */
+        public double[] getRollingStdDev(int window) { return rollingStdDevs[indexOf(window)]; }
+
+        private int indexOf(int window) {
+            for (int i = 0; i < windows.length; i++) {
+                if (windows[i] == window) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("未計算的視窗 Window not computed: " + window);
+        }
+    }
+
+    /**
+     * 單次掃描計算所有視窗的指標
+     * Compute every indicator for every window in one pass
+     *
+     * @param closes 收盤價 close prices
+     * @param highs  最高價 high prices
+     * @param lows   最低價 low prices
+     * @param size   有效筆數 number of valid rows
+     */
+    public static Result compute(long[] closes, long[] highs, long[] lows, int size, int... windows) {
+        for (int window : windows) {
+            if (window <= 0) {
+                throw new IllegalArgumentException("視窗必須為正數 Window must be positive: " + window);
+            }
+        }
+
+        Result result = new Result(windows, size);
+        int count = windows.length;
+        long[] sums = new long[count];
+        double[] squareSums = new double[count];
+        MonotonicDeque[] maxDeques = new MonotonicDeque[count];
+        MonotonicDeque[] minDeques = new MonotonicDeque[count];
+        for (int w = 0; w < count; w++) {
+            maxDeques[w] = new MonotonicDeque(windows[w], true);
+            minDeques[w] = new MonotonicDeque(windows[w], false);
+        }
+
+        // 以第一筆收盤價為基準平移，降低平方和的數值誤差 Shift by the first close to keep square sums small
+        long shift = size > 0 ? closes[0] : 0;
+
+        for (int i = 0; i < size; i++) {
+            long close = closes[i];
+            double shifted = close - shift;
+
+            for (int w = 0; w < count; w++) {
+                int window = windows[w];
+                sums[w] += close;
+                squareSums[w] += shifted * shifted;
+                if (i >= window) {
+                    long leaving = closes[i - window];
+                    double leavingShifted = leaving - shift;
+                    sums[w] -= leaving;
+                    squareSums[w] -= leavingShifted * leavingShifted;
+                }
+
+                int n = Math.min(i + 1, window);
+                result.movingAverages[w][i] = FixedPoint.average(sums[w], n);
+
+                double mean = (double) (sums[w] - shift * n) / n;
+                double variance = Math.max(0.0, squareSums[w] / n - mean * mean);
+                result.rollingStdDevs[w][i] = Math.sqrt(variance) / 100.0;
+
+                result.rollingHighs[w][i] = maxDeques[w].push(i, highs[i]);
+                result.rollingLows[w][i] = minDeques[w].push(i, lows[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 單一視窗的移動平均，不足視窗天數時使用可用天數
+     * Moving average over one window, averaging fewer days until the window fills
+     */
+    public static long[] movingAverage(long[] values, int size, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("視窗必須為正數 Window must be positive: " + window);
+        }
+        long[] averages = new long[size];
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+            if (i >= window) {
+                sum -= values[i - window];
+            }
+            averages[i] = FixedPoint.average(sum, Math.min(i + 1, window));
+        }
+        return averages;
+    }
+
+    /**
+     * 單調佇列：保存視窗內可能成為最大（或最小）值的位置
+     * Monotonic deque holding the positions that can still become the window maximum (or minimum)
+     */
+    private static class MonotonicDeque {
+        private final int window;
+        private final boolean keepMax;
+        private final int[] positions;
+        private final long[] values;
+        private int head;
+        private int length;
+
+        MonotonicDeque(int window, boolean keepMax) {
+            this.window = window;
+            this.keepMax = keepMax;
+            this.positions = new int[window];
+            this.values = new long[window];
+        }
+
+        /**
+         * 加入第 position 筆資料並回傳目前視窗的極值
+         * Add the value at position and return the extreme of the current window
+         */
+        long push(int position, long value) {
+            // 移除已離開視窗的元素 Drop the element that left the window
+            if (length > 0 && positions[head] <= position - window) {
+                head = (head + 1) % window;
+                length--;
+            }
+
+            // 移除不可能再成為極值的尾端元素 Drop tail elements dominated by the new value
+            while (length > 0) {
+                int tail = (head + length - 1) % window;
+                boolean dominated = keepMax ? values[tail] <= value : values[tail] >= value;
+                if (!dominated) {
+                    break;
+                }
+                length--;
+            }
+
+            int slot = (head + length) % window;
+            positions[slot] = position;
+            values[slot] = value;
+            length++;
+
+            return values[head];
+        }
+    }
+}
@@ -0,0 +1,373 @@
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * 行業別與全市場橫斷面彙總
+ * Sector and Market-Wide Cross-Sectional Aggregation
+ *
+ * 對 {@link StockSeriesStore} 的每個 (交易日, 行業別) 計算總市值、成交量加權平均價（VWAP）、
+ * 本益比平均數與中位數，以及DSA為正、負、零的股票數；每日另有全市場彙總。
+ * 股票依處理器數量分組平行掃描一次，各組累加到以 (日期, 行業別) 為索引的陣列後合併，
+ * 所有金額以定點整數精確累加，結果與 SQL 的 SUM/ROUND 相同。
+ * For every (trade date, sector) of a {@link StockSeriesStore}: total market cap, the
+ * volume-weighted average price, mean and median P/E, and the number of stocks whose DSA
+ * is positive, negative or zero, plus a market-wide row per date. Stocks are split into one
+ * group per processor and scanned once in parallel; each group accumulates into an array
+ * indexed by (date, sector) and the partial results are merged. Amounts are summed exactly
+ * in fixed point, so results match SQL SUM/ROUND.
+ *
+ * {@link #aggregateNewDays} 只重新彙總最後一個已彙總日期（含）之後的資料，
+ * 該日可能在上次彙總時尚未完整，因此一併重算。
+ * {@link #aggregateNewDays} only re-aggregates rows from the last aggregated date onwards;
+ * that date is included because it may have been incomplete last time.
+ */
+public class SectorAggregator {
+
+    /** 全市場彙總的行業別名稱 Sector name of the market-wide row */
+    public static final String MARKET = "全市場";
+
+    /** 沒有行業別的股票 Sector name used for stocks without one */
+    public static final String UNCLASSIFIED = "未分類";
+
+    /**
+     * 單一 (交易日, 行業別) 的彙總結果，金額為2位小數
+     * Aggregates of one (trade date, sector); amounts have 2 decimals
+     */
+    public static class SectorStats {
+        private final LocalDate tradeDate;
+        private final String sector;
+        private final int stockCount;
+        private final BigDecimal totalMarketCap;
+        private final BigDecimal vwap;
+        private final BigDecimal meanPeRatio;
+        private final BigDecimal medianPeRatio;
+        private final int advancers;
+        private final int decliners;
+        private final int unchanged;
+
+        SectorStats(LocalDate tradeDate, String sector, int stockCount, BigDecimal totalMarketCap, BigDecimal vwap,
+                    BigDecimal meanPeRatio, BigDecimal medianPeRatio, int advancers, int decliners, int unchanged) {
+            this.tradeDate = tradeDate;
+            this.sector = sector;
+            this.stockCount = stockCount;
+            this.totalMarketCap = totalMarketCap;
+            this.vwap = vwap;
+            this.meanPeRatio = meanPeRatio;
+            this.medianPeRatio = medianPeRatio;
+            this.advancers = advancers;
+            this.decliners = decliners;
+            this.unchanged = unchanged;
+        }
+
+        public LocalDate getTradeDate() { return tradeDate; }
+        public String getSector() { return sector; }
+        public int getStockCount() { return stockCount; }
+        public BigDecimal getTotalMarketCap() { return totalMarketCap; }
+
+        /** 成交量加權平均收盤價，總成交量為0時為 null VWAP of the close, null when total volume is zero */
+        public BigDecimal getVwap() { return vwap; }
+
+        /** 本益比平均數，沒有本益比時為 null Mean P/E, null when no stock has one */
+        public BigDecimal getMeanPeRatio() { return meanPeRatio; }
+
+        public BigDecimal getMedianPeRatio() { return medianPeRatio; }
+
+        /** DSA為正的股票數 Stocks with a positive DSA */
+        public int getAdvancers() { return advancers; }
+
+        /** DSA為負的股票數 Stocks with a negative DSA */
+        public int getDecliners() { return decliners; }
+
+        public int getUnchanged() { return unchanged; }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s: stocks=%d, marketCap=%s, vwap=%s, pe(mean/median)=%s/%s, dsa(+/-/0)=%d/%d/%d",
+                    tradeDate, sector, stockCount, totalMarketCap, vwap, meanPeRatio, medianPeRatio,
+                    advancers, decliners, unchanged);
+        }
+    }
+
+    private final NavigableMap<Integer, Map<String, SectorStats>> statsByDate = new TreeMap<>();
+    private final NavigableMap<Integer, SectorStats> marketByDate = new TreeMap<>();
+
+    /**
+     * 重新彙總全部資料，回傳交易日數
+     * Aggregate every row from scratch; returns the number of trade dates
+     */
+    public synchronized int aggregate(StockSeriesStore store) {
+        statsByDate.clear();
+        marketByDate.clear();
+        return aggregateFrom(store, Integer.MIN_VALUE);
+    }
+
+    /**
+     * 增量彙總新的交易日（含最後一個已彙總的日期），回傳重新彙總的交易日數
+     * Aggregate newly arrived days, including the last aggregated one; returns the number of dates aggregated
+     */
+    public synchronized int aggregateNewDays(StockSeriesStore store) {
+        if (statsByDate.isEmpty()) {
+            return aggregate(store);
+        }
+        int from = statsByDate.lastKey();
+        statsByDate.tailMap(from, true).clear();
+        marketByDate.tailMap(from, true).clear();
+        return aggregateFrom(store, from);
+    }
+
+    private int aggregateFrom(StockSeriesStore store, int fromEpochDay) {
+        // 只掃描各股票 fromEpochDay 之後的資料列 Only scan each stock's rows on or after fromEpochDay
+        List<StockSeries> series = new ArrayList<>();
+        List<Integer> startRows = new ArrayList<>();
+        // 各序列字典索引對應的全域行業別索引 Per series, the global sector index of each dictionary entry
+        List<int[]> sectorMaps = new ArrayList<>();
+        Map<String, Integer> sectorIndex = new HashMap<>();
+        List<String> sectors = new ArrayList<>();
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+
+        for (StockSeries s : store.getAllSeries()) {
+            int index = s.indexOf(fromEpochDay);
+            int start = index >= 0 ? index : -index - 1;
+            if (start == s.size()) {
+                continue;
+            }
+            series.add(s);
+            startRows.add(start);
+            int[] sectorMap = new int[s.getSectorCount()];
+            for (int local = 0; local < sectorMap.length; local++) {
+                sectorMap[local] = sectorIndex.computeIfAbsent(sectorOf(s.getSectorName(local)), sector -> {
+                    sectors.add(sector);
+                    return sectors.size() - 1;
+                });
+            }
+            sectorMaps.add(sectorMap);
+            minDay = Math.min(minDay, s.getTradeDate(start));
+            maxDay = Math.max(maxDay, s.getTradeDate(s.size() - 1));
+        }
+        if (series.isEmpty()) {
+            return 0;
+        }
+
+        int firstDay = minDay;
+        int days = maxDay - minDay + 1;
+        int sectorCount = sectors.size();
+        int chunks = Math.min(series.size(), Runtime.getRuntime().availableProcessors());
+
+        // 每組一個 (日期, 行業別) 陣列，最後合併 One (date, sector) array per group, merged at the end
+        Group[] groups = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    Group[] partial = new Group[days * sectorCount];
+                    for (int i = chunk; i < series.size(); i += chunks) {
+                        StockSeries s = series.get(i);
+                        int[] sectorMap = sectorMaps.get(i);
+                        for (int row = startRows.get(i); row < s.size(); row++) {
+                            int slot = (s.getTradeDate(row) - firstDay) * sectorCount + sectorMap[s.getSectorIndex(row)];
+                            if (partial[slot] == null) {
+                                partial[slot] = new Group();
+                            }
+                            partial[slot].add(s, row);
+                        }
+                    }
+                    return partial;
+                })
+                .reduce(SectorAggregator::merge)
+                .orElseThrow();
+
+        int aggregatedDates = 0;
+        for (int day = 0; day < days; day++) {
+            Group market = null;
+            Map<String, SectorStats> bySector = new TreeMap<>();
+            LocalDate date = LocalDate.ofEpochDay(firstDay + day);
+            for (int sector = 0; sector < sectorCount; sector++) {
+                Group group = groups[day * sectorCount + sector];
+                if (group == null) {
+                    continue;
+                }
+                bySector.put(sectors.get(sector), group.toStats(date, sectors.get(sector)));
+                market = market == null ? group : market.merge(group);
+            }
+            if (market != null) {
+                statsByDate.put(firstDay + day, bySector);
+                marketByDate.put(firstDay + day, market.toStats(date, MARKET));
+                aggregatedDates++;
+            }
+        }
+        return aggregatedDates;
+    }
+
+    private static String sectorOf(String sector) {
+        return sector == null || sector.isEmpty() ? UNCLASSIFIED : sector;
+    }
+
+    private static Group[] merge(Group[] left, Group[] right) {
+        for (int i = 0; i < left.length; i++) {
+            if (left[i] == null) {
+                left[i] = right[i];
+            } else if (right[i] != null) {
+                left[i] = left[i].merge(right[i]);
+            }
+        }
+        return left;
+    }
+
+    /**
+     * 指定日期各行業別的彙總，依行業別排序
+     * Per-sector aggregates of a date, ordered by sector
+     */
+    public synchronized List<SectorStats> getSectorStats(LocalDate date) {
+        Map<String, SectorStats> bySector = statsByDate.get((int) date.toEpochDay());
+        return bySector == null ? Collections.emptyList() : new ArrayList<>(bySector.values());
+    }
+
+    public synchronized SectorStats getSectorStats(LocalDate date, String sector) {
+        Map<String, SectorStats> bySector = statsByDate.get((int) date.toEpochDay());
+        return bySector == null ? null : bySector.get(sector);
+    }
+
+    /**
+     * 指定日期的全市場彙總，非交易日回傳 null
+     * Market-wide aggregates of a date, or null on a non-trading date
+     */
+    public synchronized SectorStats getMarketStats(LocalDate date) {
+        return marketByDate.get((int) date.toEpochDay());
+    }
+
+    /**
+     * 已彙總的交易日，依序排列
+     * Aggregated trade dates in ascending order
+     */
+    public synchronized List<LocalDate> getTradeDates() {
+        List<LocalDate> dates = new ArrayList<>(statsByDate.size());
+        for (Integer epochDay : statsByDate.keySet()) {
+            dates.add(LocalDate.ofEpochDay(epochDay));
+        }
+        return dates;
+    }
+
+    public synchronized Collection<SectorStats> getMarketStats() {
+        return new ArrayList<>(marketByDate.values());
+    }
+
+    /**
+     * 一個 (交易日, 行業別) 的累加器；收盤價×成交量以128位元累加避免溢位
+     * Accumulator of one (trade date, sector); close × volume is summed in 128 bits so it cannot overflow
+     */
+    private static final class Group {
+        int stocks;
+        long marketCap;
+        long priceVolumeHigh;
+        long priceVolumeLow;
+        long volume;
+        int[] peRatios = new int[8];
+        int peCount;
+        long peSum;
+        int advancers;
+        int decliners;
+        int unchanged;
+
+        void add(StockSeries series, int row) {
+            stocks++;
+            long cap = series.getMarketCap(row);
+            if (cap != FixedPoint.NULL_LONG) {
+                marketCap += cap;
+            }
+
+            long close = series.getClosePrice(row);
+            long shares = series.getVolume(row);
+            if (close != FixedPoint.NULL_LONG) {
+                addPriceVolume(Math.multiplyHigh(close, shares), close * shares);
+                volume += shares;
+            }
+
+            int pe = series.getPeRatio(row);
+            if (pe != FixedPoint.NULL_INT) {
+                if (peCount == peRatios.length) {
+                    peRatios = Arrays.copyOf(peRatios, peCount * 2);
+                }
+                peRatios[peCount++] = pe;
+                peSum += pe;
+            }
+
+            // 尚未計算DSA時即時計算 Compute DSA on the fly when the store has none yet
+            long dsa = series.getDsaIndicator(row);
+            if (dsa == FixedPoint.NULL_LONG) {
+                dsa = FixedPoint.dsa(series.getOpenPrice(row), series.getHighPrice(row), series.getLowPrice(row));
+            }
+            if (dsa != FixedPoint.NULL_LONG) {
+                if (dsa > 0) {
+                    advancers++;
+                } else if (dsa < 0) {
+                    decliners++;
+                } else {
+                    unchanged++;
+                }
+            }
+        }
+
+        private void addPriceVolume(long high, long low) {
+            long sum = priceVolumeLow + low;
+            // 無號加法的進位 Carry of the unsigned addition
+            long carry = Long.compareUnsigned(sum, priceVolumeLow) < 0 ? 1 : 0;
+            priceVolumeLow = sum;
+            priceVolumeHigh += high + carry;
+        }
+
+        // 產生新的累加器，不修改兩者 Returns a new accumulator and leaves both inputs unchanged
+        Group merge(Group other) {
+            Group merged = new Group();
+            merged.stocks = stocks + other.stocks;
+            merged.marketCap = marketCap + other.marketCap;
+            merged.priceVolumeHigh = priceVolumeHigh;
+            merged.priceVolumeLow = priceVolumeLow;
+            merged.addPriceVolume(other.priceVolumeHigh, other.priceVolumeLow);
+            merged.volume = volume + other.volume;
+            merged.peRatios = Arrays.copyOf(peRatios, peCount + other.peCount);
+            System.arraycopy(other.peRatios, 0, merged.peRatios, peCount, other.peCount);
+            merged.peCount = peCount + other.peCount;
+            merged.peSum = peSum + other.peSum;
+            merged.advancers = advancers + other.advancers;
+            merged.decliners = decliners + other.decliners;
+            merged.unchanged = unchanged + other.unchanged;
+            return merged;
+        }
+
+        SectorStats toStats(LocalDate date, String sector) {
+            BigDecimal vwap = null;
+            if (volume != 0) {
+                BigInteger priceVolume = BigInteger.valueOf(priceVolumeHigh).shiftLeft(64)
+                        .add(new BigInteger(Long.toUnsignedString(priceVolumeLow)));
+                vwap = new BigDecimal(priceVolume, FixedPoint.PRICE_SCALE)
+                        .divide(BigDecimal.valueOf(volume), FixedPoint.PRICE_SCALE, RoundingMode.HALF_UP);
+            }
+
+            BigDecimal mean = null;
+            BigDecimal median = null;
+            if (peCount > 0) {
+                mean = FixedPoint.toBigDecimal(FixedPoint.divideHalfUp(peSum, peCount), FixedPoint.PRICE_SCALE);
+                int[] sorted = Arrays.copyOf(peRatios, peCount);
+                Arrays.sort(sorted);
+                int middle = peCount / 2;
+                long medianValue = peCount % 2 == 1
+                        ? sorted[middle]
+                        : FixedPoint.divideHalfUp((long) sorted[middle - 1] + sorted[middle], 2);
+                median = FixedPoint.toBigDecimal(medianValue, FixedPoint.PRICE_SCALE);
+            }
+
+            return new SectorStats(date, sector, stocks, FixedPoint.toBigDecimal(marketCap, FixedPoint.PRICE_SCALE),
+                    vwap, mean, median, advancers, decliners, unchanged);
+        }
+    }
+}
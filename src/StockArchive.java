@@ -0,0 +1,509 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+/**
+ * 壓縮歷史資料封存檔
+ * Compressed Historical Archive
+ *
+ * 冷資料的精簡儲存格式。每支股票一個區塊，可單獨解碼，讀取一支股票只需讀取該區塊；
+ * 檔尾的索引依股票代碼排序，記錄各區塊的位置與 CRC32。區塊內逐列編碼：
+ * 交易日為與前一日的差值；開高低收為相對前一日收盤價的定點數差值，以 zigzag varint 儲存；
+ * 市值、本益比、殖利率為與前一列的差值；DSA 與5日均線（相對當日收盤價）一併保存，解碼後不需重算。
+ * 股票名稱與行業別以全檔共用的字典編碼；逐列的行業別以連續相同值的區段（run）記錄。
+ * A compact format for cold history. Each stock is one block that decodes on its own, so
+ * reading one stock touches only its block; the index at the end of the file is sorted by
+ * stock id and records each block's position and CRC32. Rows are encoded in turn: the trade
+ * date as the gap from the previous date; open, high, low and close as fixed-point deltas from
+ * the previous close, stored as zigzag varints; market cap, P/E and dividend yield as deltas
+ * from the previous row. DSA and the 5-day MA (relative to the day's close) are kept, so a
+ * decoded series needs no recompute. Stock names and sectors use a file-wide dictionary, and
+ * each row's sector is stored as runs of equal values.
+ *
+ * 差值以二補數環繞運算，NULL 值（{@link FixedPoint#NULL_LONG}）亦可無損還原。
+ * Deltas use wrapping two's-complement arithmetic, so NULL values
+ * ({@link FixedPoint#NULL_LONG}) round-trip losslessly.
+ *
+ * 檔案格式（little-endian） File layout, little-endian:
+ * <pre>
+ *   檔頭 header (40 bytes): magic "STOCKARC", int version, int series count, long total rows,
+ *                           long dictionary offset, long index offset
+ *   區塊 blocks:     varint rows, varint name index + 1, varint sector index + 1 (0 = null),
+ *                    varint run count, per run varint rows + varint sector index + 1 (version 2+), then rows
+ *   字典 dictionary: int count, then per string int length + UTF-8 bytes
+ *   索引 index:      per series int id, int rows, long offset, int length, int CRC32 (ascending id)
+ * </pre>
+ * 版本1沒有行業別區段，解碼後每列使用區塊開頭的行業別。
+ * Version 1 has no sector runs; every row of a version 1 block gets the block's sector.
+ */
+public class StockArchive implements Closeable {
+
+    /** 檔案格式版本 File format version */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte[] MAGIC = "STOCKARC".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_BYTES = 40;
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    /**
+     * 封存檔無效（格式、版本或校驗碼錯誤）
+     * The archive is invalid: bad format, version or checksum
+     */
+    public static class CorruptArchiveException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public CorruptArchiveException(String message) {
+            super(message);
+        }
+    }
+
+    private final FileChannel channel;
+    private final int version;
+    private final String[] strings;
+    private final int[] ids;
+    private final int[] rowCounts;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] crcs;
+    private final long totalRows;
+
+    private StockArchive(FileChannel channel, int version, String[] strings, int[] ids, int[] rowCounts,
+                         long[] offsets, int[] lengths, int[] crcs, long totalRows) {
+        this.channel = channel;
+        this.version = version;
+        this.strings = strings;
+        this.ids = ids;
+        this.rowCounts = rowCounts;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.crcs = crcs;
+        this.totalRows = totalRows;
+    }
+
+    /**
+     * 寫入封存檔；先寫到暫存檔，再以原子方式取代目標檔案。store 必須已 seal
+     * Write an archive to a temporary file, then atomically move it over the target. The store must be sealed
+     */
+    public static void write(StockSeriesStore store, Path file) throws IOException {
+        int[] stockIds = store.getStockIds();
+        List<byte[]> dictionary = new ArrayList<>();
+        Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer index = ByteBuffer.allocate(stockIds.length * INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long position = HEADER_BYTES;
+            long rows = 0;
+            VarintWriter block = new VarintWriter();
+            CRC32 crc = new CRC32();
+
+            for (int id : stockIds) {
+                StockSeries series = store.getSeries(id);
+                if (!series.isSorted()) {
+                    throw new IllegalStateException("序列尚未排序，請先呼叫 seal() Series not sealed: " + id);
+                }
+                block.reset();
+                int[] sectorMap = new int[series.getSectorCount()];
+                for (int local = 0; local < sectorMap.length; local++) {
+                    sectorMap[local] = intern(series.getSectorName(local), dictionary, dictionaryIndex);
+                }
+                encode(series, block,
+                        intern(series.getStockName(), dictionary, dictionaryIndex),
+                        intern(series.getSector(), dictionary, dictionaryIndex), sectorMap);
+                crc.reset();
+                crc.update(block.bytes, 0, block.size);
+                index.putInt(id).putInt(series.size()).putLong(position).putInt(block.size).putInt((int) crc.getValue());
+                position += writeFully(out, ByteBuffer.wrap(block.bytes, 0, block.size), position);
+                rows += series.size();
+            }
+
+            long dictionaryOffset = position;
+            int dictionaryBytes = Integer.BYTES;
+            for (byte[] string : dictionary) {
+                dictionaryBytes += Integer.BYTES + string.length;
+            }
+            ByteBuffer strings = ByteBuffer.allocate(dictionaryBytes).order(ByteOrder.LITTLE_ENDIAN);
+            strings.putInt(dictionary.size());
+            for (byte[] string : dictionary) {
+                strings.putInt(string.length).put(string);
+            }
+            position += writeFully(out, strings.flip(), position);
+
+            long indexOffset = position;
+            writeFully(out, index.flip(), position);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC)
+                  .putInt(FORMAT_VERSION)
+                  .putInt(stockIds.length)
+                  .putLong(rows)
+                  .putLong(dictionaryOffset)
+                  .putLong(indexOffset);
+            writeFully(out, header.flip(), 0);
+            out.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 開啟封存檔，只讀取檔頭、字典與索引
+     * Open an archive, reading only the header, dictionary and index
+     */
+    public static StockArchive open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new CorruptArchiveException("檔案過短 File too short: " + fileSize + " bytes");
+            }
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new CorruptArchiveException("不是封存檔 Not an archive file");
+            }
+            int version = header.getInt();
+            if (version > FORMAT_VERSION) {
+                throw new CorruptArchiveException("不支援的版本 Unsupported archive version " + version
+                        + " (this build reads up to " + FORMAT_VERSION + ")");
+            }
+            int seriesCount = header.getInt();
+            long totalRows = header.getLong();
+            long dictionaryOffset = header.getLong();
+            long indexOffset = header.getLong();
+            if (seriesCount < 0 || dictionaryOffset < HEADER_BYTES || indexOffset < dictionaryOffset
+                    || indexOffset + (long) seriesCount * INDEX_ENTRY_BYTES != fileSize) {
+                throw new CorruptArchiveException("檔頭內容不一致 Inconsistent header");
+            }
+
+            ByteBuffer dictionary = read(channel, dictionaryOffset, (int) (indexOffset - dictionaryOffset));
+            String[] strings;
+            try {
+                strings = new String[dictionary.getInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    byte[] bytes = new byte[dictionary.getInt()];
+                    dictionary.get(bytes);
+                    strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            } catch (RuntimeException e) {
+                throw new CorruptArchiveException("字典格式錯誤 Malformed dictionary: " + e);
+            }
+
+            ByteBuffer index = read(channel, indexOffset, seriesCount * INDEX_ENTRY_BYTES);
+            int[] ids = new int[seriesCount];
+            int[] rowCounts = new int[seriesCount];
+            long[] offsets = new long[seriesCount];
+            int[] lengths = new int[seriesCount];
+            int[] crcs = new int[seriesCount];
+            long rows = 0;
+            for (int i = 0; i < seriesCount; i++) {
+                ids[i] = index.getInt();
+                rowCounts[i] = index.getInt();
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                crcs[i] = index.getInt();
+                if ((i > 0 && ids[i] <= ids[i - 1]) || offsets[i] < HEADER_BYTES
+                        || lengths[i] < 0 || offsets[i] + lengths[i] > dictionaryOffset) {
+                    throw new CorruptArchiveException("索引項目無效 Invalid index entry for stock " + ids[i]);
+                }
+                rows += rowCounts[i];
+            }
+            if (rows != totalRows) {
+                throw new CorruptArchiveException("筆數不符 Row count mismatch: " + rows + " != " + totalRows);
+            }
+            return new StockArchive(channel, version, strings, ids, rowCounts, offsets, lengths, crcs, totalRows);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 只解碼一支股票；不存在時回傳 null
+     * Decode one stock's block only; null when the stock is not in the archive
+     */
+    public StockSeries readSeries(int id) throws IOException {
+        int slot = Arrays.binarySearch(ids, id);
+        return slot < 0 ? null : decodeSlot(slot);
+    }
+
+    /**
+     * 平行解碼所有區塊
+     * Decode every block in parallel
+     */
+    public StockSeriesStore readAll() throws IOException {
+        StockSeries[] series;
+        try {
+            series = IntStream.range(0, ids.length).parallel()
+                    .mapToObj(slot -> {
+                        try {
+                            return decodeSlot(slot);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toArray(StockSeries[]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        StockSeriesStore store = new StockSeriesStore();
+        for (StockSeries s : series) {
+            store.addSeries(s);
+        }
+        return store;
+    }
+
+    public int[] getStockIds() {
+        return ids.clone();
+    }
+
+    /** 一支股票的筆數，不存在時為 0 Rows of one stock, 0 when absent */
+    public int getRowCount(int id) {
+        int slot = Arrays.binarySearch(ids, id);
+        return slot < 0 ? 0 : rowCounts[slot];
+    }
+
+    public int getSeriesCount() { return ids.length; }
+    public long getTotalRows() { return totalRows; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private StockSeries decodeSlot(int slot) throws IOException {
+        ByteBuffer buffer = read(channel, offsets[slot], lengths[slot]);
+        byte[] block = buffer.array();
+        CRC32 crc = new CRC32();
+        crc.update(block, 0, block.length);
+        if ((int) crc.getValue() != crcs[slot]) {
+            throw new CorruptArchiveException("區塊校驗碼錯誤 Checksum mismatch in block of stock " + ids[slot]);
+        }
+        try {
+            return decode(ids[slot], new VarintReader(block), strings, rowCounts[slot], version);
+        } catch (RuntimeException e) {
+            throw new CorruptArchiveException("區塊格式錯誤 Malformed block of stock " + ids[slot] + ": " + e);
+        }
+    }
+
+    private static void encode(StockSeries series, VarintWriter out, int nameIndex, int sectorIndex, int[] sectorMap) {
+        int rows = series.size();
+        out.varint(rows);
+        out.varint(nameIndex + 1);
+        out.varint(sectorIndex + 1);
+
+        // 逐列行業別的區段 Runs of the per-row sector
+        int runs = 0;
+        for (int row = 0; row < rows; row++) {
+            if (row == 0 || series.getSectorIndex(row) != series.getSectorIndex(row - 1)) {
+                runs++;
+            }
+        }
+        out.varint(runs);
+        for (int row = 0; row < rows; ) {
+            int local = series.getSectorIndex(row);
+            int end = row + 1;
+            while (end < rows && series.getSectorIndex(end) == local) {
+                end++;
+            }
+            out.varint(end - row);
+            out.varint(sectorMap[local] + 1);
+            row = end;
+        }
+
+        int previousDate = 0;
+        long previousClose = 0;
+        long previousMarketCap = 0;
+        long previousPe = 0;
+        long previousDividend = 0;
+        for (int row = 0; row < rows; row++) {
+            int date = series.tradeDates[row];
+            long close = series.closePrices[row];
+            // 日期遞增，除第一列外差值為正 Dates ascend, so every gap after the first row is positive
+            out.zigzag((long) date - previousDate);
+            out.zigzag(close - previousClose);
+            out.zigzag(series.openPrices[row] - previousClose);
+            out.zigzag(series.highPrices[row] - previousClose);
+            out.zigzag(series.lowPrices[row] - previousClose);
+            out.zigzag(series.volumes[row]);
+            out.zigzag(series.marketCaps[row] - previousMarketCap);
+            out.zigzag(series.peRatios[row] - previousPe);
+            out.zigzag(series.dividendYields[row] - previousDividend);
+            out.zigzag(series.dsaIndicators[row]);
+            out.zigzag(series.ma5Days[row] - close);
+
+            previousDate = date;
+            previousClose = close;
+            previousMarketCap = series.marketCaps[row];
+            previousPe = series.peRatios[row];
+            previousDividend = series.dividendYields[row];
+        }
+    }
+
+    private static StockSeries decode(int id, VarintReader in, String[] strings, int expectedRows, int version)
+            throws CorruptArchiveException {
+        int rows = (int) in.varint();
+        if (rows != expectedRows) {
+            throw new CorruptArchiveException("區塊筆數不符 Row count mismatch in block of stock " + id);
+        }
+        String name = string(strings, (int) in.varint() - 1);
+        String sector = string(strings, (int) in.varint() - 1);
+        StockSeries series = new StockSeries(id, name, sector, rows);
+        if (version >= 2) {
+            int runs = (int) in.varint();
+            int row = 0;
+            for (int run = 0; run < runs; run++) {
+                int end = row + (int) in.varint();
+                if (end <= row || end > rows) {
+                    throw new CorruptArchiveException("行業別區段超出範圍 Sector run out of range in block of stock " + id);
+                }
+                int local = series.sectorIndexOf(string(strings, (int) in.varint() - 1));
+                Arrays.fill(series.sectorIndexes, row, end, local);
+                row = end;
+            }
+            if (row != rows) {
+                throw new CorruptArchiveException("行業別區段筆數不符 Sector runs do not cover the block of stock " + id);
+            }
+        }
+
+        int previousDate = 0;
+        long previousClose = 0;
+        long previousMarketCap = 0;
+        long previousPe = 0;
+        long previousDividend = 0;
+        for (int row = 0; row < rows; row++) {
+            int date = (int) (previousDate + in.zigzag());
+            long close = previousClose + in.zigzag();
+            series.tradeDates[row] = date;
+            series.closePrices[row] = close;
+            series.openPrices[row] = previousClose + in.zigzag();
+            series.highPrices[row] = previousClose + in.zigzag();
+            series.lowPrices[row] = previousClose + in.zigzag();
+            series.volumes[row] = in.zigzag();
+            previousMarketCap += in.zigzag();
+            previousPe += in.zigzag();
+            previousDividend += in.zigzag();
+            series.marketCaps[row] = previousMarketCap;
+            series.peRatios[row] = (int) previousPe;
+            series.dividendYields[row] = (int) previousDividend;
+            series.dsaIndicators[row] = in.zigzag();
+            series.ma5Days[row] = close + in.zigzag();
+
+            previousDate = date;
+            previousClose = close;
+        }
+        return series;
+    }
+
+    private static int intern(String value, List<byte[]> dictionary, Map<String, Integer> dictionaryIndex) {
+        if (value == null) {
+            return -1;
+        }
+        return dictionaryIndex.computeIfAbsent(value, v -> {
+            dictionary.add(v.getBytes(StandardCharsets.UTF_8));
+            return dictionary.size() - 1;
+        });
+    }
+
+    private static String string(String[] strings, int index) throws CorruptArchiveException {
+        if (index == -1) {
+            return null;
+        }
+        if (index < 0 || index >= strings.length) {
+            throw new CorruptArchiveException("字典索引超出範圍 Dictionary index out of range: " + index);
+        }
+        return strings[index];
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new CorruptArchiveException("檔案提前結束 Unexpected end of file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return length;
+    }
+
+    /**
+     * 可增長的 varint 輸出緩衝區
+     * Growable varint output buffer
+     */
+    private static final class VarintWriter {
+        byte[] bytes = new byte[4096];
+        int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void varint(long value) {
+            if (size + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+    }
+
+    /**
+     * 由位元組陣列讀取 varint
+     * Reads varints from a byte array
+     */
+    private static final class VarintReader {
+        private final byte[] bytes;
+        private int position;
+
+        VarintReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long zigzag() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("varint 過長 Varint too long at byte " + position);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 精簡股票日線資料
+ * Compact Stock Bar
+ *
+ * 與 {@link StockData} 欄位相同，但數值以資料表小數位數的定點 long/int 儲存，
+ * 日期以 epoch day 儲存，空值以 {@link FixedPoint#NULL_LONG}/{@link FixedPoint#NULL_INT} 表示。
+ * 只在 JDBC 邊界與 BigDecimal 互轉，DSA 與均線計算可直接使用原始型別。
+ * Same fields as {@link StockData}, but numbers are fixed-point long/int values at the
+ * schema's scale, the date is an epoch day and nulls are {@link FixedPoint#NULL_LONG} /
+ * {@link FixedPoint#NULL_INT}. BigDecimal is only used at the JDBC boundary, so DSA and
+ * moving-average math can run on primitives.
+ */
+public class StockBar {
+    private int id;                    // 股票代碼 Stock ID
+    private String stockName;          // 股票名稱 Stock Name
+    private long closePrice;           // 收盤價 DECIMAL(10,2)
+    private long openPrice;            // 開盤價 DECIMAL(10,2)
+    private long highPrice;            // 最高價 DECIMAL(10,2)
+    private long lowPrice;             // 最低價 DECIMAL(10,2)
+    private long volume;               // 成交量 BIGINT
+    private long marketCap;            // 市值 DECIMAL(15,2)
+    private int peRatio;               // 本益比 DECIMAL(8,2)
+    private int dividendYield;         // 股息殖利率 DECIMAL(5,2)
+    private String sector;             // 行業別 Sector
+    private int tradeDate;             // 交易日期 epoch day
+    private long dsaIndicator = FixedPoint.NULL_LONG;  // DSA指標 DECIMAL(10,6)
+    private long ma5Days = FixedPoint.NULL_LONG;       // 5日移動平均 DECIMAL(10,2)
+
+    // 建構子 Constructor
+    public StockBar() {}
+
+    public StockBar(int id, String stockName, long closePrice, long openPrice, long highPrice, long lowPrice,
+                    long volume, long marketCap, int peRatio, int dividendYield, String sector, int tradeDate) {
+        this.id = id;
+        this.stockName = stockName;
+        this.closePrice = closePrice;
+        this.openPrice = openPrice;
+        this.highPrice = highPrice;
+        this.lowPrice = lowPrice;
+        this.volume = volume;
+        this.marketCap = marketCap;
+        this.peRatio = peRatio;
+        this.dividendYield = dividendYield;
+        this.sector = sector;
+        this.tradeDate = tradeDate;
+    }
+
+    /**
+     * 由 StockData 轉換
+     * Convert from StockData
+     */
+    public static StockBar fromStockData(StockData stockData) {
+        StockBar bar = new StockBar(
+            stockData.getId(),
+            stockData.getStockName(),
+            FixedPoint.toLong(stockData.getClosePrice(), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(stockData.getOpenPrice(), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(stockData.getHighPrice(), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(stockData.getLowPrice(), FixedPoint.PRICE_SCALE),
+            stockData.getVolume(),
+            FixedPoint.toLong(stockData.getMarketCap(), FixedPoint.PRICE_SCALE),
+            FixedPoint.toInt(stockData.getPeRatio(), FixedPoint.PRICE_SCALE),
+            FixedPoint.toInt(stockData.getDividendYield(), FixedPoint.PRICE_SCALE),
+            stockData.getSector(),
+            (int) stockData.getTradeDate().toEpochDay());
+        bar.dsaIndicator = FixedPoint.toLong(stockData.getDsaIndicator(), FixedPoint.DSA_SCALE);
+        bar.ma5Days = FixedPoint.toLong(stockData.getMa5Days(), FixedPoint.PRICE_SCALE);
+        return bar;
+    }
+
+    /**
+     * 轉換為 StockData，供 JDBC 寫入使用
+     * Convert to StockData for the JDBC layer
+     */
+    public StockData toStockData() {
+        StockData stockData = new StockData(id, stockName,
+            getClosePriceDecimal(), getOpenPriceDecimal(), getHighPriceDecimal(), getLowPriceDecimal(),
+            volume, getMarketCapDecimal(), getPeRatioDecimal(), getDividendYieldDecimal(),
+            sector, getTradeDateAsLocalDate());
+        stockData.setDsaIndicator(getDsaIndicatorDecimal());
+        stockData.setMa5Days(getMa5DaysDecimal());
+        return stockData;
+    }
+
+    /**
+     * 以原始型別計算DSA指標（6位小數定點數）
+     * Calculate the DSA indicator on primitives (fixed-point, scale 6)
+     */
+    public long calculateDSA() {
+        return FixedPoint.dsa(openPrice, highPrice, lowPrice);
+    }
+
+    // Getter和Setter方法 Getter and Setter methods
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getStockName() { return stockName; }
+    public void setStockName(String stockName) { this.stockName = stockName; }
+
+    public long getClosePrice() { return closePrice; }
+    public void setClosePrice(long closePrice) { this.closePrice = closePrice; }
+
+    public long getOpenPrice() { return openPrice; }
+    public void setOpenPrice(long openPrice) { this.openPrice = openPrice; }
+
+    public long getHighPrice() { return highPrice; }
+    public void setHighPrice(long highPrice) { this.highPrice = highPrice; }
+
+    public long getLowPrice() { return lowPrice; }
+    public void setLowPrice(long lowPrice) { this.lowPrice = lowPrice; }
+
+    public long getVolume() { return volume; }
+    public void setVolume(long volume) { this.volume = volume; }
+
+    public long getMarketCap() { return marketCap; }
+    public void setMarketCap(long marketCap) { this.marketCap = marketCap; }
+
+    public int getPeRatio() { return peRatio; }
+    public void setPeRatio(int peRatio) { this.peRatio = peRatio; }
+
+    public int getDividendYield() { return dividendYield; }
+    public void setDividendYield(int dividendYield) { this.dividendYield = dividendYield; }
+
+    public String getSector() { return sector; }
+    public void setSector(String sector) { this.sector = sector; }
+
+    public int getTradeDate() { return tradeDate; }
+    public void setTradeDate(int tradeDate) { this.tradeDate = tradeDate; }
+
+    public long getDsaIndicator() { return dsaIndicator; }
+    public void setDsaIndicator(long dsaIndicator) { this.dsaIndicator = dsaIndicator; }
+
+    public long getMa5Days() { return ma5Days; }
+    public void setMa5Days(long ma5Days) { this.ma5Days = ma5Days; }
+
+    // BigDecimal 檢視，僅供 JDBC 邊界使用 BigDecimal views for the JDBC boundary
+    public BigDecimal getClosePriceDecimal() { return FixedPoint.toBigDecimal(closePrice, FixedPoint.PRICE_SCALE); }
+    public BigDecimal getOpenPriceDecimal() { return FixedPoint.toBigDecimal(openPrice, FixedPoint.PRICE_SCALE); }
+    public BigDecimal getHighPriceDecimal() { return FixedPoint.toBigDecimal(highPrice, FixedPoint.PRICE_SCALE); }
+    public BigDecimal getLowPriceDecimal() { return FixedPoint.toBigDecimal(lowPrice, FixedPoint.PRICE_SCALE); }
+    public BigDecimal getMarketCapDecimal() { return FixedPoint.toBigDecimal(marketCap, FixedPoint.PRICE_SCALE); }
+    public BigDecimal getPeRatioDecimal() { return FixedPoint.toBigDecimal(peRatio, FixedPoint.PRICE_SCALE); }
+    public BigDecimal getDividendYieldDecimal() { return FixedPoint.toBigDecimal(dividendYield, FixedPoint.PRICE_SCALE); }
+    public BigDecimal getDsaIndicatorDecimal() { return FixedPoint.toBigDecimal(dsaIndicator, FixedPoint.DSA_SCALE); }
+    public BigDecimal getMa5DaysDecimal() { return FixedPoint.toBigDecimal(ma5Days, FixedPoint.PRICE_SCALE); }
+    public LocalDate getTradeDateAsLocalDate() { return LocalDate.ofEpochDay(tradeDate); }
+
+    @Override
+    public String toString() {
+        return String.format("StockBar{id=%d, stockName='%s', tradeDate=%s, closePrice=%s, dsaIndicator=%s}",
+                           id, stockName, getTradeDateAsLocalDate(), getClosePriceDecimal(), getDsaIndicatorDecimal());
+    }
+}
@@ -0,0 +1,360 @@
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * 資料內容雜湊索引
+ * Content-Hash Index of Stored Rows
+ *
+ * 記錄資料庫中每筆 (id, trade_date) 的12個來源欄位的64位元雜湊，讓 {@link StockDataDAO}
+ * 在寫入前略過內容未變的資料列，只送出新增或變動的資料；重新匯入大量重疊的檔案時不再改寫每一列。
+ * 數值以資料表精度（定點數）計算雜湊，因此只有四捨五入後相同的值才視為未變動。
+ * 以開放定址（線性探測）的 long → long 雜湊表實作，每筆約16位元組，不需為每列建立物件。
+ * Holds a 64-bit hash of the 12 source fields of every stored (id, trade_date), so
+ * {@link StockDataDAO} can skip rows whose content did not change and only send new or changed
+ * rows; re-importing a mostly overlapping file no longer rewrites every row. Values are hashed
+ * at the column scale (fixed-point), so only values that round to the same stored value count
+ * as unchanged. It is an open-addressing (linear probing) long → long table at about 16 bytes
+ * per row, with no object per row.
+ *
+ * 由資料庫（{@link #fromDatabase}）或欄式資料（{@link #fromStore}，例如由快照載入）建立。
+ * 兩筆不同內容雜湊相同的機率約為 2⁻⁶⁴。可由多個執行緒共用。
+ * Seed it from the database ({@link #fromDatabase}) or from columnar data ({@link #fromStore},
+ * e.g. restored from a snapshot). Two different contents collide with probability about 2⁻⁶⁴.
+ * Safe to share across threads.
+ *
+ * 寫入失敗回滾時，以 {@link Changes} 還原該批資料記錄前的雜湊與計數，已提交的資料列不受影響。
+ * When a write is rolled back, {@link #undo} restores the hashes and counters the failed batch
+ * had replaced, as recorded in its {@link Changes}; rows that are still committed are untouched.
+ */
+public class StockContentIndex {
+
+    private static final float MAX_LOAD = 0.75f;
+    private static final int MIN_CAPACITY = 16;
+
+    // 鍵為0的項目另外存放，0在表中代表空位 Key 0 is kept aside because 0 marks an empty slot
+    private long[] keys;
+    private long[] hashes;
+    private int size;
+    private boolean hasZeroKey;
+    private long zeroKeyHash;
+
+    private long skipped;
+    private long inserted;
+    private long updated;
+
+    public StockContentIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    public StockContentIndex(int expectedRows) {
+        allocate(capacityFor(expectedRows));
+    }
+
+    /**
+     * 由資料庫目前的內容建立
+     * Build from the current contents of the database
+     */
+    public static StockContentIndex fromDatabase(StockDataDAO dao) throws SQLException {
+        StockContentIndex index = new StockContentIndex(dao.getTotalRecords());
+        dao.forEachStockBar(index::put);
+        System.out.println("✓ 內容索引建立完成 Content index built: " + index.size() + " rows");
+        return index;
+    }
+
+    /**
+     * 由欄式資料建立（例如由快照載入的資料）
+     * Build from columnar data, e.g. a store restored from a snapshot
+     */
+    public static StockContentIndex fromStore(StockSeriesStore store) {
+        StockContentIndex index = new StockContentIndex((int) Math.min(Integer.MAX_VALUE, store.getTotalRows()));
+        for (int id : store.getStockIds()) {
+            StockSeries s = store.getSeries(id);
+            for (int row = 0; row < s.size(); row++) {
+                index.put(key(id, s.tradeDates[row]), contentHash(id, s.getStockName(),
+                        s.closePrices[row], s.openPrices[row], s.highPrices[row], s.lowPrices[row],
+                        s.volumes[row], s.marketCaps[row], s.peRatios[row], s.dividendYields[row],
+                        s.getSector(row), s.tradeDates[row]));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 記錄一筆即將寫入的資料；內容與已存資料相同時回傳 false（應略過），否則更新雜湊並回傳 true
+     * Record a row about to be written. Returns false when its content equals the stored row
+     * (skip it); otherwise stores the new hash and returns true
+     */
+    public boolean record(StockData stockData) {
+        return record(stockData, null);
+    }
+
+    /**
+     * 同 {@link #record(StockData)}，並將被取代的狀態記入 changes，供回滾時 {@link #undo}
+     * Like {@link #record(StockData)}, also logging the replaced state in changes so a rollback can {@link #undo} it
+     */
+    public boolean record(StockData stockData, Changes changes) {
+        long key = key(stockData.getId(), (int) stockData.getTradeDate().toEpochDay());
+        long hash = contentHash(stockData);
+        synchronized (this) {
+            int slot = find(key);
+            if (slot >= 0 && hashAt(slot, key) == hash) {
+                skipped++;
+                return false;
+            }
+            if (slot >= 0) {
+                updated++;
+            } else {
+                inserted++;
+            }
+            if (changes != null) {
+                changes.add(key, slot >= 0, slot >= 0 ? hashAt(slot, key) : 0);
+            }
+            put(key, hash);
+            return true;
+        }
+    }
+
+    /**
+     * 記錄已存在於資料庫的一筆資料
+     * Record a row that is already stored
+     */
+    public void put(StockBar bar) {
+        put(key(bar.getId(), bar.getTradeDate()), contentHash(bar));
+    }
+
+    /**
+     * 還原 changes 中尚未提交的記錄（寫入回滾後），並清空 changes
+     * Revert the uncommitted records in changes after a rolled-back write, then clear changes
+     */
+    public synchronized void undo(Changes changes) {
+        for (int i = changes.size - 1; i >= 0; i--) {
+            if (changes.existed[i]) {
+                put(changes.keys[i], changes.previousHashes[i]);
+                updated--;
+            } else {
+                remove(changes.keys[i]);
+                inserted--;
+            }
+        }
+        changes.clear();
+    }
+
+    /**
+     * 清空索引（例如清空資料表後）
+     * Drop every entry, e.g. after the table was cleared
+     */
+    public synchronized void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    public synchronized boolean contains(int id, int epochDay) {
+        return find(key(id, epochDay)) >= 0;
+    }
+
+    public synchronized int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    /** 內容未變而略過的筆數 Rows skipped because their content was unchanged */
+    public synchronized long getSkippedCount() { return skipped; }
+
+    /** 新增的筆數 Rows that were new */
+    public synchronized long getInsertedCount() { return inserted; }
+
+    /** 內容變動的筆數 Rows whose content changed */
+    public synchronized long getUpdatedCount() { return updated; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("StockContentIndex[rows=%d, skipped=%d, inserted=%d, updated=%d]",
+                size(), skipped, inserted, updated);
+    }
+
+    static long key(int id, int epochDay) {
+        return ((long) id << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 12個來源欄位的雜湊（不含DSA與均線），數值以資料表精度計算
+     * Hash of the 12 source fields, excluding DSA and MA, with values at the column scale
+     */
+    public static long contentHash(StockData stockData) {
+        return contentHash(stockData.getId(), stockData.getStockName(),
+                FixedPoint.toLong(stockData.getClosePrice(), FixedPoint.PRICE_SCALE),
+                FixedPoint.toLong(stockData.getOpenPrice(), FixedPoint.PRICE_SCALE),
+                FixedPoint.toLong(stockData.getHighPrice(), FixedPoint.PRICE_SCALE),
+                FixedPoint.toLong(stockData.getLowPrice(), FixedPoint.PRICE_SCALE),
+                stockData.getVolume(),
+                FixedPoint.toLong(stockData.getMarketCap(), FixedPoint.PRICE_SCALE),
+                FixedPoint.toInt(stockData.getPeRatio(), FixedPoint.PRICE_SCALE),
+                FixedPoint.toInt(stockData.getDividendYield(), FixedPoint.PRICE_SCALE),
+                stockData.getSector(),
+                (int) stockData.getTradeDate().toEpochDay());
+    }
+
+    public static long contentHash(StockBar bar) {
+        return contentHash(bar.getId(), bar.getStockName(), bar.getClosePrice(), bar.getOpenPrice(),
+                bar.getHighPrice(), bar.getLowPrice(), bar.getVolume(), bar.getMarketCap(),
+                bar.getPeRatio(), bar.getDividendYield(), bar.getSector(), bar.getTradeDate());
+    }
+
+    private static long contentHash(int id, String stockName, long close, long open, long high, long low,
+                                    long volume, long marketCap, int peRatio, int dividendYield,
+                                    String sector, int tradeDate) {
+        long h = 0x243F6A8885A308D3L;
+        h = mix(h, id);
+        h = mix(h, stringHash(stockName));
+        h = mix(h, close);
+        h = mix(h, open);
+        h = mix(h, high);
+        h = mix(h, low);
+        h = mix(h, volume);
+        h = mix(h, marketCap);
+        h = mix(h, peRatio);
+        h = mix(h, dividendYield);
+        h = mix(h, stringHash(sector));
+        h = mix(h, tradeDate);
+        return finish(h);
+    }
+
+    // null 與空字串須有不同雜湊 null and "" must hash differently
+    private static long stringHash(String value) {
+        return value == null ? 0x9E3779B97F4A7C15L : value.hashCode() * 0xC2B2AE3D27D4EB4FL + value.length();
+    }
+
+    private static long mix(long h, long value) {
+        h ^= finish(value + 0x9E3779B97F4A7C15L);
+        return Long.rotateLeft(h, 27) * 0x94D049BB133111EBL;
+    }
+
+    // splitmix64 的最終混合 Finalizer of splitmix64
+    private static long finish(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // 鍵所在位置，不存在時回傳 -1；鍵0回傳 keys.length Slot of the key, -1 when absent; key 0 maps to keys.length
+    private int find(long key) {
+        if (key == 0) {
+            return hasZeroKey ? keys.length : -1;
+        }
+        int mask = keys.length - 1;
+        for (int slot = (int) finish(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private long hashAt(int slot, long key) {
+        return key == 0 ? zeroKeyHash : hashes[slot];
+    }
+
+    private synchronized void put(long key, long hash) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroKeyHash = hash;
+            return;
+        }
+        int mask = keys.length - 1;
+        int slot = (int) finish(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                hashes[slot] = hash;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        hashes[slot] = hash;
+        if (++size > keys.length * MAX_LOAD) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    // 移除後將同一探測序列的後續項目往前移，不留墓碑 Backward-shift deletion, so no tombstones are needed
+    private void remove(long key) {
+        if (key == 0) {
+            hasZeroKey = false;
+            return;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return;
+        }
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = (int) finish(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                hashes[hole] = hashes[next];
+                hole = next;
+            }
+        }
+        keys[hole] = 0;
+        hashes[hole] = 0;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldHashes = hashes;
+        allocate(capacity);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                put(oldKeys[slot], oldHashes[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        hashes = new long[capacity];
+    }
+
+    private static int capacityFor(int rows) {
+        long needed = (long) Math.ceil(Math.max(rows, 1) / (double) MAX_LOAD) + 1;
+        return (int) Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    /**
+     * 尚未提交的記錄：每筆保存被取代的雜湊，或記錄該鍵原本不存在
+     * Uncommitted records: for each, the hash it replaced, or that the key was absent.
+     * Clear it once the write commits. Not thread-safe; use one per writer
+     */
+    public static class Changes {
+        private long[] keys = new long[MIN_CAPACITY];
+        private long[] previousHashes = new long[MIN_CAPACITY];
+        private boolean[] existed = new boolean[MIN_CAPACITY];
+        private int size;
+
+        private void add(long key, boolean present, long previousHash) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                previousHashes = Arrays.copyOf(previousHashes, size * 2);
+                existed = Arrays.copyOf(existed, size * 2);
+            }
+            keys[size] = key;
+            previousHashes[size] = previousHash;
+            existed[size] = present;
+            size++;
+        }
+
+        /** 寫入提交後呼叫 Call once the write has committed */
+        public void clear() {
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 股票數據實體類
@@ -20,6 +23,18 @@ public class StockData {
     private LocalDate tradeDate;       // 交易日期 Trade Date
     private BigDecimal dsaIndicator;   // DSA指標 DSA Indicator
     private BigDecimal ma5Days;        // 5日移動平均 5-Day Moving Average
+    // 預設指標引擎（Indicators.defaults()）的結果 Results of the default indicator engine, Indicators.defaults()
+    private BigDecimal ema12;          // 12日指數移動平均 12-Day EMA
+    private BigDecimal ema26;          // 26日指數移動平均 26-Day EMA
+    private BigDecimal macd;           // MACD
+    private BigDecimal macdSignal;     // MACD訊號線 MACD Signal
+    private BigDecimal macdHistogram;  // MACD柱狀體 MACD Histogram
+    private BigDecimal rsi14;          // 14日相對強弱指標 14-Day RSI
+    private BigDecimal bollingerUpper; // 布林通道上軌 Bollinger Upper Band
+    private BigDecimal bollingerMiddle; // 布林通道中軌 Bollinger Middle Band
+    private BigDecimal bollingerLower; // 布林通道下軌 Bollinger Lower Band
+    private BigDecimal atr14;          // 14日平均真實區間 14-Day ATR
+    private Map<String, BigDecimal> customIndicators; // 自訂指標，依欄位名稱 Custom indicators by column name
 
     // 建構子 Constructor
     public StockData() {}
@@ -84,6 +99,107 @@ public class StockData {
     public BigDecimal getMa5Days() { return ma5Days; }
     public void setMa5Days(BigDecimal ma5Days) { this.ma5Days = ma5Days; }
 
+    public BigDecimal getEma12() { return ema12; }
+    public void setEma12(BigDecimal ema12) { this.ema12 = ema12; }
+
+    public BigDecimal getEma26() { return ema26; }
+    public void setEma26(BigDecimal ema26) { this.ema26 = ema26; }
+
+    public BigDecimal getMacd() { return macd; }
+    public void setMacd(BigDecimal macd) { this.macd = macd; }
+
+    public BigDecimal getMacdSignal() { return macdSignal; }
+    public void setMacdSignal(BigDecimal macdSignal) { this.macdSignal = macdSignal; }
+
+    public BigDecimal getMacdHistogram() { return macdHistogram; }
+    public void setMacdHistogram(BigDecimal macdHistogram) { this.macdHistogram = macdHistogram; }
+
+    public BigDecimal getRsi14() { return rsi14; }
+    public void setRsi14(BigDecimal rsi14) { this.rsi14 = rsi14; }
+
+    public BigDecimal getBollingerUpper() { return bollingerUpper; }
+    public void setBollingerUpper(BigDecimal bollingerUpper) { this.bollingerUpper = bollingerUpper; }
+
+    public BigDecimal getBollingerMiddle() { return bollingerMiddle; }
+    public void setBollingerMiddle(BigDecimal bollingerMiddle) { this.bollingerMiddle = bollingerMiddle; }
+
+    public BigDecimal getBollingerLower() { return bollingerLower; }
+    public void setBollingerLower(BigDecimal bollingerLower) { this.bollingerLower = bollingerLower; }
+
+    public BigDecimal getAtr14() { return atr14; }
+    public void setAtr14(BigDecimal atr14) { this.atr14 = atr14; }
+
+    /**
+     * {@link IndicatorEngine} 計算的指標值，依欄位名稱（例如 "ema_12"、"rsi_14"）；預設指標對應上方的欄位，
+     * 其他名稱為自訂指標；未計算時為 null
+     * An indicator computed by {@link IndicatorEngine}, by column name such as "ema_12" or "rsi_14".
+     * Default indicators map to the typed fields above and any other name is a custom indicator;
+     * null when not computed
+     */
+    public BigDecimal getIndicator(String column) {
+        switch (column) {
+            case "ema_12": return ema12;
+            case "ema_26": return ema26;
+            case "macd": return macd;
+            case "macd_signal": return macdSignal;
+            case "macd_histogram": return macdHistogram;
+            case "rsi_14": return rsi14;
+            case "bollinger_upper": return bollingerUpper;
+            case "bollinger_middle": return bollingerMiddle;
+            case "bollinger_lower": return bollingerLower;
+            case "atr_14": return atr14;
+            default: return customIndicators == null ? null : customIndicators.get(column);
+        }
+    }
+
+    public void setIndicator(String column, BigDecimal value) {
+        switch (column) {
+            case "ema_12": ema12 = value; break;
+            case "ema_26": ema26 = value; break;
+            case "macd": macd = value; break;
+            case "macd_signal": macdSignal = value; break;
+            case "macd_histogram": macdHistogram = value; break;
+            case "rsi_14": rsi14 = value; break;
+            case "bollinger_upper": bollingerUpper = value; break;
+            case "bollinger_middle": bollingerMiddle = value; break;
+            case "bollinger_lower": bollingerLower = value; break;
+            case "atr_14": atr14 = value; break;
+            default:
+                if (customIndicators == null) {
+                    customIndicators = new LinkedHashMap<>();
+                }
+                customIndicators.put(column, value);
+        }
+    }
+
+    /**
+     * 所有有數值的指標，依欄位名稱：先預設指標，再依設定順序列出自訂指標
+     * Every indicator that has a value, by column name: the default ones first, then custom ones in the order they were set
+     */
+    public Map<String, BigDecimal> getIndicators() {
+        Map<String, BigDecimal> values = new LinkedHashMap<>();
+        putIfPresent(values, "ema_12", ema12);
+        putIfPresent(values, "ema_26", ema26);
+        putIfPresent(values, "macd", macd);
+        putIfPresent(values, "macd_signal", macdSignal);
+        putIfPresent(values, "macd_histogram", macdHistogram);
+        putIfPresent(values, "rsi_14", rsi14);
+        putIfPresent(values, "bollinger_upper", bollingerUpper);
+        putIfPresent(values, "bollinger_middle", bollingerMiddle);
+        putIfPresent(values, "bollinger_lower", bollingerLower);
+        putIfPresent(values, "atr_14", atr14);
+        if (customIndicators != null) {
+            customIndicators.forEach((column, value) -> putIfPresent(values, column, value));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static void putIfPresent(Map<String, BigDecimal> values, String column, BigDecimal value) {
+        if (value != null) {
+            values.put(column, value);
+        }
+    }
+
     /**
      * 計算DSA指標
      * Calculate DSA Indicator
@@ -0,0 +1,251 @@
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 股票查詢結果快取
+ * Stock Query Result Cache
+ *
+ * 快取單一股票的最新N筆與日期區間查詢，以及 {@link StockDataDAO#getSampleData} 的結果；
+ * 容量有上限，超過時淘汰最久未使用的項目（LRU）。寫入時由 {@link StockDataDAO} 依股票代碼失效，
+ * 範例資料跨越所有股票，任何寫入都會使其失效。查詢期間若同一股票被寫入，結果不會放入快取，
+ * 避免舊資料蓋過失效。可由多個執行緒與多個DAO共用。
+ * Caches per-stock latest-N and date-range queries plus {@link StockDataDAO#getSampleData}.
+ * The cache is size-bounded and evicts the least recently used entry. {@link StockDataDAO}
+ * invalidates entries by stock id on every write; sample results span all stocks, so any
+ * write invalidates them. A result loaded while the same stock was being written is returned
+ * but not cached, so a stale read can never outlive the invalidation. Safe to share across
+ * threads and DAOs.
+ *
+ * 回傳的清單不可修改，其中的 {@link StockData} 由所有呼叫者共用，請勿修改。
+ * Returned lists are unmodifiable and their {@link StockData} objects are shared by every
+ * caller, so they must not be mutated.
+ */
+public class StockDataCache {
+
+    /** 預設最大項目數 Default maximum number of cached queries */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    // 跨越所有股票的查詢使用的代碼 Stock id used for queries that span every stock
+    private static final int ALL_STOCKS = Integer.MIN_VALUE;
+
+    private static final byte LATEST = 1;
+    private static final byte RANGE = 2;
+    private static final byte SAMPLE = 3;
+
+    /**
+     * 由資料庫載入查詢結果
+     * Loads a query result from the database
+     */
+    @FunctionalInterface
+    public interface Loader {
+        List<StockData> load() throws SQLException;
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, List<StockData>> entries;
+    private final Map<Integer, Set<Key>> keysByStock = new HashMap<>();
+
+    // 失效版本：每次失效遞增，記錄每支股票最後失效的版本 Bumped on every invalidation; last version per stock
+    private long version;
+    private long allInvalidatedAt;
+    private final Map<Integer, Long> invalidatedAt = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public StockDataCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public StockDataCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("快取容量必須為正數 maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        // 存取順序的LinkedHashMap即為LRU An access-ordered LinkedHashMap is an LRU list
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<StockData>> eldest) {
+                if (size() <= StockDataCache.this.maxEntries) {
+                    return false;
+                }
+                unindex(eldest.getKey());
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 一支股票最新的N筆資料，依日期由新到舊
+     * The latest n rows of one stock, newest first
+     */
+    public List<StockData> getLatest(int stockId, int n, Loader loader) throws SQLException {
+        return get(new Key(stockId, LATEST, n, 0), loader);
+    }
+
+    /**
+     * 一支股票在日期區間內（含首尾）的資料，依日期排序
+     * Rows of one stock between two dates inclusive, in date order
+     */
+    public List<StockData> getRange(int stockId, LocalDate from, LocalDate to, Loader loader) throws SQLException {
+        return get(new Key(stockId, RANGE, from.toEpochDay(), to.toEpochDay()), loader);
+    }
+
+    /**
+     * 跨所有股票的範例資料
+     * Sample rows across every stock
+     */
+    public List<StockData> getSample(int limit, Loader loader) throws SQLException {
+        return get(new Key(ALL_STOCKS, SAMPLE, limit, 0), loader);
+    }
+
+    private List<StockData> get(Key key, Loader loader) throws SQLException {
+        long stamp;
+        synchronized (this) {
+            List<StockData> cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            stamp = version;
+        }
+
+        // 查詢不持有鎖 Query without holding the lock
+        misses.increment();
+        List<StockData> value = Collections.unmodifiableList(loader.load());
+
+        synchronized (this) {
+            if (!invalidatedSince(key.stockId, stamp)) {
+                entries.put(key, value);
+                keysByStock.computeIfAbsent(key.stockId, id -> new HashSet<>()).add(key);
+            }
+        }
+        return value;
+    }
+
+    private boolean invalidatedSince(int stockId, long stamp) {
+        if (stockId == ALL_STOCKS) {
+            return version > stamp;
+        }
+        return allInvalidatedAt > stamp || invalidatedAt.getOrDefault(stockId, 0L) > stamp;
+    }
+
+    /**
+     * 使一支股票的所有快取失效
+     * Invalidate every cached query of one stock
+     */
+    public synchronized void invalidate(int stockId) {
+        version++;
+        invalidatedAt.put(stockId, version);
+        removeStock(stockId);
+        removeStock(ALL_STOCKS);
+    }
+
+    /**
+     * 使多支股票的快取失效
+     * Invalidate the cached queries of several stocks
+     */
+    public synchronized void invalidate(Collection<Integer> stockIds) {
+        if (stockIds.isEmpty()) {
+            return;
+        }
+        version++;
+        for (Integer stockId : stockIds) {
+            invalidatedAt.put(stockId, version);
+            removeStock(stockId);
+        }
+        removeStock(ALL_STOCKS);
+    }
+
+    /**
+     * 清除全部快取（例如清空資料表或全表重算指標後）
+     * Drop every cached query, e.g. after clearing the table or a full indicator recompute
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        allInvalidatedAt = version;
+        invalidations.add(entries.size());
+        entries.clear();
+        keysByStock.clear();
+    }
+
+    private void removeStock(int stockId) {
+        Set<Key> keys = keysByStock.remove(stockId);
+        if (keys != null) {
+            entries.keySet().removeAll(keys);
+            invalidations.add(keys.size());
+        }
+    }
+
+    private void unindex(Key key) {
+        Set<Key> keys = keysByStock.get(key.stockId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByStock.remove(key.stockId);
+            }
+        }
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public int getMaxEntries() { return maxEntries; }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    /** 因寫入而移除的項目數 Entries removed because of writes */
+    public long getInvalidationCount() { return invalidations.sum(); }
+
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StockDataCache[size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, invalidations=%d]",
+                size(), maxEntries, getHitCount(), getMissCount(), getHitRate() * 100, getEvictionCount(), getInvalidationCount());
+    }
+
+    private static final class Key {
+        final int stockId;
+        final byte kind;
+        final long first;
+        final long second;
+
+        Key(int stockId, byte kind, long first, long second) {
+            this.stockId = stockId;
+            this.kind = kind;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return stockId == other.stockId && kind == other.kind && first == other.first && second == other.second;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stockId, kind, first, second);
+        }
+    }
+}
@@ -1,19 +1,146 @@
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.*;
+import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 股票數據資料庫操作類
  * Stock Data Database Operations Class
+ *
+ * {@link StockRepository} 的 MySQL/JDBC 實作。連線設定可用系統屬性 {@code db.url}、{@code db.user}、
+ * {@code db.password} 覆寫，未設定時連線至本機的 stock_db。
+ * The MySQL/JDBC {@link StockRepository}. The connection settings can be overridden with the
+ * {@code db.url}, {@code db.user} and {@code db.password} system properties and default to the
+ * local stock_db.
  */
-public class StockDataDAO {
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/stock_db?useUnicode=true&characterEncoding=utf8mb4&useSSL=false&allowPublicKeyRetrieval=true";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "";
+public class StockDataDAO implements StockRepository {
+
+    /** 連線設定的系統屬性名稱 System property names of the connection settings */
+    public static final String URL_PROPERTY = "db.url";
+    public static final String USER_PROPERTY = "db.user";
+    public static final String PASSWORD_PROPERTY = "db.password";
+
+    private static final String DB_URL = System.getProperty(URL_PROPERTY,
+            "jdbc:mysql://localhost:3306/stock_db?useUnicode=true&characterEncoding=utf8mb4&useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true");
+    private static final String DB_USER = System.getProperty(USER_PROPERTY, "root");
+    private static final String DB_PASSWORD = System.getProperty(PASSWORD_PROPERTY, "");
+
+    // DSA在匯入時計算並一併寫入；收盤價變動時先將 ma_5_days 清為NULL（須排在 close_price 更新之前），供增量計算找出需重算的資料
+    // DSA is computed at ingest and written by the same statement. ma_5_days is reset to NULL when the close
+    // changes so the incremental updater can find it; that assignment must come before close_price is overwritten
+    private static final String INSERT_PREFIX = """
+            INSERT INTO stock_data 
+            (id, stock_name, close_price, open_price, high_price, low_price, 
+             volume, market_cap, pe_ratio, dividend_yield, setor, trade_date, dsa_indicator)
+            VALUES """;
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS_PER_ROW = 13;
+
+    private static final String ON_DUPLICATE_KEY_UPDATE = """
+
+            ON DUPLICATE KEY UPDATE
+            ma_5_days = IF(close_price <=> VALUES(close_price), ma_5_days, NULL),
+            stock_name = VALUES(stock_name),
+            close_price = VALUES(close_price),
+            open_price = VALUES(open_price),
+            high_price = VALUES(high_price),
+            low_price = VALUES(low_price),
+            volume = VALUES(volume),
+            market_cap = VALUES(market_cap),
+            pe_ratio = VALUES(pe_ratio),
+            dividend_yield = VALUES(dividend_yield),
+            setor = VALUES(setor),
+            dsa_indicator = VALUES(dsa_indicator)
+            """;
+
+    private static final String UPSERT_SQL = INSERT_PREFIX + ROW_PLACEHOLDERS + ON_DUPLICATE_KEY_UPDATE;
+
+    /** 預設指標引擎的結果欄位 Result columns of the default indicator engine */
+    private static final List<String> INDICATOR_COLUMNS = IndicatorEngine.withDefaults().getColumns();
+
+    private static final String STOCK_DATA_COLUMNS = "id, stock_name, close_price, open_price, high_price, low_price, volume, "
+            + "market_cap, pe_ratio, dividend_yield, setor, trade_date, dsa_indicator, ma_5_days";
+
+    // StockBar 不含引擎指標，全表掃描只讀取基本欄位 StockBar has no engine indicators, so full scans read only the base columns
+    private static final String STOCK_BAR_SELECT = "SELECT " + STOCK_DATA_COLUMNS + "\nFROM stock_data\n";
+
+    private static final String MA_SELECT_SQL = "SELECT trade_date, close_price FROM stock_data WHERE id = ? ORDER BY trade_date";
+    private static final String MA_UPDATE_SQL = "UPDATE stock_data SET ma_5_days = ? WHERE id = ? AND trade_date = ?";
+
+    /** 串流匯入時每批筆數 Rows per chunk when inserting from a stream */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /** 大量匯入時每個多列INSERT的筆數 Rows per multi-row INSERT statement in bulk mode */
+    public static final int DEFAULT_ROWS_PER_STATEMENT = 500;
+
+    /** 大量匯入時每次提交的語句數 Multi-row statements per commit in bulk mode */
+    public static final int DEFAULT_STATEMENTS_PER_COMMIT = 20;
+
+    /** 指標引擎每頁讀取與提交的股票數，堆積只保留一頁的資料 Stocks read and committed per page by the indicator engine; the heap holds one page of rows */
+    public static final int INDICATOR_PAGE_STOCKS = 100;
 
     private Connection connection;
+    // 資料表中現有的指標欄位，首次讀取 StockData 時載入 Indicator columns present in the table, loaded on the first StockData read
+    private List<String> indicatorColumns;
+    private StockDataCache cache;
+    private StockContentIndex contentIndex;
+    // 內容索引中尚未提交的記錄，回滾時還原 Content-index records not yet committed, reverted on rollback
+    private final StockContentIndex.Changes uncommittedContent = new StockContentIndex.Changes();
+
+    public StockDataDAO() {}
+
+    /**
+     * 使用既有連線（例如由 {@link ConnectionPool} 借出），不需再呼叫 {@link #connect()}
+     * Use an existing connection, e.g. one borrowed from a {@link ConnectionPool}; no {@link #connect()} needed
+     */
+    public StockDataDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * 設定查詢快取；寫入與指標更新會使受影響股票的快取失效。可由多個DAO共用，null 表示不使用快取
+     * Set the query cache; writes and indicator updates invalidate the affected stocks.
+     * The cache may be shared by several DAOs; null disables caching
+     */
+    public void setCache(StockDataCache cache) {
+        this.cache = cache;
+    }
+
+    public StockDataCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 設定內容雜湊索引；設定後寫入時略過內容未變的資料列，只送出新增或變動的資料。可由多個DAO共用，null 表示全部送出
+     * Set the content-hash index. Writes then skip rows whose content is unchanged and only send
+     * new or changed rows. The index may be shared by several DAOs; null sends every row
+     */
+    public void setContentIndex(StockContentIndex contentIndex) {
+        this.contentIndex = contentIndex;
+    }
+
+    public StockContentIndex getContentIndex() {
+        return contentIndex;
+    }
+
+    /**
+     * 以相同連線設定建立連線池
+     * Create a connection pool with the same connection settings
+     */
+    public static ConnectionPool newConnectionPool(int size) throws SQLException {
+        return new ConnectionPool(DB_URL, DB_USER, DB_PASSWORD, size);
+    }
 
     /**
      * 建立資料庫連接
@@ -40,10 +167,16 @@ public class StockDataDAO {
         }
     }
 
+    @Override
+    public void close() throws SQLException {
+        disconnect();
+    }
+
     /**
      * 建立資料表
      * Create table
      */
+    @Override
     public void createTable() throws SQLException {
         String sql = """
             CREATE TABLE IF NOT EXISTS stock_data (
@@ -61,6 +194,16 @@ public class StockDataDAO {
                 trade_date DATE NOT NULL COMMENT '交易日期',
                 dsa_indicator DECIMAL(10, 6) COMMENT 'DSA指標',
                 ma_5_days DECIMAL(10, 2) COMMENT '5日移動平均',
+                ema_12 DECIMAL(14, 4) COMMENT '12日指數移動平均',
+                ema_26 DECIMAL(14, 4) COMMENT '26日指數移動平均',
+                macd DECIMAL(14, 4) COMMENT 'MACD',
+                macd_signal DECIMAL(14, 4) COMMENT 'MACD訊號線',
+                macd_histogram DECIMAL(14, 4) COMMENT 'MACD柱狀體',
+                rsi_14 DECIMAL(14, 4) COMMENT '14日相對強弱指標',
+                bollinger_upper DECIMAL(14, 4) COMMENT '布林通道上軌',
+                bollinger_middle DECIMAL(14, 4) COMMENT '布林通道中軌',
+                bollinger_lower DECIMAL(14, 4) COMMENT '布林通道下軌',
+                atr_14 DECIMAL(14, 4) COMMENT '14日平均真實區間',
                 created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                 updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                 PRIMARY KEY (id, trade_date),
@@ -74,16 +217,73 @@ public class StockDataDAO {
             stmt.execute(sql);
             System.out.println("✓ 資料表建立成功 Table created successfully");
         }
+        // 舊版建立的資料表補上指標欄位 Add the indicator columns to tables created by older versions
+        ensureIndicatorColumns(INDICATOR_COLUMNS);
+    }
+
+    /**
+     * 為指標引擎的結果欄位補上資料表中缺少的欄位（DECIMAL(14,4)），回傳新增的欄數
+     * Add any of the indicator engine's result columns missing from the table as DECIMAL(14,4);
+     * returns how many were added
+     */
+    public int ensureIndicatorColumns(List<String> columns) throws SQLException {
+        Set<String> existing = new HashSet<>(queryColumns(""));
+
+        int added = 0;
+        try (Statement stmt = connection.createStatement()) {
+            for (String column : columns) {
+                if (!existing.contains(column)) {
+                    // 欄位名稱已由 IndicatorEngine 驗證 Column names are validated by IndicatorEngine
+                    stmt.execute("ALTER TABLE stock_data ADD COLUMN " + column + " DECIMAL(14, 4)");
+                    added++;
+                }
+            }
+        }
+        if (added > 0) {
+            indicatorColumns = null;
+            System.out.println("✓ 新增 " + added + " 個指標欄位 Added " + added + " indicator columns");
+        }
+        return added;
+    }
+
+    /**
+     * 資料表中現有的指標欄位（預設引擎與自訂引擎建立的 DECIMAL(14,4) 欄位），依欄位順序；舊版資料表可能沒有任何指標欄位
+     * The indicator columns present in the table, i.e. the DECIMAL(14,4) columns created for the
+     * default or a custom engine, in column order. Tables from older versions may have none
+     */
+    public List<String> getIndicatorColumns() throws SQLException {
+        if (indicatorColumns == null) {
+            indicatorColumns = queryColumns(" AND DATA_TYPE = 'decimal' AND NUMERIC_SCALE = " + FixedPoint.INDICATOR_SCALE);
+        }
+        return indicatorColumns;
+    }
+
+    private List<String> queryColumns(String condition) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        String sql = "SELECT COLUMN_NAME FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'stock_data'"
+                + condition + " ORDER BY ORDINAL_POSITION";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                columns.add(rs.getString(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns;
     }
 
     /**
      * 清空資料表
      * Clear table data
      */
+    @Override
     public void clearTable() throws SQLException {
         String sql = "DELETE FROM stock_data";
         try (Statement stmt = connection.createStatement()) {
             int deletedRows = stmt.executeUpdate(sql);
+            invalidateAll();
+            if (contentIndex != null) {
+                contentIndex.clear();
+            }
             System.out.println("✓ 清空了 " + deletedRows + " 筆舊資料 Cleared " + deletedRows + " old records");
         }
     }
@@ -93,39 +293,19 @@ public class StockDataDAO {
      * Insert stock data
      */
     public void insertStockData(StockData stockData) throws SQLException {
-        String sql = """
-            INSERT INTO stock_data 
-            (id, stock_name, close_price, open_price, high_price, low_price, 
-             volume, market_cap, pe_ratio, dividend_yield, setor, trade_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-            stock_name = VALUES(stock_name),
-            close_price = VALUES(close_price),
-            open_price = VALUES(open_price),
-            high_price = VALUES(high_price),
-            low_price = VALUES(low_price),
-            volume = VALUES(volume),
-            market_cap = VALUES(market_cap),
-            pe_ratio = VALUES(pe_ratio),
-            dividend_yield = VALUES(dividend_yield),
-            setor = VALUES(setor)
-            """;
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, stockData.getId());
-            pstmt.setString(2, stockData.getStockName());
-            pstmt.setBigDecimal(3, stockData.getClosePrice());
-            pstmt.setBigDecimal(4, stockData.getOpenPrice());
-            pstmt.setBigDecimal(5, stockData.getHighPrice());
-            pstmt.setBigDecimal(6, stockData.getLowPrice());
-            pstmt.setLong(7, stockData.getVolume());
-            pstmt.setBigDecimal(8, stockData.getMarketCap());
-            pstmt.setBigDecimal(9, stockData.getPeRatio());
-            pstmt.setBigDecimal(10, stockData.getDividendYield());
-            pstmt.setString(11, stockData.getSector());
-            pstmt.setDate(12, Date.valueOf(stockData.getTradeDate()));
-
+        if (contentIndex != null && !contentIndex.record(stockData, uncommittedContent)) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement(UPSERT_SQL)) {
+            bindStockData(pstmt, stockData);
             pstmt.executeUpdate();
+        } catch (SQLException e) {
+            undoContent();
+            throw e;
+        }
+        commitContent();
+        if (cache != null) {
+            cache.invalidate(stockData.getId());
         }
     }
 
@@ -134,261 +314,1393 @@ public class StockDataDAO {
      * Batch insert stock data
      */
     public void insertStockDataBatch(List<StockData> stockDataList) throws SQLException {
-        String sql = """
-            INSERT INTO stock_data 
-            (id, stock_name, close_price, open_price, high_price, low_price, 
-             volume, market_cap, pe_ratio, dividend_yield, setor, trade_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            ON DUPLICATE KEY UPDATE
-            stock_name = VALUES(stock_name),
-            close_price = VALUES(close_price),
-            open_price = VALUES(open_price),
-            high_price = VALUES(high_price),
-            low_price = VALUES(low_price),
-            volume = VALUES(volume),
-            market_cap = VALUES(market_cap),
-            pe_ratio = VALUES(pe_ratio),
-            dividend_yield = VALUES(dividend_yield),
-            setor = VALUES(setor)
-            """;
+        int count = writeBatch(stockDataList);
+        System.out.println("✓ 批次插入完成，共處理 " + count + " 筆資料 Batch insert completed, processed " + count + " records");
+        printContentSummary();
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            connection.setAutoCommit(false);
+    /**
+     * 以單一交易寫入一批資料，不輸出訊息（供平行寫入使用）
+     * Upsert one batch in a single transaction without console output, for the parallel writers
+     */
+    @Override
+    public int writeBatch(List<StockData> stockDataList) throws SQLException {
+        List<StockData> rows = changedRows(stockDataList);
+        if (rows.isEmpty()) {
+            return 0;
+        }
 
-            for (StockData stockData : stockDataList) {
-                pstmt.setInt(1, stockData.getId());
-                pstmt.setString(2, stockData.getStockName());
-                pstmt.setBigDecimal(3, stockData.getClosePrice());
-                pstmt.setBigDecimal(4, stockData.getOpenPrice());
-                pstmt.setBigDecimal(5, stockData.getHighPrice());
-                pstmt.setBigDecimal(6, stockData.getLowPrice());
-                pstmt.setLong(7, stockData.getVolume());
-                pstmt.setBigDecimal(8, stockData.getMarketCap());
-                pstmt.setBigDecimal(9, stockData.getPeRatio());
-                pstmt.setBigDecimal(10, stockData.getDividendYield());
-                pstmt.setString(11, stockData.getSector());
-                pstmt.setDate(12, Date.valueOf(stockData.getTradeDate()));
+        try (PreparedStatement pstmt = connection.prepareStatement(UPSERT_SQL)) {
+            connection.setAutoCommit(false);
 
+            for (StockData stockData : rows) {
+                bindStockData(pstmt, stockData);
                 pstmt.addBatch();
             }
 
-            int[] results = pstmt.executeBatch();
-            connection.commit();
+            int[] results = executeAndCommit(pstmt, rows.size());
+            commitContent();
             connection.setAutoCommit(true);
-
-            System.out.println("✓ 批次插入完成，共處理 " + results.length + " 筆資料 Batch insert completed, processed " + results.length + " records");
+            invalidate(stockIdsOf(rows));
+            return results.length;
         } catch (SQLException e) {
             connection.rollback();
             connection.setAutoCommit(true);
+            undoContent();
             throw e;
         }
     }
 
     /**
-     * 更新DSA指標
-     * Update DSA indicators
+     * 以固定大小分批插入串流資料，每批提交一次，記憶體用量與檔案大小無關
+     * Insert rows pulled from an iterator in fixed-size chunks, committing each chunk,
+     * so peak memory is bounded by the chunk size rather than the file size
      */
-    public void updateDSAIndicators() throws SQLException {
-        System.out.println("計算DSA指標中... Calculating DSA indicators...");
-
-        String selectSql = "SELECT id, trade_date, open_price, high_price, low_price FROM stock_data ORDER BY id, trade_date";
-        String updateSql = "UPDATE stock_data SET dsa_indicator = ? WHERE id = ? AND trade_date = ?";
+    @Override
+    public int insertStockDataBatch(Iterator<StockData> stockDataIterator, int chunkSize) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
 
-        try (PreparedStatement selectStmt = connection.prepareStatement(selectSql);
-             PreparedStatement updateStmt = connection.prepareStatement(updateSql);
-             ResultSet rs = selectStmt.executeQuery()) {
+        int totalCount = 0;
+        ImportEvents.Stage stage = ImportMetrics.beginStage("insert");
+        ProgressReporter progress = new ProgressReporter("已插入 %d 筆資料... Inserted %d records...");
+        Set<Integer> pendingIds = new HashSet<>();
+        stockDataIterator = changedRows(stockDataIterator);
 
+        try (PreparedStatement pstmt = connection.prepareStatement(UPSERT_SQL)) {
             connection.setAutoCommit(false);
-            int updateCount = 0;
+            int pending = 0;
 
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                Date tradeDate = rs.getDate("trade_date");
-                BigDecimal openPrice = rs.getBigDecimal("open_price");
-                BigDecimal highPrice = rs.getBigDecimal("high_price");
-                BigDecimal lowPrice = rs.getBigDecimal("low_price");
-
-                // 計算DSA Calculate DSA
-                BigDecimal dsa = calculateDSA(openPrice, highPrice, lowPrice);
-
-                updateStmt.setBigDecimal(1, dsa);
-                updateStmt.setInt(2, id);
-                updateStmt.setDate(3, tradeDate);
-                updateStmt.addBatch();
+            while (stockDataIterator.hasNext()) {
+                StockData stockData = stockDataIterator.next();
+                bindStockData(pstmt, stockData);
+                pstmt.addBatch();
+                pendingIds.add(stockData.getId());
+                pending++;
 
-                updateCount++;
-                if (updateCount % 100 == 0) {
-                    updateStmt.executeBatch();
-                    System.out.println("已處理 " + updateCount + " 筆DSA計算... Processed " + updateCount + " DSA calculations...");
+                if (pending == chunkSize) {
+                    executeAndCommit(pstmt, pending);
+                    commitContent();
+                    invalidate(pendingIds);
+                    pendingIds.clear();
+                    totalCount += pending;
+                    pending = 0;
+                    progress.update(totalCount);
                 }
             }
 
-            updateStmt.executeBatch();
-            connection.commit();
+            if (pending > 0) {
+                executeAndCommit(pstmt, pending);
+                commitContent();
+                invalidate(pendingIds);
+                totalCount += pending;
+            }
             connection.setAutoCommit(true);
+            ImportMetrics.endStage(stage, totalCount);
 
-            System.out.println("✓ DSA指標計算完成，共更新 " + updateCount + " 筆資料 DSA calculation completed, updated " + updateCount + " records");
-        } catch (SQLException e) {
+            System.out.println("✓ 串流插入完成，共處理 " + totalCount + " 筆資料 Streaming insert completed, processed " + totalCount + " records");
+            printContentSummary();
+        } catch (SQLException | RuntimeException e) {
+            // 來源迭代器可能丟出 UncheckedIOException 等執行期例外，同樣回滾未提交的分段
+            // The source iterator may throw UncheckedIOException or another runtime exception; roll back the open chunk as well
             connection.rollback();
             connection.setAutoCommit(true);
+            undoContent();
             throw e;
         }
+
+        return totalCount;
     }
 
     /**
-     * 計算DSA指標
-     * Calculate DSA indicator
+     * 以串流方式插入資料
+     * Insert rows from a stream in fixed-size chunks
      */
-    private BigDecimal calculateDSA(BigDecimal openPrice, BigDecimal highPrice, BigDecimal lowPrice) {
-        if (openPrice == null || highPrice == null || lowPrice == null) {
-            return null;
-        }
-
-        BigDecimal highMinusOpen = highPrice.subtract(openPrice);
-        BigDecimal openMinusLow = openPrice.subtract(lowPrice);
-        
-        BigDecimal numerator = highMinusOpen.add(openMinusLow);
-        BigDecimal denominator = highMinusOpen.multiply(highMinusOpen)
-                                            .add(openMinusLow.multiply(openMinusLow));
-        
-        if (denominator.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ZERO;
-        }
-        
-        return numerator.divide(denominator, 6, RoundingMode.HALF_UP);
+    public int insertStockDataBatch(Stream<StockData> stockDataStream, int chunkSize) throws SQLException {
+        return insertStockDataBatch(stockDataStream.iterator(), chunkSize);
     }
 
     /**
-     * 更新5日移動平均
-     * Update 5-day moving averages
+     * 大量匯入結果
+     * Bulk load result
      */
-    public void updateMovingAverages() throws SQLException {
-        System.out.println("計算5日移動平均中... Calculating 5-day moving averages...");
-
-        // 取得所有股票代碼 Get all stock IDs
-        String stockIdsSql = "SELECT DISTINCT id FROM stock_data ORDER BY id";
-        List<Integer> stockIds = new ArrayList<>();
+    public static class BulkLoadResult {
+        private final long rows;
+        private final long elapsedNanos;
 
-        try (PreparedStatement stmt = connection.prepareStatement(stockIdsSql);
-             ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                stockIds.add(rs.getInt("id"));
-            }
+        BulkLoadResult(long rows, long elapsedNanos) {
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
         }
 
-        System.out.println("處理 " + stockIds.size() + " 支股票的移動平均... Processing moving averages for " + stockIds.size() + " stocks...");
+        public long getRows() { return rows; }
+        public long getElapsedNanos() { return elapsedNanos; }
 
-        String selectSql = "SELECT trade_date, close_price FROM stock_data WHERE id = ? ORDER BY trade_date";
-        String updateSql = "UPDATE stock_data SET ma_5_days = ? WHERE id = ? AND trade_date = ?";
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
 
-        try (PreparedStatement selectStmt = connection.prepareStatement(selectSql);
-             PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
+        @Override
+        public String toString() {
+            return String.format("%d rows in %.2f s (%.0f rows/s)", rows, elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
 
-            connection.setAutoCommit(false);
-            int processedStocks = 0;
+    /**
+     * 大量匯入：以多列 INSERT ... VALUES (...),(...) 寫入並分段提交，保留 ON DUPLICATE KEY UPDATE 語意
+     * Bulk load: rows are sent as multi-row INSERT ... VALUES (...),(...) statements and committed
+     * in chunks, keeping the ON DUPLICATE KEY UPDATE semantics of the single-row upsert
+     */
+    public BulkLoadResult bulkInsertStockData(Iterator<StockData> stockDataIterator) throws SQLException {
+        return bulkInsertStockData(stockDataIterator, DEFAULT_ROWS_PER_STATEMENT, DEFAULT_STATEMENTS_PER_COMMIT);
+    }
 
-            for (Integer stockId : stockIds) {
-                selectStmt.setInt(1, stockId);
+    /**
+     * 大量匯入，可設定每個語句的筆數與每次提交的語句數
+     * Bulk load with a configurable number of rows per statement and statements per commit
+     */
+    public BulkLoadResult bulkInsertStockData(Iterator<StockData> stockDataIterator, int rowsPerStatement,
+                                              int statementsPerCommit) throws SQLException {
+        if (rowsPerStatement <= 0 || statementsPerCommit <= 0) {
+            throw new IllegalArgumentException("rowsPerStatement and statementsPerCommit must be positive");
+        }
 
-                List<BigDecimal> prices = new ArrayList<>();
-                List<Date> dates = new ArrayList<>();
+        long start = System.nanoTime();
+        long totalRows = 0;
+        List<StockData> pending = new ArrayList<>(rowsPerStatement);
+        ImportEvents.Stage stage = ImportMetrics.beginStage("bulkLoad");
+        ProgressReporter progress = new ProgressReporter("已匯入 %d 筆資料... Loaded %d records...");
+        Set<Integer> uncommittedIds = new HashSet<>();
+        stockDataIterator = changedRows(stockDataIterator);
 
-                try (ResultSet rs = selectStmt.executeQuery()) {
-                    while (rs.next()) {
-                        prices.add(rs.getBigDecimal("close_price"));
-                        dates.add(rs.getDate("trade_date"));
-                    }
-                }
+        try (PreparedStatement fullStmt = connection.prepareStatement(multiRowUpsertSql(rowsPerStatement))) {
+            connection.setAutoCommit(false);
+            int uncommittedStatements = 0;
 
-                // 計算每一天的5日移動平均 Calculate 5-day MA for each day
-                for (int i = 0; i < prices.size(); i++) {
-                    int startIndex = Math.max(0, i - 4);
-                    BigDecimal sum = BigDecimal.ZERO;
-                    int count = 0;
+            while (stockDataIterator.hasNext()) {
+                pending.add(stockDataIterator.next());
+                if (pending.size() == rowsPerStatement) {
+                    executeMultiRow(fullStmt, pending);
+                    uncommittedIds.addAll(stockIdsOf(pending));
+                    totalRows += pending.size();
+                    pending.clear();
 
-                    for (int j = startIndex; j <= i; j++) {
-                        sum = sum.add(prices.get(j));
-                        count++;
+                    uncommittedStatements++;
+                    if (uncommittedStatements == statementsPerCommit) {
+                        commit();
+                        commitContent();
+                        invalidate(uncommittedIds);
+                        uncommittedIds.clear();
+                        uncommittedStatements = 0;
+                        progress.update(totalRows);
                     }
-
-                    BigDecimal ma5 = sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
-
-                    updateStmt.setBigDecimal(1, ma5);
-                    updateStmt.setInt(2, stockId);
-                    updateStmt.setDate(3, dates.get(i));
-                    updateStmt.addBatch();
                 }
+            }
 
-                processedStocks++;
-                if (processedStocks % 5 == 0) {
-                    updateStmt.executeBatch();
-                    System.out.println("已處理 " + processedStocks + " 支股票... Processed " + processedStocks + " stocks...");
+            // 最後不足一個語句的資料 Remaining rows that do not fill a whole statement
+            if (!pending.isEmpty()) {
+                try (PreparedStatement tailStmt = connection.prepareStatement(multiRowUpsertSql(pending.size()))) {
+                    executeMultiRow(tailStmt, pending);
                 }
+                uncommittedIds.addAll(stockIdsOf(pending));
+                totalRows += pending.size();
             }
 
-            updateStmt.executeBatch();
-            connection.commit();
+            commit();
+            commitContent();
             connection.setAutoCommit(true);
-
-            System.out.println("✓ 5日移動平均計算完成 5-day moving average calculation completed");
-        } catch (SQLException e) {
+            invalidate(uncommittedIds);
+        } catch (SQLException | RuntimeException e) {
+            // 來源迭代器可能丟出 UncheckedIOException 等執行期例外，同樣回滾未提交的分段
+            // The source iterator may throw UncheckedIOException or another runtime exception; roll back the open chunk as well
             connection.rollback();
             connection.setAutoCommit(true);
+            undoContent();
             throw e;
         }
+
+        ImportMetrics.endStage(stage, totalRows);
+        BulkLoadResult result = new BulkLoadResult(totalRows, System.nanoTime() - start);
+        System.out.println("✓ 大量匯入完成 Bulk load completed: " + result);
+        printContentSummary();
+        return result;
     }
 
-    /**
-     * 取得記錄總數
-     * Get total record count
-     */
-    public int getTotalRecords() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM stock_data";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            return 0;
+    private static void executeMultiRow(PreparedStatement pstmt, List<StockData> rows) throws SQLException {
+        for (int i = 0; i < rows.size(); i++) {
+            bindStockData(pstmt, i * COLUMNS_PER_ROW, rows.get(i));
         }
+        long start = System.nanoTime();
+        pstmt.executeUpdate();
+        ImportMetrics.recordBatch(rows.size(), System.nanoTime() - start, -1);
     }
 
     /**
-     * 取得範例資料用於驗證
-     * Get sample data for verification
+     * 執行批次並提交，記錄 executeBatch 與 commit 延遲
+     * Execute the batch and commit, recording executeBatch and commit latency
      */
-    public List<StockData> getSampleData(int limit) throws SQLException {
-        String sql = """
-            SELECT id, stock_name, trade_date, close_price, open_price, high_price, low_price,
-                   dsa_indicator, ma_5_days
-            FROM stock_data 
-            ORDER BY trade_date DESC, id 
-            LIMIT ?
-            """;
+    private int[] executeAndCommit(PreparedStatement pstmt, int rows) throws SQLException {
+        long start = System.nanoTime();
+        int[] results = pstmt.executeBatch();
+        long executed = System.nanoTime();
+        connection.commit();
+        ImportMetrics.recordBatch(rows, executed - start, System.nanoTime() - executed);
+        return results;
+    }
 
-        List<StockData> sampleData = new ArrayList<>();
+    // 提交並記錄延遲 Commit and record its latency
+    private void commit() throws SQLException {
+        long start = System.nanoTime();
+        connection.commit();
+        ImportMetrics.recordCommit(System.nanoTime() - start);
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setInt(1, limit);
+    // 提交後使受影響股票的快取失效 Invalidate the cached queries of the committed stocks
+    private void invalidate(Collection<Integer> stockIds) {
+        if (cache != null) {
+            cache.invalidate(stockIds);
+        }
+    }
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    StockData stockData = new StockData();
-                    stockData.setId(rs.getInt("id"));
-                    stockData.setStockName(rs.getString("stock_name"));
-                    stockData.setTradeDate(rs.getDate("trade_date").toLocalDate());
-                    stockData.setClosePrice(rs.getBigDecimal("close_price"));
-                    stockData.setOpenPrice(rs.getBigDecimal("open_price"));
-                    stockData.setHighPrice(rs.getBigDecimal("high_price"));
-                    stockData.setLowPrice(rs.getBigDecimal("low_price"));
-                    stockData.setDsaIndicator(rs.getBigDecimal("dsa_indicator"));
-                    stockData.setMa5Days(rs.getBigDecimal("ma_5_days"));
+    private void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
 
-                    sampleData.add(stockData);
-                }
+    // 有內容索引時只保留新增或變動的資料列 With a content index, keep only new or changed rows
+    private List<StockData> changedRows(List<StockData> rows) {
+        if (contentIndex == null) {
+            return rows;
+        }
+        List<StockData> changed = new ArrayList<>(rows.size());
+        for (StockData stockData : rows) {
+            if (contentIndex.record(stockData, uncommittedContent)) {
+                changed.add(stockData);
             }
         }
+        return changed;
+    }
+
+    private Iterator<StockData> changedRows(Iterator<StockData> rows) {
+        if (contentIndex == null) {
+            return rows;
+        }
+        StockContentIndex index = contentIndex;
+        StockContentIndex.Changes changes = uncommittedContent;
+        return new Iterator<StockData>() {
+            private StockData next;
 
-        return sampleData;
+            @Override
+            public boolean hasNext() {
+                while (next == null && rows.hasNext()) {
+                    StockData candidate = rows.next();
+                    if (index.record(candidate, changes)) {
+                        next = candidate;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public StockData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                StockData result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    // 已提交的記錄不再需要還原 Records that have committed no longer need undoing
+    private void commitContent() {
+        uncommittedContent.clear();
+    }
+
+    // 回滾後只還原未提交的記錄，已提交的資料列仍留在索引中
+    // After a rollback, revert only the uncommitted records; committed rows stay in the index
+    private void undoContent() {
+        if (contentIndex != null) {
+            contentIndex.undo(uncommittedContent);
+        }
+    }
+
+    private void printContentSummary() {
+        if (contentIndex != null) {
+            System.out.println("  略過未變動 Skipped unchanged: " + contentIndex.getSkippedCount()
+                    + "，新增 inserted: " + contentIndex.getInsertedCount()
+                    + "，更新 updated: " + contentIndex.getUpdatedCount());
+        }
+    }
+
+    private static Set<Integer> stockIdsOf(List<StockData> rows) {
+        Set<Integer> stockIds = new HashSet<>();
+        for (StockData stockData : rows) {
+            stockIds.add(stockData.getId());
+        }
+        return stockIds;
+    }
+
+    /**
+     * 產生 N 列的 INSERT ... ON DUPLICATE KEY UPDATE 語句
+     * Build an INSERT ... ON DUPLICATE KEY UPDATE statement with the given number of rows
+     */
+    static String multiRowUpsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 1)
+                + ON_DUPLICATE_KEY_UPDATE.length());
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.append(ON_DUPLICATE_KEY_UPDATE).toString();
+    }
+
+    /**
+     * 綁定單筆資料至UPSERT語句
+     * Bind one row to the upsert statement parameters
+     */
+    private static void bindStockData(PreparedStatement pstmt, StockData stockData) throws SQLException {
+        bindStockData(pstmt, 0, stockData);
+    }
+
+    /**
+     * 綁定單筆資料至多列語句中第 offset 個參數之後的位置
+     * Bind one row starting after the given parameter offset of a multi-row statement
+     */
+    private static void bindStockData(PreparedStatement pstmt, int offset, StockData stockData) throws SQLException {
+        pstmt.setInt(offset + 1, stockData.getId());
+        pstmt.setString(offset + 2, stockData.getStockName());
+        pstmt.setBigDecimal(offset + 3, stockData.getClosePrice());
+        pstmt.setBigDecimal(offset + 4, stockData.getOpenPrice());
+        pstmt.setBigDecimal(offset + 5, stockData.getHighPrice());
+        pstmt.setBigDecimal(offset + 6, stockData.getLowPrice());
+        pstmt.setLong(offset + 7, stockData.getVolume());
+        pstmt.setBigDecimal(offset + 8, stockData.getMarketCap());
+        pstmt.setBigDecimal(offset + 9, stockData.getPeRatio());
+        pstmt.setBigDecimal(offset + 10, stockData.getDividendYield());
+        pstmt.setString(offset + 11, stockData.getSector());
+        pstmt.setDate(offset + 12, Date.valueOf(stockData.getTradeDate()));
+        pstmt.setBigDecimal(offset + 13, stockData.getDsaIndicator() != null ? stockData.getDsaIndicator() : ingestDSA(stockData));
+    }
+
+    /**
+     * 以資料表精度（2位小數）的價格計算DSA，與事後由資料庫讀回計算的結果相同
+     * Calculate DSA from prices rounded to the column scale, giving the same value as
+     * computing it later from the stored row
+     */
+    static BigDecimal ingestDSA(StockData stockData) {
+        long dsa = FixedPoint.dsa(
+            FixedPoint.toLong(stockData.getOpenPrice(), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(stockData.getHighPrice(), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(stockData.getLowPrice(), FixedPoint.PRICE_SCALE));
+        return FixedPoint.toBigDecimal(dsa, FixedPoint.DSA_SCALE);
+    }
+
+    /**
+     * 以指定模式重新計算DSA與5日移動平均
+     * Recompute DSA and the 5-day moving average with the given mode
+     */
+    @Override
+    public void updateIndicators(IndicatorMode mode) throws SQLException {
+        if (mode == IndicatorMode.SQL) {
+            updateDSAIndicatorsSQL();
+            updateMovingAveragesSQL();
+        } else {
+            updateDSAIndicators();
+            updateMovingAverages();
+        }
+    }
+
+    /**
+     * 在資料庫內重新計算DSA指標
+     * Recompute DSA inside the database
+     *
+     * 不使用 POWER()（回傳 DOUBLE），改以乘法保持 DECIMAL 精確運算；
+     * DECIMAL(?,2) 除以 DECIMAL(?,4) 的結果為6位小數並四捨五入，與 {@link FixedPoint#dsa} 相同。
+     * Uses products instead of POWER(), which returns DOUBLE, so the arithmetic stays exact
+     * DECIMAL; dividing the scale-2 numerator by the scale-4 denominator yields 6 decimals
+     * rounded half up, the same as {@link FixedPoint#dsa}.
+     */
+    public int updateDSAIndicatorsSQL() throws SQLException {
+        System.out.println("在資料庫內計算DSA指標中... Calculating DSA indicators in the database...");
+
+        String sql = """
+                UPDATE stock_data
+                SET dsa_indicator = CASE
+                    WHEN (high_price - open_price) * (high_price - open_price)
+                       + (open_price - low_price) * (open_price - low_price) = 0 THEN 0
+                    ELSE ROUND(((high_price - open_price) + (open_price - low_price))
+                             / ((high_price - open_price) * (high_price - open_price)
+                              + (open_price - low_price) * (open_price - low_price)), 6)
+                END
+                """;
+
+        ImportEvents.Stage stage = ImportMetrics.beginStage("dsaSQL");
+        try (Statement stmt = connection.createStatement()) {
+            int updated = stmt.executeUpdate(sql);
+            invalidateAll();
+            ImportMetrics.endStage(stage, updated);
+            System.out.println("✓ DSA指標計算完成，共更新 " + updated + " 筆資料 DSA calculation completed, updated " + updated + " records");
+            return updated;
+        }
+    }
+
+    /**
+     * 在資料庫內以視窗函數重新計算5日移動平均，單一 UPDATE ... JOIN 完成
+     * Recompute the 5-day moving average inside the database with a window function in one UPDATE ... JOIN
+     *
+     * ROWS 4 PRECEDING 在序列開頭只平均可用天數，與 {@link RollingWindows#movingAverage} 相同。
+     * 需要 MySQL 8.0 以上。
+     * ROWS 4 PRECEDING averages the days available at the start of a series, matching
+     * {@link RollingWindows#movingAverage}. Requires MySQL 8.0 or later.
+     */
+    public int updateMovingAveragesSQL() throws SQLException {
+        System.out.println("在資料庫內計算5日移動平均中... Calculating 5-day moving averages in the database...");
+
+        String sql = """
+                UPDATE stock_data s
+                JOIN (
+                    SELECT id, trade_date,
+                           ROUND(AVG(close_price) OVER (PARTITION BY id ORDER BY trade_date ROWS 4 PRECEDING), 2) AS ma5
+                    FROM stock_data
+                ) m ON s.id = m.id AND s.trade_date = m.trade_date
+                SET s.ma_5_days = m.ma5
+                """;
+
+        ImportEvents.Stage stage = ImportMetrics.beginStage("movingAverageSQL");
+        try (Statement stmt = connection.createStatement()) {
+            int updated = stmt.executeUpdate(sql);
+            invalidateAll();
+            ImportMetrics.endStage(stage, updated);
+            System.out.println("✓ 5日移動平均計算完成，共更新 " + updated + " 筆資料 5-day moving average completed, updated " + updated + " records");
+            return updated;
+        }
+    }
+
+    /**
+     * 重新計算全部資料的DSA指標；DSA已在匯入時寫入，此方法只用於回補舊資料
+     * Recompute DSA for every row. DSA is now written at insert time, so this pass is
+     * only needed to backfill rows loaded before that
+     */
+    public void updateDSAIndicators() throws SQLException {
+        System.out.println("計算DSA指標中... Calculating DSA indicators...");
+
+        String selectSql = "SELECT id, trade_date, open_price, high_price, low_price FROM stock_data ORDER BY id, trade_date";
+        String updateSql = "UPDATE stock_data SET dsa_indicator = ? WHERE id = ? AND trade_date = ?";
+
+        try (PreparedStatement selectStmt = connection.prepareStatement(selectSql);
+             PreparedStatement updateStmt = connection.prepareStatement(updateSql);
+             ResultSet rs = selectStmt.executeQuery()) {
+
+            connection.setAutoCommit(false);
+            int updateCount = 0;
+            ImportEvents.Stage stage = ImportMetrics.beginStage("dsa");
+            ProgressReporter progress = new ProgressReporter("已處理 %d 筆DSA計算... Processed %d DSA calculations...");
+
+            // 以區塊批次計算DSA Compute DSA a block at a time
+            DsaBlock block = new DsaBlock(DEFAULT_CHUNK_SIZE);
+            while (rs.next()) {
+                block.add(rs);
+                updateCount++;
+                if (block.isFull()) {
+                    block.flush(updateStmt);
+                    progress.update(updateCount);
+                }
+            }
+
+            block.flush(updateStmt);
+            commit();
+            connection.setAutoCommit(true);
+            invalidateAll();
+            ImportMetrics.endStage(stage, updateCount);
+
+            System.out.println("✓ DSA指標計算完成，共更新 " + updateCount + " 筆資料 DSA calculation completed, updated " + updateCount + " records");
+        } catch (SQLException e) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+            throw e;
+        }
+    }
+
+    /**
+     * 一個區塊的價格，以 {@link OhlcKernels#dsa} 批次計算DSA後加入 UPDATE 批次；
+     * 價格欄位為2位小數，結果與 {@link #calculateDSA} 相同
+     * One block of prices whose DSA is computed in bulk by {@link OhlcKernels#dsa} and then added
+     * to the UPDATE batch. The price columns have scale 2, so results equal {@link #calculateDSA}
+     */
+    private static final class DsaBlock {
+        private final int[] ids;
+        private final Date[] tradeDates;
+        private final long[] openPrices;
+        private final long[] highPrices;
+        private final long[] lowPrices;
+        private final long[] dsa;
+        private int size;
+
+        DsaBlock(int capacity) {
+            ids = new int[capacity];
+            tradeDates = new Date[capacity];
+            openPrices = new long[capacity];
+            highPrices = new long[capacity];
+            lowPrices = new long[capacity];
+            dsa = new long[capacity];
+        }
+
+        /** 讀入目前的資料列，回傳其股票代碼 Read the current row and return its stock id */
+        int add(ResultSet rs) throws SQLException {
+            ids[size] = rs.getInt("id");
+            tradeDates[size] = rs.getDate("trade_date");
+            openPrices[size] = FixedPoint.toLong(rs.getBigDecimal("open_price"), FixedPoint.PRICE_SCALE);
+            highPrices[size] = FixedPoint.toLong(rs.getBigDecimal("high_price"), FixedPoint.PRICE_SCALE);
+            lowPrices[size] = FixedPoint.toLong(rs.getBigDecimal("low_price"), FixedPoint.PRICE_SCALE);
+            return ids[size++];
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        void flush(PreparedStatement updateStmt) throws SQLException {
+            if (size == 0) {
+                return;
+            }
+            OhlcKernels.dsa(openPrices, highPrices, lowPrices, dsa, 0, size);
+            for (int i = 0; i < size; i++) {
+                updateStmt.setBigDecimal(1, FixedPoint.toBigDecimal(dsa[i], FixedPoint.DSA_SCALE));
+                updateStmt.setInt(2, ids[i]);
+                updateStmt.setDate(3, tradeDates[i]);
+                updateStmt.addBatch();
+            }
+            updateStmt.executeBatch();
+            size = 0;
+        }
+    }
+
+    /**
+     * 計算DSA指標
+     * Calculate DSA indicator
+     */
+    static BigDecimal calculateDSA(BigDecimal openPrice, BigDecimal highPrice, BigDecimal lowPrice) {
+        if (openPrice == null || highPrice == null || lowPrice == null) {
+            return null;
+        }
+
+        BigDecimal highMinusOpen = highPrice.subtract(openPrice);
+        BigDecimal openMinusLow = openPrice.subtract(lowPrice);
+        
+        BigDecimal numerator = highMinusOpen.add(openMinusLow);
+        BigDecimal denominator = highMinusOpen.multiply(highMinusOpen)
+                                            .add(openMinusLow.multiply(openMinusLow));
+        
+        if (denominator.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO;
+        }
+        
+        return numerator.divide(denominator, 6, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 更新5日移動平均
+     * Update 5-day moving averages
+     */
+    public void updateMovingAverages() throws SQLException {
+        System.out.println("計算5日移動平均中... Calculating 5-day moving averages...");
+
+        // 取得所有股票代碼 Get all stock IDs
+        List<Integer> stockIds = getStockIds();
+
+        System.out.println("處理 " + stockIds.size() + " 支股票的移動平均... Processing moving averages for " + stockIds.size() + " stocks...");
+
+        try (PreparedStatement selectStmt = connection.prepareStatement(MA_SELECT_SQL);
+             PreparedStatement updateStmt = connection.prepareStatement(MA_UPDATE_SQL)) {
+
+            connection.setAutoCommit(false);
+            int processedStocks = 0;
+            long processedRows = 0;
+            ImportEvents.Stage stage = ImportMetrics.beginStage("movingAverage");
+            ProgressReporter progress = new ProgressReporter("已處理 %d 支股票... Processed %d stocks...");
+
+            for (Integer stockId : stockIds) {
+                long start = System.nanoTime();
+                int rows = addMovingAverageBatch(selectStmt, updateStmt, stockId);
+                ImportMetrics.recordIndicatorPass(stockId, rows, System.nanoTime() - start);
+                processedRows += rows;
+
+                processedStocks++;
+                if (processedStocks % 5 == 0) {
+                    updateStmt.executeBatch();
+                    progress.update(processedStocks);
+                }
+            }
+
+            updateStmt.executeBatch();
+            commit();
+            connection.setAutoCommit(true);
+            invalidateAll();
+            ImportMetrics.endStage(stage, processedRows);
+
+            System.out.println("✓ 5日移動平均計算完成 5-day moving average calculation completed");
+        } catch (SQLException e) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+            throw e;
+        }
+    }
+
+    /**
+     * 讀取一支股票的收盤價，計算5日移動平均並加入更新批次，回傳加入的筆數
+     * Read one stock's closes, compute its 5-day moving average and add the updates to the batch;
+     * returns the number of rows added
+     */
+    private static int addMovingAverageBatch(PreparedStatement selectStmt, PreparedStatement updateStmt, int stockId)
+            throws SQLException {
+        selectStmt.setInt(1, stockId);
+
+        long[] closes = new long[64];
+        List<Date> dates = new ArrayList<>();
+
+        try (ResultSet rs = selectStmt.executeQuery()) {
+            while (rs.next()) {
+                if (dates.size() == closes.length) {
+                    closes = Arrays.copyOf(closes, closes.length * 2);
+                }
+                closes[dates.size()] = FixedPoint.toLong(rs.getBigDecimal("close_price"), FixedPoint.PRICE_SCALE);
+                dates.add(rs.getDate("trade_date"));
+            }
+        }
+
+        // 以累加和一次計算每一天的5日移動平均 Calculate the 5-day MA for each day with a running sum
+        long[] ma5 = RollingWindows.movingAverage(closes, dates.size(), 5);
+
+        for (int i = 0; i < ma5.length; i++) {
+            updateStmt.setBigDecimal(1, FixedPoint.toBigDecimal(ma5[i], FixedPoint.PRICE_SCALE));
+            updateStmt.setInt(2, stockId);
+            updateStmt.setDate(3, dates.get(i));
+            updateStmt.addBatch();
+        }
+        return ma5.length;
+    }
+
+    private List<Integer> getStockIds() throws SQLException {
+        List<Integer> stockIds = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT DISTINCT id FROM stock_data ORDER BY id");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                stockIds.add(rs.getInt("id"));
+            }
+        }
+        return stockIds;
+    }
+
+    /**
+     * 平行更新結果，失敗的股票不影響其他股票
+     * Result of a parallel update; a failed stock does not affect the others
+     */
+    public static class ParallelUpdateResult {
+        private final int updatedStocks;
+        private final long updatedRows;
+        private final Map<Integer, SQLException> failures;
+        private final long elapsedNanos;
+
+        ParallelUpdateResult(int updatedStocks, long updatedRows, Map<Integer, SQLException> failures, long elapsedNanos) {
+            this.updatedStocks = updatedStocks;
+            this.updatedRows = updatedRows;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getUpdatedStocks() { return updatedStocks; }
+        public long getUpdatedRows() { return updatedRows; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /** 失敗的股票代碼與錯誤 Failed stock ids and their errors */
+        public Map<Integer, SQLException> getFailures() { return failures; }
+
+        public boolean hasFailures() { return !failures.isEmpty(); }
+    }
+
+    /**
+     * 平行計算5日移動平均：每支股票在自己的連線與交易中讀取、計算並批次更新
+     * Compute 5-day moving averages in parallel; each stock is read, computed and batch-updated
+     * in its own transaction on a pooled connection
+     *
+     * 可用時使用虛擬執行緒（JDK 21+），否則使用固定大小執行緒池；同時進行的股票數不超過 concurrency。
+     * 單一股票失敗只回滾該股票，並記錄在結果中。
+     * Uses virtual threads when the runtime has them (JDK 21+) and a fixed thread pool otherwise;
+     * at most {@code concurrency} stocks are in flight. A failing stock only rolls back its own
+     * transaction and is reported in the result.
+     */
+    public ParallelUpdateResult updateMovingAveragesParallel(ConnectionPool pool, int concurrency) throws SQLException {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        System.out.println("平行計算5日移動平均中... Calculating 5-day moving averages in parallel...");
+        long start = System.nanoTime();
+
+        List<Integer> stockIds = getStockIds();
+        ImportEvents.Stage stage = ImportMetrics.beginStage("movingAverageParallel");
+        Semaphore permits = new Semaphore(concurrency);
+        Map<Integer, SQLException> failures = new ConcurrentHashMap<>();
+        AtomicInteger updatedStocks = new AtomicInteger();
+        AtomicLong updatedRows = new AtomicLong();
+
+        ExecutorService executor = newTaskExecutor(concurrency);
+        try {
+            for (Integer stockId : stockIds) {
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        updatedRows.addAndGet(updateMovingAveragesForStock(pool, stockId));
+                        updatedStocks.incrementAndGet();
+                        if (cache != null) {
+                            cache.invalidate(stockId);
+                        }
+                    } catch (SQLException e) {
+                        failures.put(stockId, e);
+                    } catch (RuntimeException e) {
+                        failures.put(stockId, new SQLException(e.getMessage(), e));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            // 等待所有股票完成 Wait for every stock to finish
+            permits.acquire(concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("移動平均計算被中斷 Moving average update interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ImportMetrics.endStage(stage, updatedRows.get());
+        ParallelUpdateResult result = new ParallelUpdateResult(updatedStocks.get(), updatedRows.get(),
+                new TreeMap<>(failures), System.nanoTime() - start);
+        for (Map.Entry<Integer, SQLException> failure : result.getFailures().entrySet()) {
+            System.err.println("股票 " + failure.getKey() + " 移動平均更新失敗 Moving average update failed for stock "
+                    + failure.getKey() + ": " + failure.getValue().getMessage());
+        }
+        System.out.println("✓ 5日移動平均計算完成，成功 " + result.getUpdatedStocks() + " 支，失敗 " + result.getFailures().size()
+                + " 支 5-day moving average completed: " + result.getUpdatedStocks() + " stocks updated, "
+                + result.getFailures().size() + " failed");
+        return result;
+    }
+
+    private static int updateMovingAveragesForStock(ConnectionPool pool, int stockId) throws SQLException {
+        Connection conn = pool.borrow();
+        try (PreparedStatement selectStmt = conn.prepareStatement(MA_SELECT_SQL);
+             PreparedStatement updateStmt = conn.prepareStatement(MA_UPDATE_SQL)) {
+            long start = System.nanoTime();
+            conn.setAutoCommit(false);
+            int rows = addMovingAverageBatch(selectStmt, updateStmt, stockId);
+            updateStmt.executeBatch();
+            conn.commit();
+            conn.setAutoCommit(true);
+            ImportMetrics.recordIndicatorPass(stockId, rows, System.nanoTime() - start);
+            return rows;
+        } finally {
+            // 歸還時會回滾未提交的交易 Releasing rolls back anything left uncommitted
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * 可用時建立虛擬執行緒執行器（以反射呼叫，仍可在 JDK 17 編譯），否則建立固定大小執行緒池
+     * Create a virtual-thread-per-task executor when available (looked up reflectively so the
+     * code still builds on JDK 17), otherwise a fixed thread pool
+     */
+    static ExecutorService newTaskExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    /**
+     * 增量更新指標：只計算新增或價格變動的資料列
+     * Incremental indicator update: only rows that are new or whose prices changed
+     */
+    @Override
+    public void updateIndicatorsIncremental() throws SQLException {
+        updateDSAIndicatorsIncremental();
+        updateMovingAveragesIncremental();
+    }
+
+    /**
+     * 增量更新DSA指標，只處理 dsa_indicator 為NULL的舊資料列（新匯入的資料已含DSA）
+     * Incrementally update DSA, touching only older rows whose dsa_indicator is NULL;
+     * newly inserted rows already carry their DSA
+     */
+    public int updateDSAIndicatorsIncremental() throws SQLException {
+        System.out.println("增量計算DSA指標中... Incrementally calculating DSA indicators...");
+
+        String selectSql = "SELECT id, trade_date, open_price, high_price, low_price FROM stock_data WHERE dsa_indicator IS NULL";
+        String updateSql = "UPDATE stock_data SET dsa_indicator = ? WHERE id = ? AND trade_date = ?";
+
+        int updateCount = 0;
+        Set<Integer> updatedIds = new HashSet<>();
+        try (PreparedStatement selectStmt = connection.prepareStatement(selectSql);
+             PreparedStatement updateStmt = connection.prepareStatement(updateSql);
+             ResultSet rs = selectStmt.executeQuery()) {
+
+            connection.setAutoCommit(false);
+
+            DsaBlock block = new DsaBlock(DEFAULT_CHUNK_SIZE);
+            while (rs.next()) {
+                updatedIds.add(block.add(rs));
+                updateCount++;
+                if (block.isFull()) {
+                    block.flush(updateStmt);
+                }
+            }
+
+            block.flush(updateStmt);
+            connection.commit();
+            connection.setAutoCommit(true);
+            invalidate(updatedIds);
+        } catch (SQLException e) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+            throw e;
+        }
+
+        System.out.println("✓ DSA增量計算完成，共更新 " + updateCount + " 筆資料 Incremental DSA completed, updated " + updateCount + " records");
+        return updateCount;
+    }
+
+    /**
+     * 增量更新5日移動平均
+     * Incrementally update the 5-day moving average
+     *
+     * 對每支有 ma_5_days 為NULL資料的股票，從最早的待更新日期開始重算，
+     * 並往前讀取4個交易日作為視窗；只寫回數值有變動的資料列，結果與完整重算相同。
+     * For every stock with a NULL ma_5_days, recompute from its earliest pending date,
+     * reading the 4 preceding trading days to fill the window. Only rows whose value
+     * changed are written, and the result equals a full recompute.
+     */
+    public int updateMovingAveragesIncremental() throws SQLException {
+        String pendingSql = "SELECT id, MIN(trade_date) AS first_date FROM stock_data WHERE ma_5_days IS NULL GROUP BY id";
+        Map<Integer, Date> pending = new LinkedHashMap<>();
+
+        try (PreparedStatement stmt = connection.prepareStatement(pendingSql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                pending.put(rs.getInt("id"), rs.getDate("first_date"));
+            }
+        }
+        return updateMovingAveragesFrom(pending);
+    }
+
+    /**
+     * 只針對指定股票增量更新5日移動平均（例如剛寫入新資料的股票），不掃描其他股票
+     * Incrementally update the 5-day moving average of the given stocks only, e.g. the ones
+     * just written, without scanning any other stock
+     */
+    @Override
+    public int updateMovingAveragesIncremental(Collection<Integer> stockIds) throws SQLException {
+        Map<Integer, Date> pending = new LinkedHashMap<>();
+        List<Integer> ids = new ArrayList<>(stockIds);
+
+        // IN 清單分段，避免單一語句參數過多 Split the IN list so no statement gets too many parameters
+        for (int from = 0; from < ids.size(); from += DEFAULT_ROWS_PER_STATEMENT) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + DEFAULT_ROWS_PER_STATEMENT));
+            String pendingSql = "SELECT id, MIN(trade_date) AS first_date FROM stock_data WHERE ma_5_days IS NULL AND id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") GROUP BY id";
+            try (PreparedStatement stmt = connection.prepareStatement(pendingSql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pending.put(rs.getInt("id"), rs.getDate("first_date"));
+                    }
+                }
+            }
+        }
+        return updateMovingAveragesFrom(pending);
+    }
+
+    // 由每支股票最早的待更新日期開始重算 Recompute each stock from its earliest pending date
+    private int updateMovingAveragesFrom(Map<Integer, Date> pending) throws SQLException {
+        System.out.println("增量計算5日移動平均中... Incrementally calculating 5-day moving averages...");
+
+        String lookbackSql = "SELECT close_price FROM stock_data WHERE id = ? AND trade_date < ? ORDER BY trade_date DESC LIMIT 4";
+        String tailSql = "SELECT trade_date, close_price, ma_5_days FROM stock_data WHERE id = ? AND trade_date >= ? ORDER BY trade_date";
+        String updateSql = "UPDATE stock_data SET ma_5_days = ? WHERE id = ? AND trade_date = ?";
+
+        int updateCount = 0;
+        int batched = 0;
+        Set<Integer> updatedIds = new HashSet<>();
+        try (PreparedStatement lookbackStmt = connection.prepareStatement(lookbackSql);
+             PreparedStatement tailStmt = connection.prepareStatement(tailSql);
+             PreparedStatement updateStmt = connection.prepareStatement(updateSql)) {
+
+            connection.setAutoCommit(false);
+
+            for (Map.Entry<Integer, Date> entry : pending.entrySet()) {
+                int stockId = entry.getKey();
+                Date firstDate = entry.getValue();
+                long start = System.nanoTime();
+
+                // 視窗所需的前4個交易日（由新到舊） The 4 preceding trading days, newest first
+                long[] closes = new long[64];
+                int lookback = 0;
+                lookbackStmt.setInt(1, stockId);
+                lookbackStmt.setDate(2, firstDate);
+                try (ResultSet rs = lookbackStmt.executeQuery()) {
+                    while (rs.next()) {
+                        closes[lookback++] = FixedPoint.toLong(rs.getBigDecimal("close_price"), FixedPoint.PRICE_SCALE);
+                    }
+                }
+                for (int i = 0, j = lookback - 1; i < j; i++, j--) {
+                    long swap = closes[i];
+                    closes[i] = closes[j];
+                    closes[j] = swap;
+                }
+
+                List<Date> dates = new ArrayList<>();
+                List<BigDecimal> storedValues = new ArrayList<>();
+                tailStmt.setInt(1, stockId);
+                tailStmt.setDate(2, firstDate);
+                try (ResultSet rs = tailStmt.executeQuery()) {
+                    while (rs.next()) {
+                        int row = lookback + dates.size();
+                        if (row == closes.length) {
+                            closes = Arrays.copyOf(closes, closes.length * 2);
+                        }
+                        closes[row] = FixedPoint.toLong(rs.getBigDecimal("close_price"), FixedPoint.PRICE_SCALE);
+                        dates.add(rs.getDate("trade_date"));
+                        storedValues.add(rs.getBigDecimal("ma_5_days"));
+                    }
+                }
+
+                // 少於4筆前置資料代表視窗從序列開頭起算，不足5日的平均與完整重算相同
+                // Fewer than 4 lookback rows means the window starts at the series start,
+                // so partial-window averages match a full recompute
+                long[] ma5 = RollingWindows.movingAverage(closes, lookback + dates.size(), 5);
+
+                for (int i = 0; i < dates.size(); i++) {
+                    BigDecimal value = FixedPoint.toBigDecimal(ma5[lookback + i], FixedPoint.PRICE_SCALE);
+                    BigDecimal stored = storedValues.get(i);
+                    if (stored != null && stored.compareTo(value) == 0) {
+                        continue;
+                    }
+
+                    updateStmt.setBigDecimal(1, value);
+                    updateStmt.setInt(2, stockId);
+                    updateStmt.setDate(3, dates.get(i));
+                    updateStmt.addBatch();
+                    updatedIds.add(stockId);
+                    updateCount++;
+                    batched++;
+                }
+                ImportMetrics.recordIndicatorPass(stockId, dates.size(), System.nanoTime() - start);
+
+                if (batched >= 100) {
+                    updateStmt.executeBatch();
+                    batched = 0;
+                }
+            }
+
+            updateStmt.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+            invalidate(updatedIds);
+        } catch (SQLException e) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+            throw e;
+        }
+
+        System.out.println("✓ 5日移動平均增量計算完成，處理 " + pending.size() + " 支股票，更新 " + updateCount
+                + " 筆資料 Incremental MA completed for " + pending.size() + " stocks, updated " + updateCount + " records");
+        return updateCount;
+    }
+
+    /**
+     * 以融合指標引擎計算並寫入所有已註冊指標的欄位
+     * Compute every registered indicator with the fused engine and write its columns
+     *
+     * 每支股票只掃描一次。股票依代碼分頁（每頁 {@link #INDICATOR_PAGE_STOCKS} 支），每頁讀取、計算、
+     * 寫入並提交後才讀取下一頁，堆積用量與資料表大小無關。傳入檢查點時只讀取並更新各股票在檢查點日期之後的資料，
+     * 由前次的狀態接續計算；每頁提交成功後才更新該頁股票的檢查點，呼叫端再自行存檔。失敗時只回滾目前這一頁。
+     * 檢查點假設之前的資料未被修改，修正歷史資料後請以新的檢查點（或 null）完整重算。
+     * Each stock is scanned once. Stocks are paged by id ({@link #INDICATOR_PAGE_STOCKS} per page);
+     * each page is read, computed, written and committed before the next is read, so heap use does
+     * not grow with the table. With a checkpoint, only the rows after each stock's checkpointed
+     * date are read and updated, continuing from the saved state; the checkpoint is advanced for a
+     * page's stocks only after that page commits, and the caller saves it. A failure rolls back the
+     * current page only. A checkpoint assumes earlier rows are unchanged; after correcting history
+     * recompute in full with a fresh checkpoint (or null).
+     */
+    @Override
+    public long updateIndicatorColumns(IndicatorEngine engine, IndicatorEngine.Checkpoint checkpoint) throws SQLException {
+        List<String> columns = engine.getColumns();
+        ensureIndicatorColumns(columns);
+        System.out.println("計算技術指標中... Calculating indicators " + columns + "...");
+
+        StringBuilder sql = new StringBuilder("UPDATE stock_data SET ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns.get(i)).append(" = ?");
+        }
+        sql.append(" WHERE id = ? AND trade_date = ?");
+
+        List<Integer> stockIds = getStockIds();
+        IndicatorEngine.Checkpoint working = checkpoint == null ? null : checkpoint.copy();
+        boolean filtered = working != null && working.size() > 0;
+        if (filtered) {
+            createCheckpointTable(working);
+        }
+
+        ImportEvents.Stage stage = ImportMetrics.beginStage("indicatorEngine");
+        long updateCount = 0;
+        int updatedStocks = 0;
+        try (PreparedStatement selectStmt = connection.prepareStatement(indicatorPageSelect(filtered),
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             PreparedStatement updateStmt = connection.prepareStatement(sql.toString())) {
+            // MySQL驅動程式逐筆串流結果 Ask the MySQL driver to stream rows instead of buffering the result
+            selectStmt.setFetchSize(Integer.MIN_VALUE);
+
+            for (int from = 0; from < stockIds.size(); from += INDICATOR_PAGE_STOCKS) {
+                List<Integer> page = stockIds.subList(from, Math.min(from + INDICATOR_PAGE_STOCKS, stockIds.size()));
+
+                // 先讀完一頁再寫入：串流查詢進行中無法在同一連線執行其他語句
+                // Read the whole page first: no other statement can run on the connection while a streaming query is open
+                StockSeriesStore store = new StockSeriesStore();
+                selectStmt.setInt(1, page.get(0));
+                selectStmt.setInt(2, page.get(page.size() - 1));
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        store.add(readStockBar(rs));
+                    }
+                }
+                store.seal();
+                if (store.getSeriesCount() == 0) {
+                    continue;
+                }
+
+                updateCount += writeIndicatorPage(engine, store, working, updateStmt);
+                updatedStocks += store.getSeriesCount();
+                if (checkpoint != null) {
+                    // working 中只有已提交的股票與原檢查點不同 Only committed stocks differ from the original in working
+                    checkpoint.advanceTo(working);
+                }
+            }
+        } finally {
+            if (filtered) {
+                dropCheckpointTable();
+            }
+        }
+        ImportMetrics.endStage(stage, updateCount);
+
+        System.out.println("✓ 技術指標計算完成，處理 " + updatedStocks + " 支股票，更新 " + updateCount
+                + " 筆資料 Indicators completed for " + updatedStocks + " stocks, updated " + updateCount + " records");
+        return updateCount;
+    }
+
+    /**
+     * 計算一頁股票的指標並以單一交易寫入，回傳更新的筆數
+     * Compute one page of stocks and write their indicators in one transaction; returns the rows updated
+     */
+    private long writeIndicatorPage(IndicatorEngine engine, StockSeriesStore store, IndicatorEngine.Checkpoint working,
+                                    PreparedStatement updateStmt) throws SQLException {
+        int columnCount = engine.getColumns().size();
+        long updateCount = 0;
+        List<Integer> updatedIds = new ArrayList<>();
+        try {
+            connection.setAutoCommit(false);
+            int batched = 0;
+
+            for (int stockId : store.getStockIds()) {
+                long start = System.nanoTime();
+                IndicatorEngine.Result result = engine.compute(store.getSeries(stockId), working);
+                for (int row = 0; row < result.size(); row++) {
+                    for (int column = 0; column < columnCount; column++) {
+                        updateStmt.setBigDecimal(column + 1,
+                                FixedPoint.toBigDecimal(result.getValue(column, row), FixedPoint.INDICATOR_SCALE));
+                    }
+                    updateStmt.setInt(columnCount + 1, stockId);
+                    updateStmt.setDate(columnCount + 2, Date.valueOf(LocalDate.ofEpochDay(result.getTradeDate(row))));
+                    updateStmt.addBatch();
+
+                    if (++batched == DEFAULT_CHUNK_SIZE) {
+                        updateStmt.executeBatch();
+                        batched = 0;
+                    }
+                }
+                ImportMetrics.recordIndicatorPass(stockId, result.size(), System.nanoTime() - start);
+                updateCount += result.size();
+                updatedIds.add(stockId);
+            }
+
+            updateStmt.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+            invalidate(updatedIds);
+            return updateCount;
+        } catch (SQLException e) {
+            updateStmt.clearBatch();
+            connection.rollback();
+            connection.setAutoCommit(true);
+            throw e;
+        }
+    }
+
+    /**
+     * 取得記錄總數
+     * Get total record count
+     */
+    @Override
+    public int getTotalRecords() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM stock_data";
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 以串流方式讀取全部資料並轉為定點數 StockBar，依股票代碼與日期排序
+     * Stream every row as a fixed-point StockBar, ordered by stock id and trade date
+     */
+    @Override
+    public long forEachStockBar(Consumer<StockBar> consumer) throws SQLException {
+        return streamStockBars(STOCK_BAR_SELECT + "ORDER BY id, trade_date", consumer);
+    }
+
+    /**
+     * 一頁股票（id BETWEEN ? AND ?）的查詢；有檢查點時只讀取各股票在檢查點日期之後的資料，
+     * 檢查點沒有記錄的股票讀取全部資料
+     * Query of one page of stocks (id BETWEEN ? AND ?). When filtered, only each stock's rows after
+     * its checkpointed date are read, and every row of stocks the checkpoint has no state for
+     *
+     * 各股票的最後日期寫入暫存表（{@link #createCheckpointTable}）後以 LEFT JOIN 過濾，舊資料不會離開資料庫。
+     * Each stock's last date goes into a temporary table ({@link #createCheckpointTable}) and a
+     * LEFT JOIN filters the rows, so older history never leaves the database.
+     */
+    private static String indicatorPageSelect(boolean filtered) {
+        if (!filtered) {
+            return STOCK_BAR_SELECT + "WHERE id BETWEEN ? AND ?\nORDER BY id, trade_date";
+        }
+        return STOCK_BAR_SELECT + """
+                LEFT JOIN indicator_checkpoint ON indicator_checkpoint.stock_id = stock_data.id
+                WHERE stock_data.id BETWEEN ? AND ?
+                  AND (indicator_checkpoint.stock_id IS NULL OR stock_data.trade_date > indicator_checkpoint.last_trade_date)
+                ORDER BY id, trade_date
+                """;
+    }
+
+    // 將檢查點的各股票最後日期寫入暫存表 Load each stock's checkpointed date into a temporary table
+    private void createCheckpointTable(IndicatorEngine.Checkpoint checkpoint) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                    CREATE TEMPORARY TABLE IF NOT EXISTS indicator_checkpoint (
+                        stock_id INT NOT NULL PRIMARY KEY,
+                        last_trade_date DATE NOT NULL
+                    )""");
+            stmt.execute("DELETE FROM indicator_checkpoint");
+        }
+        try (PreparedStatement insertStmt = connection.prepareStatement(
+                "INSERT INTO indicator_checkpoint (stock_id, last_trade_date) VALUES (?, ?)")) {
+            int batched = 0;
+            for (int stockId : checkpoint.getStockIds()) {
+                insertStmt.setInt(1, stockId);
+                insertStmt.setDate(2, Date.valueOf(LocalDate.ofEpochDay(checkpoint.getLastTradeDate(stockId))));
+                insertStmt.addBatch();
+                if (++batched == DEFAULT_CHUNK_SIZE) {
+                    insertStmt.executeBatch();
+                    batched = 0;
+                }
+            }
+            insertStmt.executeBatch();
+        } catch (SQLException e) {
+            dropCheckpointTable();
+            throw e;
+        }
+    }
+
+    private void dropCheckpointTable() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TEMPORARY TABLE IF EXISTS indicator_checkpoint");
+        }
+    }
+
+    private long streamStockBars(String sql, Consumer<StockBar> consumer) throws SQLException {
+        long count = 0;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL驅動程式逐筆串流結果 Ask the MySQL driver to stream rows instead of buffering the result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(readStockBar(rs));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 由查詢結果讀取一筆 StockBar
+     * Read one StockBar from the current result set row
+     */
+    static StockBar readStockBar(ResultSet rs) throws SQLException {
+        StockBar bar = new StockBar(
+            rs.getInt("id"),
+            rs.getString("stock_name"),
+            FixedPoint.toLong(rs.getBigDecimal("close_price"), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(rs.getBigDecimal("open_price"), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(rs.getBigDecimal("high_price"), FixedPoint.PRICE_SCALE),
+            FixedPoint.toLong(rs.getBigDecimal("low_price"), FixedPoint.PRICE_SCALE),
+            rs.getLong("volume"),
+            FixedPoint.toLong(rs.getBigDecimal("market_cap"), FixedPoint.PRICE_SCALE),
+            FixedPoint.toInt(rs.getBigDecimal("pe_ratio"), FixedPoint.PRICE_SCALE),
+            FixedPoint.toInt(rs.getBigDecimal("dividend_yield"), FixedPoint.PRICE_SCALE),
+            rs.getString("setor"),
+            (int) rs.getDate("trade_date").toLocalDate().toEpochDay());
+        bar.setDsaIndicator(FixedPoint.toLong(rs.getBigDecimal("dsa_indicator"), FixedPoint.DSA_SCALE));
+        bar.setMa5Days(FixedPoint.toLong(rs.getBigDecimal("ma_5_days"), FixedPoint.PRICE_SCALE));
+        return bar;
+    }
+
+    /**
+     * 取得範例資料用於驗證；設定快取時由快取提供
+     * Get sample data for verification, served from the cache when one is set
+     */
+    @Override
+    public List<StockData> getSampleData(int limit) throws SQLException {
+        if (cache != null) {
+            return cache.getSample(limit, () -> querySampleData(limit));
+        }
+        return querySampleData(limit);
+    }
+
+    private List<StockData> querySampleData(int limit) throws SQLException {
+        String sql = """
+            SELECT id, stock_name, trade_date, close_price, open_price, high_price, low_price,
+                   dsa_indicator, ma_5_days
+            FROM stock_data 
+            ORDER BY trade_date DESC, id 
+            LIMIT ?
+            """;
+
+        List<StockData> sampleData = new ArrayList<>();
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    StockData stockData = new StockData();
+                    stockData.setId(rs.getInt("id"));
+                    stockData.setStockName(rs.getString("stock_name"));
+                    stockData.setTradeDate(rs.getDate("trade_date").toLocalDate());
+                    stockData.setClosePrice(rs.getBigDecimal("close_price"));
+                    stockData.setOpenPrice(rs.getBigDecimal("open_price"));
+                    stockData.setHighPrice(rs.getBigDecimal("high_price"));
+                    stockData.setLowPrice(rs.getBigDecimal("low_price"));
+                    stockData.setDsaIndicator(rs.getBigDecimal("dsa_indicator"));
+                    stockData.setMa5Days(rs.getBigDecimal("ma_5_days"));
+
+                    sampleData.add(stockData);
+                }
+            }
+        }
+
+        return sampleData;
+    }
+
+    /**
+     * 取得一支股票最新的N筆資料，依日期由新到舊；設定快取時由快取提供
+     * Get the latest n rows of one stock, newest first, served from the cache when one is set
+     */
+    @Override
+    public List<StockData> getLatestStockData(int stockId, int n) throws SQLException {
+        String sql = stockDataSelect() + "WHERE id = ? ORDER BY trade_date DESC LIMIT ?";
+        StockDataCache.Loader loader = () -> queryStockData(sql, pstmt -> {
+            pstmt.setInt(1, stockId);
+            pstmt.setInt(2, n);
+        });
+        return cache != null ? cache.getLatest(stockId, n, loader) : loader.load();
+    }
+
+    /**
+     * 取得一支股票在日期區間內（含首尾）的資料，依日期排序；設定快取時由快取提供
+     * Get one stock's rows between two dates inclusive, in date order, served from the cache when one is set
+     */
+    @Override
+    public List<StockData> getStockDataRange(int stockId, LocalDate from, LocalDate to) throws SQLException {
+        String sql = stockDataSelect() + "WHERE id = ? AND trade_date BETWEEN ? AND ? ORDER BY trade_date";
+        StockDataCache.Loader loader = () -> queryStockData(sql, pstmt -> {
+            pstmt.setInt(1, stockId);
+            pstmt.setDate(2, Date.valueOf(from));
+            pstmt.setDate(3, Date.valueOf(to));
+        });
+        return cache != null ? cache.getRange(stockId, from, to, loader) : loader.load();
+    }
+
+    @FunctionalInterface
+    private interface ParameterBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    // 基本欄位加上資料表中現有的指標欄位 The base columns plus whichever indicator columns the table has
+    private String stockDataSelect() throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(STOCK_DATA_COLUMNS);
+        for (String column : getIndicatorColumns()) {
+            sql.append(", ").append(column);
+        }
+        return sql.append("\nFROM stock_data\n").toString();
+    }
+
+    private List<StockData> queryStockData(String sql, ParameterBinder binder) throws SQLException {
+        List<StockData> rows = new ArrayList<>();
+        List<String> columns = getIndicatorColumns();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            binder.bind(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readStockData(rs, columns));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 由查詢結果讀取一筆完整的 StockData，含指定的指標欄位
+     * Read one complete StockData, including the given indicator columns, from the current result set row
+     */
+    static StockData readStockData(ResultSet rs, List<String> indicatorColumns) throws SQLException {
+        StockData stockData = new StockData(
+            rs.getInt("id"),
+            rs.getString("stock_name"),
+            rs.getBigDecimal("close_price"),
+            rs.getBigDecimal("open_price"),
+            rs.getBigDecimal("high_price"),
+            rs.getBigDecimal("low_price"),
+            rs.getLong("volume"),
+            rs.getBigDecimal("market_cap"),
+            rs.getBigDecimal("pe_ratio"),
+            rs.getBigDecimal("dividend_yield"),
+            rs.getString("setor"),
+            rs.getDate("trade_date").toLocalDate());
+        stockData.setDsaIndicator(rs.getBigDecimal("dsa_indicator"));
+        stockData.setMa5Days(rs.getBigDecimal("ma_5_days"));
+        for (String column : indicatorColumns) {
+            stockData.setIndicator(column, rs.getBigDecimal(column));
+        }
+        return stockData;
     }
 }
@@ -0,0 +1,181 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 記憶體內股票查詢引擎
+ * In-Memory Stock Query Engine
+ *
+ * 在 {@link StockSeriesStore} 上回答三種查詢，不需要資料庫往返：
+ * 單一股票的日期區間、某日（含）之前最後一筆，以及某日所有股票。
+ * 前兩者在各股票依日期排序的陣列上二分搜尋；後者使用建立時產生的交易日期次要索引
+ * （每個日期對應一段依股票代碼排序的 (序列, 列) 清單），只需一次日期二分搜尋，不需逐一查找每支股票。
+ * Answers three queries over a {@link StockSeriesStore} without a database round trip:
+ * one stock over a date range, the last bar on or before a date, and every stock on a date.
+ * The first two binary-search each stock's date-sorted arrays; the last uses a secondary
+ * index by trade date built up front (for each date, a slice of (series, row) postings in
+ * stock id order), so it costs one binary search over the dates instead of a probe per stock.
+ *
+ * 引擎建立時store必須已 seal；之後store若新增資料，需重新建立引擎。
+ * The store must be sealed when the engine is built; rebuild the engine after appending to the store.
+ */
+public class StockQueryEngine {
+    private final StockSeriesStore store;
+
+    // 交易日期次要索引（CSR格式） Secondary trade-date index in compressed sparse row form
+    private final int[] tradeDates;        // 依序排列的交易日 epoch day Distinct trade dates, ascending
+    private final int[] dateOffsets;       // 第 i 個日期的資料位於 [dateOffsets[i], dateOffsets[i+1]) Postings of date i
+    private final StockSeries[] postingSeries;
+    private final int[] postingRows;
+
+    public StockQueryEngine(StockSeriesStore store) {
+        this.store = store;
+
+        int[] ids = store.getStockIds();
+        StockSeries[] series = new StockSeries[ids.length];
+        long totalRows = 0;
+        for (int i = 0; i < ids.length; i++) {
+            series[i] = store.getSeries(ids[i]);
+            if (!series[i].isSorted()) {
+                throw new IllegalStateException("序列尚未排序，請先呼叫 seal() Series not sealed: " + ids[i]);
+            }
+            totalRows += series[i].size();
+        }
+        if (totalRows > Integer.MAX_VALUE) {
+            throw new IllegalStateException("資料筆數過多 Too many rows for the date index: " + totalRows);
+        }
+
+        // 取出所有不重複的交易日 Collect the distinct trade dates
+        int[] allDates = new int[(int) totalRows];
+        int n = 0;
+        for (StockSeries s : series) {
+            for (int row = 0; row < s.size(); row++) {
+                allDates[n++] = s.getTradeDate(row);
+            }
+        }
+        Arrays.sort(allDates);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || allDates[i] != allDates[i - 1]) {
+                allDates[distinct++] = allDates[i];
+            }
+        }
+        this.tradeDates = Arrays.copyOf(allDates, distinct);
+
+        // 計數排序：依股票代碼順序填入，各日期內自然依代碼排序
+        // Counting sort; filling in stock id order keeps each date's postings sorted by id
+        this.dateOffsets = new int[distinct + 1];
+        for (StockSeries s : series) {
+            for (int row = 0; row < s.size(); row++) {
+                dateOffsets[dateIndex(s.getTradeDate(row)) + 1]++;
+            }
+        }
+        for (int i = 0; i < distinct; i++) {
+            dateOffsets[i + 1] += dateOffsets[i];
+        }
+
+        this.postingSeries = new StockSeries[n];
+        this.postingRows = new int[n];
+        int[] next = Arrays.copyOf(dateOffsets, distinct);
+        for (StockSeries s : series) {
+            for (int row = 0; row < s.size(); row++) {
+                int slot = next[dateIndex(s.getTradeDate(row))]++;
+                postingSeries[slot] = s;
+                postingRows[slot] = row;
+            }
+        }
+    }
+
+    /**
+     * 一支股票在日期區間內（含首尾）的資料，依日期排序
+     * One stock's bars between two dates inclusive, in date order
+     */
+    public List<StockBar> range(int id, LocalDate from, LocalDate to) {
+        return range(id, (int) from.toEpochDay(), (int) to.toEpochDay());
+    }
+
+    public List<StockBar> range(int id, int fromEpochDay, int toEpochDay) {
+        StockSeries series = store.getSeries(id);
+        if (series == null || fromEpochDay > toEpochDay) {
+            return Collections.emptyList();
+        }
+        int start = lowerBound(series, fromEpochDay);
+        int end = upperBound(series, toEpochDay);
+        List<StockBar> bars = new ArrayList<>(Math.max(0, end - start));
+        for (int row = start; row < end; row++) {
+            bars.add(series.getBar(row));
+        }
+        return bars;
+    }
+
+    /**
+     * 一支股票在指定日期（含）之前的最後一筆資料，不存在時回傳 null
+     * One stock's last bar on or before the date, or null when there is none
+     */
+    public StockBar asOf(int id, LocalDate date) {
+        return asOf(id, (int) date.toEpochDay());
+    }
+
+    public StockBar asOf(int id, int epochDay) {
+        StockSeries series = store.getSeries(id);
+        if (series == null) {
+            return null;
+        }
+        int row = upperBound(series, epochDay) - 1;
+        return row < 0 ? null : series.getBar(row);
+    }
+
+    /**
+     * 指定日期所有股票的資料，依股票代碼排序；非交易日回傳空清單
+     * Every stock's bar on the date in stock id order; empty on a non-trading date
+     */
+    public List<StockBar> allStocksOn(LocalDate date) {
+        return allStocksOn((int) date.toEpochDay());
+    }
+
+    public List<StockBar> allStocksOn(int epochDay) {
+        int index = Arrays.binarySearch(tradeDates, epochDay);
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+        List<StockBar> bars = new ArrayList<>(dateOffsets[index + 1] - dateOffsets[index]);
+        for (int slot = dateOffsets[index]; slot < dateOffsets[index + 1]; slot++) {
+            bars.add(postingSeries[slot].getBar(postingRows[slot]));
+        }
+        return bars;
+    }
+
+    /**
+     * 所有交易日（epoch day），依序排列
+     * Every trade date as an epoch day, ascending
+     */
+    public int[] getTradeDates() {
+        return tradeDates.clone();
+    }
+
+    public int[] getStockIds() {
+        return store.getStockIds();
+    }
+
+    public StockSeriesStore getStore() {
+        return store;
+    }
+
+    private int dateIndex(int epochDay) {
+        return Arrays.binarySearch(tradeDates, epochDay);
+    }
+
+    // 第一個日期 >= epochDay 的位置 First row whose date is >= epochDay
+    private static int lowerBound(StockSeries series, int epochDay) {
+        int index = series.indexOf(epochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // 第一個日期 > epochDay 的位置 First row whose date is > epochDay
+    private static int upperBound(StockSeries series, int epochDay) {
+        int index = series.indexOf(epochDay);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
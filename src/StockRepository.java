@@ -0,0 +1,102 @@
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 股票資料儲存介面
+ * Stock Data Repository
+ *
+ * 匯入、指標更新與查詢共用的儲存操作。{@link StockDataDAO} 以 JDBC 寫入 MySQL；
+ * {@link InMemoryStockRepository} 將資料保存在記憶體中的欄式序列，不需資料庫伺服器，
+ * 適合回測、基準測試與測試。以 {@link StorageBackend} 依設定選擇實作。
+ * The storage operations shared by import, indicator updates and queries. {@link StockDataDAO}
+ * writes to MySQL through JDBC; {@link InMemoryStockRepository} keeps the rows in in-memory
+ * columnar series and needs no database server, for backtests, benchmarks and tests. Pick an
+ * implementation from configuration with {@link StorageBackend}.
+ *
+ * 寫入皆為 UPSERT：相同 (id, trade_date) 的資料以最後寫入者為準，DSA 於寫入時計算。
+ * Every write is an upsert: the last write of an (id, trade_date) wins, and DSA is computed on write.
+ */
+public interface StockRepository extends AutoCloseable {
+
+    /**
+     * 建立資料表（已存在時不變更資料）
+     * Create the table, keeping any existing data
+     */
+    void createTable() throws SQLException;
+
+    /**
+     * 清空所有資料
+     * Delete every row
+     */
+    void clearTable() throws SQLException;
+
+    /**
+     * 以單一交易寫入一批資料，不輸出訊息，回傳寫入的筆數
+     * Upsert one batch in a single transaction without console output; returns the rows written
+     */
+    int writeBatch(List<StockData> stockDataList) throws SQLException;
+
+    /**
+     * 以固定大小分批寫入串流資料，每批提交一次，回傳處理的筆數
+     * Upsert rows pulled from an iterator in fixed-size chunks, committing each chunk; returns the rows processed
+     */
+    int insertStockDataBatch(Iterator<StockData> stockDataIterator, int chunkSize) throws SQLException;
+
+    /**
+     * 重新計算全部的DSA與5日移動平均
+     * Recompute DSA and the 5-day moving average for every row
+     */
+    void updateIndicators(IndicatorMode mode) throws SQLException;
+
+    /**
+     * 只計算新增或價格變動的資料列的指標
+     * Update the indicators of only the rows that are new or whose prices changed
+     */
+    void updateIndicatorsIncremental() throws SQLException;
+
+    /**
+     * 只針對指定股票增量更新5日移動平均，回傳數值有變動的筆數
+     * Incrementally update the 5-day moving average of the given stocks; returns the rows whose value changed
+     */
+    int updateMovingAveragesIncremental(Collection<Integer> stockIds) throws SQLException;
+
+    /**
+     * 以融合指標引擎計算並寫入所有已註冊指標；檢查點在寫入成功後才更新，回傳更新的筆數
+     * Compute and store every registered indicator with the fused engine. The checkpoint is only
+     * advanced once the values are stored; returns the rows updated
+     */
+    long updateIndicatorColumns(IndicatorEngine engine, IndicatorEngine.Checkpoint checkpoint) throws SQLException;
+
+    int getTotalRecords() throws SQLException;
+
+    /**
+     * 依股票代碼與日期順序走訪全部資料，回傳筆數
+     * Visit every row as a StockBar ordered by stock id and trade date; returns the row count
+     */
+    long forEachStockBar(Consumer<StockBar> consumer) throws SQLException;
+
+    /**
+     * 最新交易日的資料，依日期由新到舊、再依股票代碼排序
+     * Rows of the latest trade dates, newest first and then by stock id
+     */
+    List<StockData> getSampleData(int limit) throws SQLException;
+
+    /**
+     * 一支股票最新的N筆資料，依日期由新到舊
+     * The latest n rows of one stock, newest first
+     */
+    List<StockData> getLatestStockData(int stockId, int n) throws SQLException;
+
+    /**
+     * 一支股票在日期區間內（含首尾）的資料，依日期排序
+     * One stock's rows between two dates inclusive, in date order
+     */
+    List<StockData> getStockDataRange(int stockId, LocalDate from, LocalDate to) throws SQLException;
+
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,283 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 單一股票的欄式時間序列
+ * Columnar Time Series of One Stock
+ *
+ * 每個欄位為依交易日期排序的原始型別陣列，數值使用 {@link FixedPoint} 的定點表示，
+ * 日期為 epoch day。名稱以最後寫入的值為準；行業別逐列保存為本序列行業別字典的索引，
+ * 股票變更行業別前的資料列仍屬原行業別。
+ * Each column is a primitive array sorted by trade date; numbers use the fixed-point
+ * representation of {@link FixedPoint} and dates are epoch days. The name keeps the most
+ * recently appended value; the sector is kept per row as an index into the series' own
+ * dictionary of sectors, so rows from before a change of sector keep their old sector.
+ *
+ * 新增資料後須呼叫 {@link #seal()} 才能依日期查詢；依日期遞增附加時不需重新排序。
+ * Call {@link #seal()} after appending before running date lookups; appending in
+ * increasing date order never needs a re-sort.
+ */
+public class StockSeries {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int id;
+    private String stockName;
+    private String sector;
+    private int size;
+    private boolean sorted = true;
+
+    int[] tradeDates = new int[INITIAL_CAPACITY];
+    long[] closePrices = new long[INITIAL_CAPACITY];
+    long[] openPrices = new long[INITIAL_CAPACITY];
+    long[] highPrices = new long[INITIAL_CAPACITY];
+    long[] lowPrices = new long[INITIAL_CAPACITY];
+    long[] volumes = new long[INITIAL_CAPACITY];
+    long[] marketCaps = new long[INITIAL_CAPACITY];
+    int[] peRatios = new int[INITIAL_CAPACITY];
+    int[] dividendYields = new int[INITIAL_CAPACITY];
+    long[] dsaIndicators = new long[INITIAL_CAPACITY];
+    long[] ma5Days = new long[INITIAL_CAPACITY];
+    int[] sectorIndexes = new int[INITIAL_CAPACITY];
+
+    // 本序列出現過的行業別，sectorIndexes 為其索引 Sectors seen in this series; sectorIndexes point into it
+    private final List<String> sectorNames = new ArrayList<>();
+
+    public StockSeries(int id) {
+        this.id = id;
+    }
+
+    /**
+     * 建立已排序、容量剛好的序列，欄位內容由呼叫者直接填入（例如由快照載入）；
+     * sector 為字典的第0項，未填入 sectorIndexes 時每列皆為此行業別
+     * Create a sealed series with exactly sized columns that the caller fills in place, e.g. when
+     * loading a snapshot. sector is dictionary entry 0, so rows whose sectorIndexes are left unfilled have that sector
+     */
+    StockSeries(int id, String stockName, String sector, int size) {
+        this.id = id;
+        this.stockName = stockName;
+        this.sector = sector;
+        sectorNames.add(sector);
+        grow(size);
+        this.size = size;
+    }
+
+    /**
+     * 附加一筆資料
+     * Append one bar
+     */
+    public void append(StockBar bar) {
+        if (bar.getId() != id) {
+            throw new IllegalArgumentException("股票代碼不符 Stock id mismatch: " + bar.getId() + " != " + id);
+        }
+        if (size == tradeDates.length) {
+            grow(size * 2);
+        }
+        if (size > 0 && bar.getTradeDate() <= tradeDates[size - 1]) {
+            sorted = false;
+        }
+
+        set(size, bar);
+        size++;
+    }
+
+    /**
+     * 以同一交易日的資料覆寫指定位置，例如 UPSERT 既有的交易日
+     * Overwrite the given row with a bar of the same trade date, e.g. when upserting an existing day
+     */
+    void set(int row, StockBar bar) {
+        tradeDates[row] = bar.getTradeDate();
+        closePrices[row] = bar.getClosePrice();
+        openPrices[row] = bar.getOpenPrice();
+        highPrices[row] = bar.getHighPrice();
+        lowPrices[row] = bar.getLowPrice();
+        volumes[row] = bar.getVolume();
+        marketCaps[row] = bar.getMarketCap();
+        peRatios[row] = bar.getPeRatio();
+        dividendYields[row] = bar.getDividendYield();
+        dsaIndicators[row] = bar.getDsaIndicator();
+        ma5Days[row] = bar.getMa5Days();
+        sectorIndexes[row] = sectorIndexOf(bar.getSector());
+        stockName = bar.getStockName();
+        sector = bar.getSector();
+    }
+
+    /**
+     * 行業別在本序列字典中的索引，不存在時加入
+     * Index of the sector in this series' dictionary, adding it when absent
+     */
+    int sectorIndexOf(String sector) {
+        // 由最後加入者開始比對，通常第一次就命中 Search from the newest entry, which usually matches first
+        for (int i = sectorNames.size() - 1; i >= 0; i--) {
+            if (Objects.equals(sectorNames.get(i), sector)) {
+                return i;
+            }
+        }
+        sectorNames.add(sector);
+        return sectorNames.size() - 1;
+    }
+
+    /**
+     * 依日期排序並去除重複日期（保留最後寫入者，與 ON DUPLICATE KEY UPDATE 相同），再縮減容量
+     * Sort by date and drop duplicate dates, keeping the last write like ON DUPLICATE KEY UPDATE,
+     * then trim the arrays to size
+     */
+    public void seal() {
+        if (!sorted) {
+            // 排序鍵：高32位元為日期、低32位元為原始位置，排序後同日期以最後一筆為準
+            // Sort key: date in the high 32 bits and original position in the low 32 bits
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) tradeDates[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            int[] order = new int[size];
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                boolean lastOfDate = i == size - 1 || (int) (keys[i + 1] >>> 32) != (int) (keys[i] >>> 32);
+                if (lastOfDate) {
+                    order[kept++] = (int) keys[i];
+                }
+            }
+
+            tradeDates = permute(tradeDates, order, kept);
+            closePrices = permute(closePrices, order, kept);
+            openPrices = permute(openPrices, order, kept);
+            highPrices = permute(highPrices, order, kept);
+            lowPrices = permute(lowPrices, order, kept);
+            volumes = permute(volumes, order, kept);
+            marketCaps = permute(marketCaps, order, kept);
+            peRatios = permute(peRatios, order, kept);
+            dividendYields = permute(dividendYields, order, kept);
+            dsaIndicators = permute(dsaIndicators, order, kept);
+            ma5Days = permute(ma5Days, order, kept);
+            sectorIndexes = permute(sectorIndexes, order, kept);
+            size = kept;
+            sorted = true;
+        } else if (size < tradeDates.length) {
+            grow(size);
+        }
+    }
+
+    private static int[] permute(int[] values, int[] order, int count) {
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+
+    private static long[] permute(long[] values, int[] order, int count) {
+        long[] result = new long[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+
+    private void grow(int capacity) {
+        capacity = Math.max(capacity, 1);
+        tradeDates = Arrays.copyOf(tradeDates, capacity);
+        closePrices = Arrays.copyOf(closePrices, capacity);
+        openPrices = Arrays.copyOf(openPrices, capacity);
+        highPrices = Arrays.copyOf(highPrices, capacity);
+        lowPrices = Arrays.copyOf(lowPrices, capacity);
+        volumes = Arrays.copyOf(volumes, capacity);
+        marketCaps = Arrays.copyOf(marketCaps, capacity);
+        peRatios = Arrays.copyOf(peRatios, capacity);
+        dividendYields = Arrays.copyOf(dividendYields, capacity);
+        dsaIndicators = Arrays.copyOf(dsaIndicators, capacity);
+        ma5Days = Arrays.copyOf(ma5Days, capacity);
+        sectorIndexes = Arrays.copyOf(sectorIndexes, capacity);
+    }
+
+    /**
+     * 以二分搜尋找出日期所在位置，不存在時回傳 -(插入點 + 1)
+     * Binary search for a date; returns -(insertion point + 1) when absent
+     */
+    public int indexOf(int epochDay) {
+        return Arrays.binarySearch(tradeDates, 0, size, epochDay);
+    }
+
+    /**
+     * 計算整個序列的DSA指標
+     * Compute the DSA indicator for the whole series
+     */
+    public void computeDSA() {
+        OhlcKernels.dsa(openPrices, highPrices, lowPrices, dsaIndicators, 0, size);
+    }
+
+    /**
+     * 計算5日移動平均，不足5日時使用可用天數
+     * Compute the 5-day moving average, averaging fewer days at the start of the series
+     */
+    public void computeMovingAverage5() {
+        long[] averages = RollingWindows.movingAverage(closePrices, size, 5);
+        System.arraycopy(averages, 0, ma5Days, 0, size);
+    }
+
+    /**
+     * 單次掃描計算多個視窗的移動平均、滾動高低價與標準差
+     * Compute moving averages, rolling highs/lows and standard deviations for several windows in one pass
+     */
+    public RollingWindows.Result computeRollingWindows(int... windows) {
+        return RollingWindows.compute(closePrices, highPrices, lowPrices, size, windows);
+    }
+
+    /**
+     * 取出指定位置的資料
+     * Materialize the bar at the given row
+     */
+    public StockBar getBar(int row) {
+        StockBar bar = new StockBar(id, stockName, closePrices[row], openPrices[row], highPrices[row], lowPrices[row],
+                volumes[row], marketCaps[row], peRatios[row], dividendYields[row], getSector(row), tradeDates[row]);
+        bar.setDsaIndicator(dsaIndicators[row]);
+        bar.setMa5Days(ma5Days[row]);
+        return bar;
+    }
+
+    /**
+     * 陣列佔用的估計位元組數
+     * Estimated bytes held by the column arrays
+     */
+    public long estimatedBytes() {
+        long arrayHeader = 16;
+        long capacity = tradeDates.length;
+        return 12 * arrayHeader + capacity * (4 * Integer.BYTES + 8 * Long.BYTES);
+    }
+
+    public int getId() { return id; }
+    public String getStockName() { return stockName; }
+
+    /** 最後寫入的行業別 The most recently written sector */
+    public String getSector() { return sector; }
+
+    public int size() { return size; }
+    public boolean isSorted() { return sorted; }
+
+    public int getTradeDate(int row) { return tradeDates[row]; }
+    public long getClosePrice(int row) { return closePrices[row]; }
+    public long getOpenPrice(int row) { return openPrices[row]; }
+    public long getHighPrice(int row) { return highPrices[row]; }
+    public long getLowPrice(int row) { return lowPrices[row]; }
+    public long getVolume(int row) { return volumes[row]; }
+    public long getMarketCap(int row) { return marketCaps[row]; }
+    public int getPeRatio(int row) { return peRatios[row]; }
+    public int getDividendYield(int row) { return dividendYields[row]; }
+    public long getDsaIndicator(int row) { return dsaIndicators[row]; }
+    public long getMa5Days(int row) { return ma5Days[row]; }
+
+    /** 該列的行業別 The sector of the given row */
+    public String getSector(int row) { return sectorNames.get(sectorIndexes[row]); }
+
+    /** 該列行業別在本序列字典中的索引 Index of the row's sector in this series' dictionary */
+    int getSectorIndex(int row) { return sectorIndexes[row]; }
+
+    /** 本序列字典中的行業別數 Number of sectors in this series' dictionary */
+    int getSectorCount() { return sectorNames.size(); }
+
+    /** 字典中的行業別 A sector of this series' dictionary */
+    String getSectorName(int index) { return sectorNames.get(index); }
+}
@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 記憶體內欄式股票時間序列儲存區
+ * In-Memory Columnar Stock Time-Series Store
+ *
+ * 依股票代碼保存 {@link StockSeries}，資料可由 {@link CSVReader} 或 {@link StockDataDAO} 載入，
+ * 指標計算與查詢直接掃描連續的原始型別陣列，不需要資料庫往返。
+ * Holds one {@link StockSeries} per stock id, loaded from {@link CSVReader} or
+ * {@link StockDataDAO}. Indicator computation and queries scan contiguous primitive
+ * arrays instead of making JDBC round trips.
+ */
+public class StockSeriesStore {
+    private final Map<Integer, StockSeries> seriesById = new HashMap<>();
+    private long totalRows;
+
+    /**
+     * 由CSV檔案載入，逐筆串流解析不保留中間物件
+     * Load from a CSV file, streaming rows without keeping intermediate objects
+     */
+    public static StockSeriesStore loadFromCSV(String filePath) throws IOException {
+        StockSeriesStore store = new StockSeriesStore();
+        try (CSVReader.RowIterator<StockBar> iterator = CSVReader.openStockBarIterator(filePath)) {
+            while (iterator.hasNext()) {
+                store.add(iterator.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        store.seal();
+        System.out.println("✓ 載入 " + store.getSeriesCount() + " 支股票，共 " + store.getTotalRows() + " 筆資料 Loaded "
+                + store.getSeriesCount() + " stocks, " + store.getTotalRows() + " rows");
+        return store;
+    }
+
+    /**
+     * 由資料庫（或其他儲存後端）載入全部資料（含已計算的指標）
+     * Load every row, including stored indicators, from the database or another storage backend
+     */
+    public static StockSeriesStore loadFromDatabase(StockRepository repository) throws SQLException {
+        StockSeriesStore store = new StockSeriesStore();
+        repository.forEachStockBar(store::add);
+        store.seal();
+        System.out.println("✓ 載入 " + store.getSeriesCount() + " 支股票，共 " + store.getTotalRows() + " 筆資料 Loaded "
+                + store.getSeriesCount() + " stocks, " + store.getTotalRows() + " rows");
+        return store;
+    }
+
+    /**
+     * 新增一筆資料
+     * Add one bar
+     */
+    public void add(StockBar bar) {
+        seriesById.computeIfAbsent(bar.getId(), StockSeries::new).append(bar);
+        totalRows++;
+    }
+
+    /**
+     * 加入一整個已排序的序列，取代相同代碼的既有序列
+     * Add a whole sealed series, replacing any existing series with the same id
+     */
+    void addSeries(StockSeries series) {
+        StockSeries previous = seriesById.put(series.getId(), series);
+        totalRows += series.size() - (previous == null ? 0 : previous.size());
+    }
+
+    /**
+     * 新增一筆 StockData（轉換為定點數）
+     * Add one StockData row, converting it to fixed-point
+     */
+    public void add(StockData stockData) {
+        add(StockBar.fromStockData(stockData));
+    }
+
+    /**
+     * 排序所有序列並去除重複日期
+     * Sort every series and drop duplicate dates
+     */
+    public void seal() {
+        long rows = 0;
+        for (StockSeries series : seriesById.values()) {
+            series.seal();
+            rows += series.size();
+        }
+        totalRows = rows;
+    }
+
+    /**
+     * 平行計算所有股票的DSA與5日移動平均
+     * Compute DSA and the 5-day moving average for every stock in parallel
+     */
+    public void computeIndicators() {
+        seriesById.values().parallelStream().forEach(series -> {
+            series.computeDSA();
+            series.computeMovingAverage5();
+        });
+    }
+
+    public StockSeries getSeries(int id) {
+        return seriesById.get(id);
+    }
+
+    public Collection<StockSeries> getAllSeries() {
+        return seriesById.values();
+    }
+
+    /**
+     * 依序排列的股票代碼
+     * Stock ids in ascending order
+     */
+    public int[] getStockIds() {
+        int[] ids = new int[seriesById.size()];
+        int i = 0;
+        for (Integer id : seriesById.keySet()) {
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * 將指定股票的資料轉為 StockData 清單，供寫回資料庫使用
+     * Materialize one stock as StockData rows, e.g. for writing back through the DAO
+     */
+    public List<StockData> toStockDataList(int id) {
+        StockSeries series = seriesById.get(id);
+        List<StockData> result = new ArrayList<>();
+        if (series != null) {
+            for (int row = 0; row < series.size(); row++) {
+                result.add(series.getBar(row).toStockData());
+            }
+        }
+        return result;
+    }
+
+    public int getSeriesCount() {
+        return seriesById.size();
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * 欄位陣列佔用的估計位元組數
+     * Estimated bytes held by all column arrays
+     */
+    public long estimatedMemoryBytes() {
+        long bytes = 0;
+        for (StockSeries series : seriesById.values()) {
+            bytes += series.estimatedBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,641 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * 欄式二進位快照
+ * Columnar Binary Snapshot
+ *
+ * 將 {@link StockSeriesStore} 的全部欄位（含已計算的DSA與5日均線）存成可記憶體映射的欄式檔案，
+ * 重新啟動時直接映射並整段複製到陣列，不需重新解析CSV或查詢MySQL。
+ * 快照記錄來源CSV已讀取的位元組位置與檔頭指紋，{@link #restore} 只解析其後新附加的資料列，
+ * 重算有新資料的股票的均線，再寫回新的快照。
+ * Stores every column of a {@link StockSeriesStore}, including the computed DSA and 5-day MA,
+ * in a memory-mappable columnar file. A restart maps the file and bulk-copies each column into
+ * the arrays, with no CSV parsing or MySQL queries. The snapshot records how many bytes of the
+ * source CSV it covers plus a fingerprint of the file's start, so {@link #restore} only parses
+ * rows appended since, recomputes the moving average of the stocks that received them, and
+ * writes a fresh snapshot.
+ *
+ * 檔案格式（little-endian） File layout, little-endian:
+ * <pre>
+ *   檔頭 header (64 bytes)
+ *     0  magic "STOCKSNP"          8  int version            12 int section count
+ *     16 long source offset        24 long source fingerprint 32 long total rows
+ *     40 int series count          44 int reserved            48 long created at (epoch millis)
+ *     56 int CRC32 of the header and section table            60 int reserved
+ *   區段表 section table: per section int id, int CRC32, long offset, long length
+ *   區段 sections, each 8-byte aligned:
+ *     0  strings   int count, then per string int length + UTF-8 bytes
+ *     1  series    per series int id, int name index, int sector index, int rows (ascending id)
+ *     2+ columns   one array per column, all series concatenated in directory order
+ *     last sectors int string index of each row's sector (-1 = null), in the same order (version 2+)
+ * </pre>
+ * 每個區段各有 CRC32；版本號大於 {@link #FORMAT_VERSION} 的檔案會被拒絕。
+ * 版本1沒有逐列的行業別，載入後每列使用股票目錄中的行業別。
+ * Every section carries its own CRC32, and files with a version newer than
+ * {@link #FORMAT_VERSION} are rejected. Version 1 has no per-row sectors; every row of a
+ * version 1 file gets the sector from the series directory.
+ */
+public class StockSnapshot {
+
+    /** 檔案格式版本 File format version */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte[] MAGIC = "STOCKSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_BYTES = 64;
+    private static final int SECTION_ENTRY_BYTES = 24;
+    private static final int SERIES_ENTRY_BYTES = 16;
+    private static final int FINGERPRINT_BYTES = 4096;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private static final int SECTION_STRINGS = 0;
+    private static final int SECTION_SERIES = 1;
+    private static final int FIRST_COLUMN_SECTION = 2;
+
+    /**
+     * 一個欄位：名稱、每個值的位元組數與取得陣列的方式
+     * One column: its name, bytes per value and how to reach the array
+     */
+    private static final class Column {
+        final String name;
+        final int bytes;
+        final Function<StockSeries, Object> array;
+
+        Column(String name, int bytes, Function<StockSeries, Object> array) {
+            this.name = name;
+            this.bytes = bytes;
+            this.array = array;
+        }
+    }
+
+    private static final Column[] COLUMNS = {
+        new Column("trade_date", Integer.BYTES, s -> s.tradeDates),
+        new Column("close_price", Long.BYTES, s -> s.closePrices),
+        new Column("open_price", Long.BYTES, s -> s.openPrices),
+        new Column("high_price", Long.BYTES, s -> s.highPrices),
+        new Column("low_price", Long.BYTES, s -> s.lowPrices),
+        new Column("volume", Long.BYTES, s -> s.volumes),
+        new Column("market_cap", Long.BYTES, s -> s.marketCaps),
+        new Column("pe_ratio", Integer.BYTES, s -> s.peRatios),
+        new Column("dividend_yield", Integer.BYTES, s -> s.dividendYields),
+        new Column("dsa_indicator", Long.BYTES, s -> s.dsaIndicators),
+        new Column("ma_5_days", Long.BYTES, s -> s.ma5Days),
+    };
+
+    private static final int SECTION_SECTORS = FIRST_COLUMN_SECTION + COLUMNS.length;
+    private static final int SECTION_COUNT = SECTION_SECTORS + 1;
+
+    /**
+     * 快照檔案無效（格式、版本或校驗碼錯誤）
+     * The snapshot file is invalid: bad format, version or checksum
+     */
+    public static class CorruptSnapshotException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public CorruptSnapshotException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 已載入的快照
+     * A loaded snapshot
+     */
+    public static class Snapshot {
+        private final StockSeriesStore store;
+        private final long sourceOffset;
+        private final long sourceFingerprint;
+        private final long createdAtMillis;
+
+        Snapshot(StockSeriesStore store, long sourceOffset, long sourceFingerprint, long createdAtMillis) {
+            this.store = store;
+            this.sourceOffset = sourceOffset;
+            this.sourceFingerprint = sourceFingerprint;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        public StockSeriesStore getStore() { return store; }
+
+        /** 快照涵蓋的來源CSV位元組數 Bytes of the source CSV covered by the snapshot */
+        public long getSourceOffset() { return sourceOffset; }
+
+        public long getSourceFingerprint() { return sourceFingerprint; }
+        public long getCreatedAtMillis() { return createdAtMillis; }
+    }
+
+    /**
+     * 重新啟動的結果
+     * Result of a restart
+     */
+    public static class RestoreResult {
+        private final StockSeriesStore store;
+        private final boolean fromSnapshot;
+        private final long snapshotRows;
+        private final long appliedRows;
+        private final long elapsedNanos;
+
+        RestoreResult(StockSeriesStore store, boolean fromSnapshot, long snapshotRows, long appliedRows, long elapsedNanos) {
+            this.store = store;
+            this.fromSnapshot = fromSnapshot;
+            this.snapshotRows = snapshotRows;
+            this.appliedRows = appliedRows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public StockSeriesStore getStore() { return store; }
+        public boolean isFromSnapshot() { return fromSnapshot; }
+
+        /** 由快照載入的筆數 Rows loaded from the snapshot */
+        public long getSnapshotRows() { return snapshotRows; }
+
+        /** 由CSV解析的筆數 Rows parsed from the CSV */
+        public long getAppliedRows() { return appliedRows; }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows from %s, %d rows parsed from CSV in %.1f ms",
+                    snapshotRows, fromSnapshot ? "snapshot" : "nothing", appliedRows, elapsedNanos / 1e6);
+        }
+    }
+
+    /**
+     * 由快照與CSV重建資料：快照有效時只解析其後附加的資料列，否則完整匯入；有新資料時寫回快照
+     * Rebuild the store from the snapshot plus the CSV: only rows appended after the snapshot are
+     * parsed when it is valid, otherwise the whole file is imported. The snapshot is rewritten
+     * whenever new rows were applied
+     */
+    public static RestoreResult restore(Path snapshotFile, String csvPath) throws IOException {
+        long start = System.nanoTime();
+        // 仍在寫入中的最後一行留待下次 A final line still being written is left for next time
+        long csvEnd = CSVReader.completeLinesEnd(csvPath, 0);
+
+        Snapshot snapshot = null;
+        if (Files.exists(snapshotFile)) {
+            try {
+                snapshot = read(snapshotFile);
+            } catch (CorruptSnapshotException e) {
+                System.err.println("快照無效，改為完整匯入 Snapshot unusable, importing the whole file: " + e.getMessage());
+            }
+            if (snapshot != null && (snapshot.getSourceOffset() > csvEnd
+                    || snapshot.getSourceFingerprint() != fingerprint(csvPath, snapshot.getSourceOffset()))) {
+                System.out.println("來源檔案已變更，改為完整匯入 Source file changed, importing the whole file");
+                snapshot = null;
+            }
+        }
+
+        StockSeriesStore store = snapshot != null ? snapshot.getStore() : new StockSeriesStore();
+        long fromOffset = snapshot != null ? snapshot.getSourceOffset() : 0;
+        long snapshotRows = store.getTotalRows();
+        long appliedRows = 0;
+
+        if (fromOffset < csvEnd) {
+            Set<Integer> touched = new HashSet<>();
+            try (CSVReader.RowIterator<StockBar> iterator = CSVReader.openStockBarIterator(csvPath, fromOffset, csvEnd)) {
+                while (iterator.hasNext()) {
+                    StockBar bar = iterator.next();
+                    store.add(bar);
+                    touched.add(bar.getId());
+                    appliedRows++;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            store.seal();
+
+            // 解析時已計算DSA，只需重算有新資料的股票的均線 DSA is computed while parsing; only the touched stocks need their MA
+            touched.parallelStream().forEach(id -> store.getSeries(id).computeMovingAverage5());
+            write(store, snapshotFile, csvEnd, fingerprint(csvPath, csvEnd));
+        }
+
+        RestoreResult result = new RestoreResult(store, snapshot != null, snapshotRows, appliedRows, System.nanoTime() - start);
+        System.out.println("✓ 資料已就緒 Store ready: " + result);
+        return result;
+    }
+
+    /**
+     * 來源檔案開頭（至多4096位元組）的 CRC32，用於偵測檔案被取代
+     * CRC32 of the first bytes (at most 4096) of the source file, used to detect a replaced file
+     */
+    public static long fingerprint(String csvPath, long sourceOffset) throws IOException {
+        int length = (int) Math.min(FINGERPRINT_BYTES, sourceOffset);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(Path.of(csvPath), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // 讀滿 Read fully
+            }
+        }
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * 寫入快照；先寫到暫存檔並同步到磁碟，再以原子方式取代目標檔案。store 必須已 seal
+     * Write a snapshot. It goes to a temporary file that is synced to disk and then atomically
+     * moved over the target. The store must be sealed
+     */
+    public static void write(StockSeriesStore store, Path file, long sourceOffset, long sourceFingerprint) throws IOException {
+        int[] ids = store.getStockIds();
+        List<StockSeries> series = new ArrayList<>(ids.length);
+        long totalRows = 0;
+        for (int id : ids) {
+            StockSeries s = store.getSeries(id);
+            if (!s.isSorted()) {
+                throw new IllegalStateException("序列尚未排序，請先呼叫 seal() Series not sealed: " + id);
+            }
+            series.add(s);
+            totalRows += s.size();
+        }
+
+        // 名稱與行業別字典 Dictionary of names and sectors
+        List<byte[]> strings = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        int[] nameIndexes = new int[series.size()];
+        int[] sectorIndexes = new int[series.size()];
+        // 各序列字典索引對應的字串索引 Per series, the string index of each sector dictionary entry
+        int[][] sectorMaps = new int[series.size()][];
+        for (int i = 0; i < series.size(); i++) {
+            StockSeries s = series.get(i);
+            nameIndexes[i] = intern(s.getStockName(), strings, stringIndex);
+            sectorIndexes[i] = intern(s.getSector(), strings, stringIndex);
+            sectorMaps[i] = new int[s.getSectorCount()];
+            for (int local = 0; local < sectorMaps[i].length; local++) {
+                sectorMaps[i][local] = intern(s.getSectorName(local), strings, stringIndex);
+            }
+        }
+
+        // 先計算各區段的位置 Lay out every section up front
+        long[] offsets = new long[SECTION_COUNT];
+        long[] lengths = new long[SECTION_COUNT];
+        long stringBytes = Integer.BYTES;
+        for (byte[] string : strings) {
+            stringBytes += Integer.BYTES + string.length;
+        }
+        lengths[SECTION_STRINGS] = stringBytes;
+        lengths[SECTION_SERIES] = (long) series.size() * SERIES_ENTRY_BYTES;
+        for (int c = 0; c < COLUMNS.length; c++) {
+            lengths[FIRST_COLUMN_SECTION + c] = totalRows * COLUMNS[c].bytes;
+        }
+        lengths[SECTION_SECTORS] = totalRows * Integer.BYTES;
+        long position = align(HEADER_BYTES + (long) SECTION_COUNT * SECTION_ENTRY_BYTES);
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            offsets[section] = position;
+            position = align(position + lengths[section]);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] crcs = new int[SECTION_COUNT];
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SectionWriter writer = new SectionWriter(channel);
+
+            writer.begin(offsets[SECTION_STRINGS]);
+            writer.putInt(strings.size());
+            for (byte[] string : strings) {
+                writer.putInt(string.length);
+                writer.putBytes(string);
+            }
+            crcs[SECTION_STRINGS] = writer.end();
+
+            writer.begin(offsets[SECTION_SERIES]);
+            for (int i = 0; i < series.size(); i++) {
+                writer.putInt(series.get(i).getId());
+                writer.putInt(nameIndexes[i]);
+                writer.putInt(sectorIndexes[i]);
+                writer.putInt(series.get(i).size());
+            }
+            crcs[SECTION_SERIES] = writer.end();
+
+            for (int c = 0; c < COLUMNS.length; c++) {
+                writer.begin(offsets[FIRST_COLUMN_SECTION + c]);
+                for (StockSeries s : series) {
+                    Object values = COLUMNS[c].array.apply(s);
+                    if (values instanceof int[]) {
+                        int[] ints = (int[]) values;
+                        for (int row = 0; row < s.size(); row++) {
+                            writer.putInt(ints[row]);
+                        }
+                    } else {
+                        long[] longs = (long[]) values;
+                        for (int row = 0; row < s.size(); row++) {
+                            writer.putLong(longs[row]);
+                        }
+                    }
+                }
+                crcs[FIRST_COLUMN_SECTION + c] = writer.end();
+            }
+
+            writer.begin(offsets[SECTION_SECTORS]);
+            for (int i = 0; i < series.size(); i++) {
+                StockSeries s = series.get(i);
+                for (int row = 0; row < s.size(); row++) {
+                    writer.putInt(sectorMaps[i][s.getSectorIndex(row)]);
+                }
+            }
+            crcs[SECTION_SECTORS] = writer.end();
+
+            // 檔頭與區段表最後寫入 The header and section table go last, once every CRC is known
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + SECTION_COUNT * SECTION_ENTRY_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC)
+                  .putInt(FORMAT_VERSION)
+                  .putInt(SECTION_COUNT)
+                  .putLong(sourceOffset)
+                  .putLong(sourceFingerprint)
+                  .putLong(totalRows)
+                  .putInt(series.size())
+                  .putInt(0)
+                  .putLong(System.currentTimeMillis())
+                  .putInt(0)
+                  .putInt(0);
+            for (int section = 0; section < SECTION_COUNT; section++) {
+                header.putInt(section).putInt(crcs[section]).putLong(offsets[section]).putLong(lengths[section]);
+            }
+            header.putInt(56, headerCrc(header));
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 讀取並驗證快照
+     * Read and verify a snapshot
+     */
+    public static Snapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new CorruptSnapshotException("檔案過短 File too short: " + fileSize + " bytes");
+            }
+
+            ByteBuffer header = map(channel, 0, HEADER_BYTES);
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!java.util.Arrays.equals(magic, MAGIC)) {
+                throw new CorruptSnapshotException("不是快照檔案 Not a snapshot file");
+            }
+            int version = header.getInt(8);
+            if (version > FORMAT_VERSION) {
+                throw new CorruptSnapshotException("不支援的版本 Unsupported snapshot version " + version
+                        + " (this build reads up to " + FORMAT_VERSION + ")");
+            }
+            int sectionCount = header.getInt(12);
+            // 版本1沒有行業別區段 Version 1 has no sector section
+            if (sectionCount != (version == 1 ? SECTION_SECTORS : SECTION_COUNT)) {
+                throw new CorruptSnapshotException("區段數不符 Unexpected section count: " + sectionCount);
+            }
+
+            ByteBuffer table = map(channel, 0, HEADER_BYTES + (long) sectionCount * SECTION_ENTRY_BYTES);
+            if (headerCrc(table) != table.getInt(56)) {
+                throw new CorruptSnapshotException("檔頭校驗碼錯誤 Header checksum mismatch");
+            }
+            long sourceOffset = table.getLong(16);
+            long sourceFingerprint = table.getLong(24);
+            long totalRows = table.getLong(32);
+            int seriesCount = table.getInt(40);
+            long createdAt = table.getLong(48);
+
+            ByteBuffer[] sections = new ByteBuffer[sectionCount];
+            for (int section = 0; section < sectionCount; section++) {
+                int entry = HEADER_BYTES + section * SECTION_ENTRY_BYTES;
+                int crc = table.getInt(entry + 4);
+                long offset = table.getLong(entry + 8);
+                long length = table.getLong(entry + 16);
+                if (offset < 0 || length < 0 || offset + length > fileSize) {
+                    throw new CorruptSnapshotException("區段超出檔案範圍 Section " + sectionName(section) + " out of bounds");
+                }
+                sections[section] = map(channel, offset, length);
+                CRC32 checksum = new CRC32();
+                checksum.update(sections[section].duplicate());
+                if ((int) checksum.getValue() != crc) {
+                    throw new CorruptSnapshotException("區段校驗碼錯誤 Checksum mismatch in section " + sectionName(section));
+                }
+            }
+
+            String[] strings = readStrings(sections[SECTION_STRINGS]);
+            ByteBuffer directory = sections[SECTION_SERIES];
+            if (directory.remaining() != (long) seriesCount * SERIES_ENTRY_BYTES) {
+                throw new CorruptSnapshotException("股票目錄大小不符 Series directory size mismatch");
+            }
+
+            StockSeriesStore store = new StockSeriesStore();
+            List<StockSeries> series = new ArrayList<>(seriesCount);
+            long rows = 0;
+            for (int i = 0; i < seriesCount; i++) {
+                int id = directory.getInt();
+                String name = string(strings, directory.getInt());
+                String sector = string(strings, directory.getInt());
+                int size = directory.getInt();
+                StockSeries s = new StockSeries(id, name, sector, size);
+                series.add(s);
+                rows += size;
+            }
+            if (rows != totalRows) {
+                throw new CorruptSnapshotException("筆數不符 Row count mismatch: " + rows + " != " + totalRows);
+            }
+
+            // 整段複製每個欄位 Bulk-copy every column
+            for (int c = 0; c < COLUMNS.length; c++) {
+                ByteBuffer column = sections[FIRST_COLUMN_SECTION + c];
+                if (column.remaining() != totalRows * COLUMNS[c].bytes) {
+                    throw new CorruptSnapshotException("欄位大小不符 Size mismatch in column " + COLUMNS[c].name);
+                }
+                if (COLUMNS[c].bytes == Integer.BYTES) {
+                    IntBuffer ints = column.asIntBuffer();
+                    for (StockSeries s : series) {
+                        ints.get((int[]) COLUMNS[c].array.apply(s), 0, s.size());
+                    }
+                } else {
+                    LongBuffer longs = column.asLongBuffer();
+                    for (StockSeries s : series) {
+                        longs.get((long[]) COLUMNS[c].array.apply(s), 0, s.size());
+                    }
+                }
+            }
+
+            if (sectionCount > SECTION_SECTORS) {
+                readSectors(sections[SECTION_SECTORS], series, strings, totalRows);
+            }
+
+            for (StockSeries s : series) {
+                store.addSeries(s);
+            }
+            return new Snapshot(store, sourceOffset, sourceFingerprint, createdAt);
+        }
+    }
+
+    // 字串索引轉為各序列的字典索引，相鄰列通常相同 Map string indexes to each series' dictionary; neighbouring rows usually repeat
+    private static void readSectors(ByteBuffer section, List<StockSeries> series, String[] strings, long totalRows)
+            throws CorruptSnapshotException {
+        if (section.remaining() != totalRows * Integer.BYTES) {
+            throw new CorruptSnapshotException("欄位大小不符 Size mismatch in column setor");
+        }
+        IntBuffer ints = section.asIntBuffer();
+        for (StockSeries s : series) {
+            int previous = Integer.MIN_VALUE;
+            int local = 0;
+            for (int row = 0; row < s.size(); row++) {
+                int index = ints.get();
+                if (index != previous) {
+                    local = s.sectorIndexOf(string(strings, index));
+                    previous = index;
+                }
+                s.sectorIndexes[row] = local;
+            }
+        }
+    }
+
+    private static int intern(String value, List<byte[]> strings, Map<String, Integer> stringIndex) {
+        if (value == null) {
+            return -1;
+        }
+        return stringIndex.computeIfAbsent(value, v -> {
+            strings.add(v.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+    private static String[] readStrings(ByteBuffer section) throws CorruptSnapshotException {
+        try {
+            String[] strings = new String[section.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[section.getInt()];
+                section.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return strings;
+        } catch (RuntimeException e) {
+            throw new CorruptSnapshotException("字串區段格式錯誤 Malformed string section: " + e);
+        }
+    }
+
+    private static String string(String[] strings, int index) throws CorruptSnapshotException {
+        if (index == -1) {
+            return null;
+        }
+        if (index < 0 || index >= strings.length) {
+            throw new CorruptSnapshotException("字串索引超出範圍 String index out of range: " + index);
+        }
+        return strings[index];
+    }
+
+    // 檔頭 [0, 56) 與區段表的 CRC32 CRC32 of header bytes [0, 56) and the section table
+    private static int headerCrc(ByteBuffer headerAndTable) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = headerAndTable.duplicate();
+        view.position(0).limit(56);
+        crc.update(view);
+        view.limit(headerAndTable.capacity()).position(HEADER_BYTES);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static String sectionName(int section) {
+        if (section == SECTION_STRINGS) {
+            return "strings";
+        }
+        if (section == SECTION_SERIES) {
+            return "series";
+        }
+        if (section == SECTION_SECTORS) {
+            return "setor";
+        }
+        return COLUMNS[section - FIRST_COLUMN_SECTION].name;
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * 以緩衝區循序寫入一個區段並計算其 CRC32
+     * Writes one section sequentially through a buffer while computing its CRC32
+     */
+    private static final class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+        private long position;
+
+        SectionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void begin(long offset) {
+            position = offset;
+            crc.reset();
+            buffer.clear();
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int written = 0; written < bytes.length; ) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+        }
+
+        int end() throws IOException {
+            flush();
+            return (int) crc.getValue();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import java.sql.SQLException;
+
+/**
+ * 儲存後端
+ * Storage Backend
+ *
+ * MYSQL：以 {@link StockDataDAO} 連線至 MySQL（連線設定見 {@link StockDataDAO#URL_PROPERTY}）；
+ * MEMORY：{@link InMemoryStockRepository}，資料只存在於程序內，結束後即消失。
+ * 可用系統屬性 {@code storage.backend} 於執行時選擇。
+ * MYSQL connects to MySQL through {@link StockDataDAO} (see {@link StockDataDAO#URL_PROPERTY} for
+ * the connection settings); MEMORY is an {@link InMemoryStockRepository} whose rows live only as
+ * long as the process. Select at runtime with the {@code storage.backend} system property.
+ */
+public enum StorageBackend {
+    MYSQL,
+    MEMORY;
+
+    /** 系統屬性名稱 System property name */
+    public static final String PROPERTY = "storage.backend";
+
+    /**
+     * 由系統屬性取得後端，未設定時為 MYSQL
+     * Read the backend from the system property, defaulting to MYSQL
+     */
+    public static StorageBackend fromSystemProperty() {
+        return parse(System.getProperty(PROPERTY, MYSQL.name()));
+    }
+
+    /**
+     * 解析後端名稱（不分大小寫）
+     * Parse a backend name, ignoring case
+     */
+    public static StorageBackend parse(String value) {
+        for (StorageBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(value.trim())) {
+                return backend;
+            }
+        }
+        throw new IllegalArgumentException("未知的儲存後端 Unknown storage backend: " + value);
+    }
+
+    /**
+     * 開啟此後端的儲存區；MYSQL 會建立連線，使用完畢請呼叫 close()
+     * Open a repository on this backend; MYSQL connects to the database. Call close() when done
+     */
+    public StockRepository open() throws SQLException {
+        if (this == MEMORY) {
+            return new InMemoryStockRepository();
+        }
+        StockDataDAO dao = new StockDataDAO();
+        dao.connect();
+        return dao;
+    }
+}
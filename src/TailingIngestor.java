@@ -0,0 +1,337 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 監看目錄的增量匯入
+ * Tailing Ingest from a Drop Directory
+ *
+ * 監看一個目錄中的CSV檔（.csv / .txt），為每個檔案記錄已匯入的位元組位置，
+ * 檔案被附加時只解析新增的完整資料行，以 {@link StockRepository} 的 UPSERT 寫入，
+ * 再只為這些股票增量更新5日移動平均（DSA已於寫入時計算）。不會清空資料表。
+ * Watches a directory of CSV files (.csv / .txt) and records how many bytes of each file have
+ * been ingested. When a file grows, only the newly appended complete lines are parsed, upserted
+ * through a {@link StockRepository}, and the 5-day MA is incrementally updated for just the stocks
+ * those lines touched; DSA is computed by the upsert itself. The table is never cleared.
+ *
+ * 位置記錄於目錄中的 {@value #OFFSETS_FILE}，在資料提交後才更新；中斷後重新啟動最多重送一批，
+ * UPSERT 使其無副作用。記錄中另存檔案開頭的指紋，檔案被截短或取代時從頭重新讀取。
+ * Offsets live in {@value #OFFSETS_FILE} inside the directory and are only advanced after the
+ * rows are committed, so a restart after a crash re-sends at most one file's new rows, which the
+ * upsert makes harmless. A fingerprint of the file's start is stored too, so a truncated or
+ * replaced file is read again from the beginning.
+ *
+ * 執行 Run:
+ *   java -cp "core/target/classes:mysql-connector-j-9.1.0.jar" TailingIngestor <drop-directory>
+ */
+public class TailingIngestor implements Closeable {
+
+    /** 位置記錄檔名 Name of the offsets file */
+    public static final String OFFSETS_FILE = ".ingest-offsets";
+
+    /** 收到事件後等待同一次寫入的後續事件的毫秒數 Milliseconds to let a burst of events settle */
+    public static final long DEFAULT_SETTLE_MILLIS = 50;
+
+    private final Path directory;
+    private final StockRepository repository;
+    private final Path offsetsFile;
+    private final long settleMillis;
+
+    // 檔名 → {已匯入位置, 開頭指紋} File name → {ingested offset, start fingerprint}
+    private final Map<String, long[]> offsets = new TreeMap<>();
+    private volatile boolean running;
+    private volatile WatchService watcher;
+
+    /**
+     * 單一檔案一次匯入的結果
+     * Result of one pass over one file
+     */
+    public static class IngestResult {
+        private final String fileName;
+        private final int rows;
+        private final int stocks;
+        private final long elapsedNanos;
+
+        IngestResult(String fileName, int rows, int stocks, long elapsedNanos) {
+            this.fileName = fileName;
+            this.rows = rows;
+            this.stocks = stocks;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getFileName() { return fileName; }
+        public int getRows() { return rows; }
+        public int getStocks() { return stocks; }
+
+        /** 由開始解析到指標更新完成的時間 Time from parsing to updated indicators */
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d rows, %d stocks, %.1f ms", fileName, rows, stocks, elapsedNanos / 1e6);
+        }
+    }
+
+    public TailingIngestor(Path directory, StockRepository repository) throws IOException {
+        this(directory, repository, DEFAULT_SETTLE_MILLIS);
+    }
+
+    public TailingIngestor(Path directory, StockRepository repository, long settleMillis) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("不是目錄 Not a directory: " + directory);
+        }
+        this.directory = directory;
+        this.repository = repository;
+        this.offsetsFile = directory.resolve(OFFSETS_FILE);
+        this.settleMillis = settleMillis;
+        loadOffsets();
+    }
+
+    /**
+     * 監看目錄直到 {@link #stop()}；先補上未執行期間附加的資料
+     * Watch the directory until {@link #stop()}, first catching up on rows appended while not running
+     */
+    public void watch() throws IOException, SQLException, InterruptedException {
+        running = true;
+        try (WatchService service = directory.getFileSystem().newWatchService()) {
+            watcher = service;
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            pollOnce();
+            System.out.println("✓ 監看目錄中 Watching " + directory);
+
+            while (running) {
+                WatchKey key;
+                try {
+                    key = service.take();
+                } catch (ClosedWatchServiceException e) {
+                    break;
+                }
+
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = collect(key, changed);
+                // 同一次寫入常產生多個事件，稍候合併為一次處理 One write often fires several events; merge them
+                Thread.sleep(settleMillis);
+                for (WatchKey more = service.poll(); more != null; more = service.poll()) {
+                    overflow |= collect(more, changed);
+                }
+
+                try {
+                    if (overflow) {
+                        pollOnce();
+                    } else {
+                        for (Path file : changed) {
+                            if (accepts(file)) {
+                                ingest(file);
+                            }
+                        }
+                    }
+                } catch (SQLException | IOException e) {
+                    // 位置未前進，下次事件時重試 The offset did not advance, so the next event retries
+                    System.err.println("增量匯入失敗，稍後重試 Ingest failed, will retry: " + e.getMessage());
+                }
+            }
+        } finally {
+            watcher = null;
+            running = false;
+        }
+    }
+
+    /**
+     * 停止監看
+     * Stop watching
+     */
+    public void stop() throws IOException {
+        running = false;
+        WatchService service = watcher;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+    }
+
+    /**
+     * 檢查目錄中所有檔案一次
+     * Check every file in the directory once
+     */
+    public List<IngestResult> pollOnce() throws IOException, SQLException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (accepts(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+
+        List<IngestResult> results = new ArrayList<>();
+        for (Path file : files) {
+            IngestResult result = ingest(file);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 匯入一個檔案自上次位置之後附加的完整資料行；沒有新資料時回傳 null
+     * Ingest the complete lines appended to one file since its recorded offset; null when nothing was appended
+     */
+    public IngestResult ingest(Path file) throws IOException, SQLException {
+        String name = file.getFileName().toString();
+        String path = file.toString();
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        long[] state = offsets.get(name);
+        long offset = state == null ? 0 : state[0];
+        if (state != null && (offset > Files.size(file) || StockSnapshot.fingerprint(path, offset) != state[1])) {
+            System.out.println("檔案已被截短或取代，從頭讀取 File truncated or replaced, reading from the start: " + name);
+            offset = 0;
+        }
+
+        // 仍在寫入中的最後一行留待下次 A final line still being written is left for next time
+        long end = CSVReader.completeLinesEnd(path, offset);
+        if (end == offset) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Set<Integer> touched = new HashSet<>();
+        int rows = 0;
+        List<StockData> chunk = new ArrayList<>(StockDataDAO.DEFAULT_CHUNK_SIZE);
+        try (CSVReader.StockDataIterator iterator = CSVReader.openStockDataIterator(path, offset, end)) {
+            while (iterator.hasNext()) {
+                StockData stockData = iterator.next();
+                chunk.add(stockData);
+                touched.add(stockData.getId());
+                if (chunk.size() == StockDataDAO.DEFAULT_CHUNK_SIZE) {
+                    repository.writeBatch(chunk);
+                    rows += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!chunk.isEmpty()) {
+            repository.writeBatch(chunk);
+            rows += chunk.size();
+        }
+
+        if (!touched.isEmpty()) {
+            repository.updateMovingAveragesIncremental(touched);
+        }
+
+        offsets.put(name, new long[] {end, StockSnapshot.fingerprint(path, end)});
+        saveOffsets();
+
+        IngestResult result = new IngestResult(name, rows, touched.size(), System.nanoTime() - start);
+        System.out.println("✓ 增量匯入完成 Ingested " + result);
+        return result;
+    }
+
+    /**
+     * 一個檔案已匯入的位元組位置
+     * Bytes of the file ingested so far
+     */
+    public long getOffset(String fileName) {
+        long[] state = offsets.get(fileName);
+        return state == null ? 0 : state[0];
+    }
+
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    private static boolean accepts(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && (name.endsWith(".csv") || name.endsWith(".txt"));
+    }
+
+    private void loadOffsets() throws IOException {
+        if (!Files.exists(offsetsFile)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(offsetsFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        for (String name : properties.stringPropertyNames()) {
+            String[] parts = properties.getProperty(name).split(",");
+            try {
+                offsets.put(name, new long[] {Long.parseLong(parts[0].trim()), Long.parseLong(parts[1].trim())});
+            } catch (RuntimeException e) {
+                System.err.println("位置記錄格式錯誤，從頭讀取 Bad offset entry, reading from the start: " + name);
+            }
+        }
+    }
+
+    // 先寫暫存檔再以原子方式取代 Write a temporary file, then atomically replace the offsets file
+    private void saveOffsets() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, long[]> entry : offsets.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue()[0] + "," + entry.getValue()[1]);
+        }
+        Path temporary = offsetsFile.resolveSibling(OFFSETS_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, "TailingIngestor offsets: file=offset,fingerprint");
+        }
+        Files.move(temporary, offsetsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("用法 Usage: java TailingIngestor <drop-directory>");
+            System.exit(1);
+        }
+
+        StockRepository repository = StorageBackend.fromSystemProperty().open();
+        try {
+            repository.createTable();
+            try (TailingIngestor ingestor = new TailingIngestor(Paths.get(args[0]), repository)) {
+                ingestor.watch();
+            }
+        } finally {
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 以 Vector API 實作的K線批次公式
+ * Vector API Implementation of the Bulk OHLC Formulas
+ *
+ * 需以 {@code --add-modules jdk.incubator.vector} 編譯與執行，因此放在 src/vector/，
+ * 直接以 javac 編譯 src/*.java 時不會包含；{@link OhlcKernels} 以反射載入，無法載入時改用純量版本。
+ * Needs {@code --add-modules jdk.incubator.vector} to compile and run, so it lives in src/vector/
+ * and plain javac of src/*.java leaves it out; {@link OhlcKernels} loads it reflectively and
+ * falls back to the scalar loop when it cannot.
+ *
+ * DSA的 HALF_UP 除法：先以 double 求商並取整，誤差小於1，再以整數餘數修正一步，
+ * 結果與 {@link FixedPoint#dsa} 完全相同。含空值、開盤價或價差超過 ±2³⁰ 分的區塊交由純量版本處理，
+ * 以確保整數運算不會溢位。避免使用 JDK 17 無法編譯為向量指令的遮罩組合與 long/double 轉換。
+ * HALF_UP division for DSA: the quotient is computed in double and rounded, which is off by
+ * at most one, then corrected in one step from the exact integer remainder, so results equal
+ * {@link FixedPoint#dsa}. Blocks with a null price, an open price or a price difference beyond
+ * ±2³⁰ cents go to the scalar loop so the integer arithmetic cannot overflow. The code avoids
+ * combining masks and the long/double conversion lanes, which JDK 17 does not compile to
+ * vector instructions.
+ */
+final class VectorOhlcKernels implements OhlcKernels.Kernels {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    // |high - open|、|open - low| 的上限，使分母與 numerator * 10^8 都在 long 範圍內
+    // Bound on |high - open| and |open - low| keeping the denominator and numerator * 10^8 within a long
+    private static final long LIMIT = 1L << 30;
+
+    private static final double MAGIC = 0x1.8p52;
+    private static final long MAGIC_BITS = Double.doubleToRawLongBits(MAGIC);
+
+    private VectorOhlcKernels() {}
+
+    /**
+     * 建立向量版本；long 與 double 向量的通道數不同或少於2時沒有可用的向量形狀，回傳 null
+     * Create the vector kernel, or return null when there is no usable vector shape, i.e. the
+     * long and double species differ in lane count or have fewer than 2 lanes
+     */
+    static VectorOhlcKernels create() {
+        if (LONGS.length() != DOUBLES.length() || LONGS.length() < 2) {
+            return null;
+        }
+        return new VectorOhlcKernels();
+    }
+
+    @Override
+    public void dsa(long[] open, long[] high, long[] low, long[] out, int from, int to) {
+        int i = from;
+        int upper = from + LONGS.loopBound(to - from);
+        for (; i < upper; i += LONGS.length()) {
+            LongVector o = LongVector.fromArray(LONGS, open, i);
+            LongVector h = LongVector.fromArray(LONGS, high, i);
+            LongVector l = LongVector.fromArray(LONGS, low, i);
+            LongVector highMinusOpen = h.sub(o);
+            LongVector openMinusLow = o.sub(l);
+
+            // 空值（Long.MIN_VALUE）或超出 ±2³⁰ 的值加上 2³⁰ 後會有第31位以上的位元
+            // A null (Long.MIN_VALUE) or a value outside ±2³⁰ has a bit at or above bit 31 once 2³⁰ is added
+            LongVector outside = highMinusOpen.add(LIMIT).or(openMinusLow.add(LIMIT)).or(o.add(LIMIT)).and(-2 * LIMIT);
+            if (outside.compare(VectorOperators.NE, 0L).anyTrue()) {
+                OhlcKernels.SCALAR.dsa(open, high, low, out, i, i + LONGS.length());
+                continue;
+            }
+
+            // 結果放大10^6：numerator * 10^8 / denominator；以絕對值捨入，最後補回正負號
+            // The scale-6 result is numerator * 10^8 / denominator, rounded on the absolute value with the sign restored last
+            LongVector dividend = highMinusOpen.add(openMinusLow).mul(100_000_000L);
+            LongVector absDividend = dividend.abs();
+            LongVector divisor = highMinusOpen.mul(highMinusOpen).add(openMinusLow.mul(openMinusLow));
+            DoubleVector hmo = toDoubles(highMinusOpen);
+            DoubleVector oml = toDoubles(openMinusLow);
+            // 商 ≤ 2·10^8，遠小於 2⁵¹；分母為0的列在最後以0取代 The quotient is at most 2·10^8, well below 2⁵¹; zero-denominator rows are replaced by 0 at the end
+            LongVector result = toLongs(hmo.add(oml).abs().mul(1e8).div(hmo.mul(hmo).add(oml.mul(oml))));
+
+            // 2 * 餘數與除數比較，修正為 HALF_UP Compare twice the remainder with the divisor to round HALF_UP
+            LongVector twiceRemainder = absDividend.sub(result.mul(divisor)).lanewise(VectorOperators.LSHL, 1);
+            result = result.lanewise(VectorOperators.ADD, 1L, twiceRemainder.compare(VectorOperators.GE, divisor))
+                    .lanewise(VectorOperators.SUB, 1L, twiceRemainder.compare(VectorOperators.LT, divisor.neg()));
+            result = result.blend(result.neg(), dividend.compare(VectorOperators.LT, 0L));
+
+            // 分母為0時DSA為0 DSA is 0 when the denominator is 0
+            result.blend(0L, divisor.eq(0L)).intoArray(out, i);
+        }
+        OhlcKernels.SCALAR.dsa(open, high, low, out, i, to);
+    }
+
+    // |x| < 2⁵¹ 時 long 與 double 互轉：加上 1.5·2⁵² 使數值落在尾數位元，只需重新解讀位元與一次加減
+    // long/double conversion for |x| < 2⁵¹: adding 1.5·2⁵² puts the value in the mantissa bits, so a
+    // reinterpretation and one add or subtract suffice
+    private static DoubleVector toDoubles(LongVector values) {
+        return values.add(MAGIC_BITS).reinterpretAsDoubles().sub(MAGIC);
+    }
+
+    // 四捨五入至最接近的整數 Rounds to the nearest integer
+    private static LongVector toLongs(DoubleVector values) {
+        return values.add(MAGIC).reinterpretAsLongs().sub(MAGIC_BITS);
+    }
+
+    @Override
+    public String describe() {
+        return "vector(" + LONGS.length() + " lanes)";
+    }
+}